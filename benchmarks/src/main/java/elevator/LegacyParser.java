@@ -0,0 +1,69 @@
+/* File name : LegacyParser.java */
+package elevator;
+
+import java.io.*;
+import java.util.Scanner;
+
+/**
+ * The line based parser that preceded PassengerParser, kept as a baseline for
+ * the parsing benchmark. Each row is read as a string and split with a
+ * Scanner, and passengers are collected in a reversed Stack that is absorbed
+ * to restore the file order.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+final class LegacyParser {
+
+   private LegacyParser() {
+   }
+
+   /**
+    * Returns a Stack ADT containing passenger data provided in the input file.
+    *
+    * @param inFileName Name of file containing elevator passenger data.
+    * @param numFloors Number of floors in the building.
+    * @return Stack with passenger objects.
+    * @throws IOException If the file can not be read.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static Stack parse(String inFileName, int numFloors)
+      throws IOException, PassengerDataException {
+
+      String record;
+      int rowNum = 1;
+      Stack reverseStack = new Stack();
+
+      try (BufferedReader input = new BufferedReader(new FileReader(inFileName))) {
+         while ((record = input.readLine()) != null) {
+            if (!record.isEmpty() && !record.substring(0, 2).equals("//")) {
+               Scanner scan = new Scanner(record);
+               String name = scan.next();
+               int floorEntered;
+               int floorExited;
+               try {
+                  floorEntered = Integer.parseInt(scan.next());
+                  floorExited = Integer.parseInt(scan.next());
+               } catch (NumberFormatException e) {
+                  throw new PassengerDataException("Value in row " + rowNum
+                     + " is not an integer.", record);
+               }
+               if (floorEntered < 1 || floorEntered > numFloors
+                  || floorExited < 1 || floorExited > numFloors) {
+                  throw new PassengerDataException("Value in row " + rowNum
+                     + " is out of range.", record);
+               }
+               reverseStack.push(new Passenger(name, floorEntered, floorExited));
+               rowNum++;
+            }
+         }
+      }
+
+      Stack passengerStack = new Stack();
+      passengerStack.absorbStack(reverseStack);
+
+      return passengerStack;
+   }
+}
@@ -0,0 +1,67 @@
+/* File name : ParseBenchmark.java */
+package elevator;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long it takes to read a synthetic trace with the
+ * memory-mapped PassengerParser, the way the simulator reads it: rows go
+ * straight into a PassengerStore, sized from the parser's hint. Reading the
+ * rows into a waiting line of Passenger objects, and the line based parser
+ * the PassengerParser replaced, are measured as baselines.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParseBenchmark {
+
+   @Param({"1000", "100000", "10000000"})
+   public int passengers;
+
+   @Param({"5", "60"})
+   public int floors;
+
+   private String fileName; // Trace parsed by every invocation
+   private PassengerStore store; // Reused like the store of an engine
+
+   @Setup(Level.Trial)
+   public void writeTrace() throws IOException {
+      fileName = Traces.file(passengers, floors).getPath();
+      store = new PassengerStore();
+   }
+
+   @Benchmark
+   public int mapped() throws IOException, PassengerDataException {
+      store.clear();
+      try (PassengerParser parser = new PassengerParser(fileName, floors)) {
+         store.ensureCapacity(parser.sizeHint());
+         while (parser.nextIndex(store) >= 0) {
+            // Rows are kept by the store
+         }
+      }
+      return store.getSize();
+   }
+
+   @Benchmark
+   public PassengerQueue mappedObjects()
+      throws IOException, PassengerDataException {
+
+      try (PassengerParser parser = new PassengerParser(fileName, floors)) {
+         return parser.readAll();
+      }
+   }
+
+   @Benchmark
+   public Stack legacy() throws IOException, PassengerDataException {
+      return LegacyParser.parse(fileName, floors);
+   }
+}
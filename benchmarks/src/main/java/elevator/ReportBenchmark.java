@@ -0,0 +1,80 @@
+/* File name : ReportBenchmark.java */
+package elevator;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures how long the text report takes to render the events of a trace.
+ * Every passenger enters, temporarily exits once and exits at a floor stop,
+ * and the rendered text is discarded instead of written to disk.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReportBenchmark {
+
+   @Param({"1000", "100000", "10000000"})
+   public int passengers;
+
+   @Param({"5", "60"})
+   public int floors;
+
+   private Passenger[] trace; // Passengers rendered by every invocation
+
+   @Setup(Level.Trial)
+   public void createTrace() {
+      trace = Traces.passengers(passengers, floors);
+   }
+
+   @Benchmark
+   public long render() throws Exception {
+      CountingWriter writer = new CountingWriter();
+      try (TextReportWriter report = new TextReportWriter(writer)) {
+         report.simulationStarted(floors, 1);
+         for (Passenger passenger : trace) {
+            report.floorStopped(1, passenger.getFloorEntered());
+            report.passengerEntered(passenger);
+            report.passengerTempExited(passenger);
+            report.passengerExited(passenger);
+            report.directionReported(true);
+         }
+         report.simulationEnded(new SimulationStats(0, 0, 0, 0));
+      }
+      return writer.chars;
+   }
+
+   /**
+    * Writer that discards what it is given, counting the characters.
+    */
+   static final class CountingWriter extends Writer {
+
+      long chars; // Counts every character written
+
+      @Override
+      public void write(char[] buffer, int offset, int length) {
+         chars += length;
+      }
+
+      @Override
+      public void write(String text, int offset, int length) {
+         chars += length;
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+   }
+}
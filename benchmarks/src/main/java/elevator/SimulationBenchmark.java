@@ -0,0 +1,147 @@
+/* File name : SimulationBenchmark.java */
+package elevator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the simulation engine on its own. Passengers are created before
+ * each invocation and events go to a listener that only counts them, so
+ * neither parsing nor report rendering is part of the measurement. The same
+ * engine is reused by every invocation, as it would be by a service.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+
+   @Param({"1000", "100000", "10000000"})
+   public int passengers;
+
+   @Param({"5", "60"})
+   public int floors;
+
+   @Param({"5", "20"})
+   public int capacity;
+
+   @Param({SimulationOptions.CAR_STACK, SimulationOptions.CAR_FAST})
+   public String car;
+
+   @Param({SimulationOptions.BOARDING_QUEUE, SimulationOptions.BOARDING_FLOOR})
+   public String boarding;
+
+   @Param({"1", "4"})
+   public int cars;
+
+   @Param({SimulationOptions.DISPATCH_SWEEP})
+   public String dispatch;
+
+   private int[] floorsEntered; // Starting floor of every passenger
+   private int[] floorsExited; // Destination floor of every passenger
+   private SimulationEngine engine; // Engine reused by every invocation
+   private PassengerQueue waitingQueue; // Fresh passengers for the invocation
+
+   @Setup(Level.Trial)
+   public void createTrace() {
+      engine = new SimulationEngine(new SimulationOptions()
+         .setNumFloors(floors)
+         .setCapacity(capacity)
+         .setCarModel(car)
+         .setBoarding(boarding)
+         .setNumCars(cars)
+         .setDispatch(dispatch));
+
+      Passenger[] trace = Traces.passengers(passengers, floors);
+      floorsEntered = new int[passengers];
+      floorsExited = new int[passengers];
+      for (int i = 0; i < passengers; i++) {
+         floorsEntered[i] = trace[i].getFloorEntered();
+         floorsExited[i] = trace[i].getFloorExited();
+      }
+   }
+
+   @Setup(Level.Invocation)
+   public void createPassengers() {
+      waitingQueue = new PassengerQueue();
+      for (int i = 0; i < passengers; i++) {
+         waitingQueue.enqueue(new Passenger("P", floorsEntered[i], floorsExited[i]));
+      }
+   }
+
+   @Benchmark
+   public long simulate() throws Exception {
+      CountingListener listener = new CountingListener();
+      engine.run(PassengerSource.of(waitingQueue), listener);
+      return listener.events;
+   }
+
+   /**
+    * Listener that only counts the events it receives.
+    */
+   static final class CountingListener implements SimulationListener {
+
+      long events; // Counts every event received
+
+      @Override
+      public void simulationStarted(int numFloors, int numCars) {
+         events++;
+      }
+
+      @Override
+      public void floorStopped(int carNum, int floorNum) {
+         events++;
+      }
+
+      @Override
+      public void passengerExited(Passenger passenger) {
+         events++;
+      }
+
+      @Override
+      public void passengerTempExited(Passenger passenger) {
+         events++;
+      }
+
+      @Override
+      public void elevatorEmptied() {
+         events++;
+      }
+
+      @Override
+      public void passengerEntered(Passenger passenger) {
+         events++;
+      }
+
+      @Override
+      public void passengerStayed(Passenger passenger) {
+         events++;
+      }
+
+      @Override
+      public void passengerSkipped(Passenger passenger) {
+         events++;
+      }
+
+      @Override
+      public void elevatorFilled() {
+         events++;
+      }
+
+      @Override
+      public void directionReported(boolean isAscending) {
+         events++;
+      }
+
+      @Override
+      public void simulationEnded(SimulationStats stats) {
+         events++;
+      }
+   }
+}
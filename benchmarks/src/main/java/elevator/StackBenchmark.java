@@ -0,0 +1,62 @@
+/* File name : StackBenchmark.java */
+package elevator;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Measures the linked-list Stack the elevator is built on: pushing and
+ * popping every passenger of a trace, and absorbing one Stack into another.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StackBenchmark {
+
+   @Param({"1000", "100000", "10000000"})
+   public int passengers;
+
+   private Passenger[] trace; // Passengers pushed by every invocation
+
+   @Setup(Level.Trial)
+   public void createTrace() {
+      trace = Traces.passengers(passengers, Elevator.DEFAULT_NUM_FLOORS);
+   }
+
+   @Benchmark
+   public int pushPop() {
+      Stack stack = new Stack();
+      for (Passenger passenger : trace) {
+         stack.push(passenger);
+      }
+      int exits = 0;
+      while (!stack.isEmpty()) {
+         exits += stack.pop().getFloorExited();
+      }
+      return exits;
+   }
+
+   @Benchmark
+   public int absorbStack() {
+      Stack stack = new Stack();
+      for (Passenger passenger : trace) {
+         stack.push(passenger);
+      }
+      Stack absorbing = new Stack();
+      absorbing.absorbStack(stack);
+
+      // Leave the passengers unlinked for the next invocation
+      int size = absorbing.getSize();
+      while (!absorbing.isEmpty()) {
+         absorbing.pop();
+      }
+      return size;
+   }
+}
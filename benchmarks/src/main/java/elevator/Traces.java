@@ -0,0 +1,91 @@
+/* File name : Traces.java */
+package elevator;
+
+import java.io.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * This program creates the synthetic passenger data used by the benchmarks.
+ * Traces follow the format of the files in the input folder, a comment header
+ * followed by one tab separated row per passenger, with starting and
+ * destination floors drawn uniformly from a seeded random number generator so
+ * every run measures the same data. Trace files are written once per
+ * benchmark process and deleted when it exits.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+final class Traces {
+
+   private static final long SEED = 20201006L; // Seed shared by every trace
+   private static final Map<String, File> FILES = new HashMap<>(); // Written traces
+
+   private Traces() {
+   }
+
+   /**
+    * Gets a file containing a synthetic trace, writing it if needed.
+    *
+    * @param numPassengers Number of passenger rows.
+    * @param numFloors Number of floors in the building.
+    * @return Trace file.
+    * @throws IOException If the file can not be written.
+    */
+   static synchronized File file(int numPassengers, int numFloors)
+      throws IOException {
+
+      String key = numPassengers + "x" + numFloors;
+      File file = FILES.get(key);
+      if (file == null) {
+         file = File.createTempFile("trace-" + key + "-", ".txt");
+         file.deleteOnExit();
+         write(file, numPassengers, numFloors);
+         FILES.put(key, file);
+      }
+      return file;
+   }
+
+   /**
+    * Creates the passengers of a synthetic trace in memory, in the same order
+    * as the rows of the trace file.
+    *
+    * @param numPassengers Number of passengers.
+    * @param numFloors Number of floors in the building.
+    * @return Passengers of the trace.
+    */
+   static Passenger[] passengers(int numPassengers, int numFloors) {
+      Random random = new Random(SEED);
+      Passenger[] passengers = new Passenger[numPassengers];
+      for (int i = 0; i < numPassengers; i++) {
+         passengers[i] = new Passenger("P" + i,
+            1 + random.nextInt(numFloors), 1 + random.nextInt(numFloors));
+      }
+      return passengers;
+   }
+
+   /**
+    * Writes a synthetic trace to the file.
+    */
+   private static void write(File file, int numPassengers, int numFloors)
+      throws IOException {
+
+      Random random = new Random(SEED);
+      try (PrintWriter output = new PrintWriter(new BufferedWriter(
+         new FileWriter(file), 1 << 16))) {
+         output.print("//elevator input data - synthetic benchmark trace\r\n");
+         output.print("//Name      floor entered elevator      floor exited. \r\n");
+         for (int i = 0; i < numPassengers; i++) {
+            output.print('P');
+            output.print(i);
+            output.print('\t');
+            output.print(1 + random.nextInt(numFloors));
+            output.print('\t');
+            output.print(1 + random.nextInt(numFloors));
+            output.print("\r\n");
+         }
+      }
+   }
+}
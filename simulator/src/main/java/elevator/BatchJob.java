@@ -0,0 +1,165 @@
+/* File name : BatchJob.java */
+package elevator;
+
+import java.io.*;
+
+/**
+ * This program represents one input file simulated by a batch run, along with
+ * the output file its report is written to. A job can also hold passengers
+ * already read, such as one building of a campus file, which are simulated
+ * instead of reading a file. Once run, the job holds the aggregate data of
+ * the simulation, the time it took and, if the file could not be simulated,
+ * the reason why.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class BatchJob {
+
+   private final String inFileName; // Name of file containing passenger data
+   private final String outFileName; // Name of file receiving the report
+   private final PassengerTrace trace; // Passengers read, null to read a file
+   private SimulationStats stats; // Aggregate data, null if not simulated
+   private long elapsedNanos; // Time taken to simulate the file
+   private String error; // Reason the file failed, null if it did not
+
+   /**
+    * Class constructor.
+    *
+    * @param inFileName Name of file containing passenger data.
+    * @param outFileName Name of file on which the report is written.
+    */
+   public BatchJob(String inFileName, String outFileName) {
+      this(inFileName, null, outFileName);
+   }
+
+   /**
+    * Class constructor for passengers that were already read.
+    *
+    * @param name Name the passengers were read under, reported in place of
+    * an input file name.
+    * @param trace Passengers to simulate, null to read the file of that name.
+    * @param outFileName Name of file on which the report is written.
+    */
+   public BatchJob(String name, PassengerTrace trace, String outFileName) {
+      this.inFileName = name;
+      this.trace = trace;
+      this.outFileName = outFileName;
+      this.stats = null;
+      this.elapsedNanos = 0;
+      this.error = null;
+   }
+
+   /**
+    * Simulates the input file and writes the report exactly as a single file
+    * run does. Errors are kept by the job instead of ending the program.
+    *
+    * @param engine Engine performing the simulation.
+    * @param options Settings of the run.
+    */
+   public void run(SimulationEngine engine, SimulationOptions options) {
+      run(engine, options, null);
+   }
+
+   /**
+    * Serves the report from the result cache, or simulates the input file
+    * and writes the report exactly as a single file run does. Errors are
+    * kept by the job instead of ending the program.
+    *
+    * @param engine Engine performing the simulation.
+    * @param options Settings of the run.
+    * @param cache Cache of the results, null to always simulate.
+    */
+   public void run(SimulationEngine engine, SimulationOptions options,
+      ResultCache cache) {
+
+      long start = System.nanoTime();
+      try {
+         if (trace != null) {
+            try (ReportWriter report = ReportWriter.open(
+                  options.getReportFormat(), outFileName)) {
+               stats = engine.run(trace, report);
+            }
+         } else {
+            stats = ElevatorSimulation.simulate(engine, options, inFileName,
+               outFileName, cache);
+         }
+      } catch (PassengerDataException e) {
+         // The value that can not be processed is written instead of the
+         // report, along with the row itself
+         try (PrintWriter output = new PrintWriter(
+               new BufferedWriter(new FileWriter(outFileName)))) {
+            output.print(e.getReport());
+         } catch (IOException ioe) {
+            error = "An I/O Error Occurred " + ioe;
+         }
+         if (error == null) {
+            error = e.getMessage();
+         }
+      } catch (FileNotFoundException e) {
+         error = "File Not Found " + e;
+      } catch (IOException e) {
+         error = "An I/O Error Occurred " + e;
+      } catch (RuntimeException e) {
+         error = "Simulation Failed " + e;
+      }
+      elapsedNanos = System.nanoTime() - start;
+   }
+
+   /**
+    * Gets the name of the file containing passenger data, or the name the
+    * passengers of the job were read under.
+    *
+    * @return Input file name.
+    */
+   public String getInFileName() {
+      return this.inFileName;
+   }
+
+   /**
+    * Gets the name of the file on which the report is written.
+    *
+    * @return Output file name.
+    */
+   public String getOutFileName() {
+      return this.outFileName;
+   }
+
+   /**
+    * Gets the number of passengers of the job, when they were already read.
+    *
+    * @return No. of passengers, -1 if they are read from a file.
+    */
+   public int getSize() {
+      return (trace == null) ? -1 : trace.getSize();
+   }
+
+   /**
+    * Gets the aggregate data of the simulation.
+    *
+    * @return Aggregate data, null if the file failed or has not been run.
+    */
+   public SimulationStats getStats() {
+      return this.stats;
+   }
+
+   /**
+    * Gets the time taken to simulate the file, including reading it and
+    * writing the report.
+    *
+    * @return Elapsed time in nanoseconds.
+    */
+   public long getElapsedNanos() {
+      return this.elapsedNanos;
+   }
+
+   /**
+    * Gets the reason the file could not be simulated.
+    *
+    * @return Error message, null if the file did not fail.
+    */
+   public String getError() {
+      return this.error;
+   }
+}
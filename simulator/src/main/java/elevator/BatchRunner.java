@@ -0,0 +1,202 @@
+/* File name : BatchRunner.java */
+package elevator;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This program simulates many input files concurrently in a single JVM, so
+ * startup and warmup are paid once and every core is used. Files are handed
+ * to a fixed pool of worker threads; each worker reuses one SimulationEngine
+ * for all the files it simulates, and every file gets the same report as a
+ * single file run with the same settings.
+ *
+ * The input of a batch is either a directory, whose files are all simulated
+ * and reported under the same names in the output directory, or a manifest
+ * file. Each row of a manifest holds the name of an input file, relative to
+ * the manifest's directory, and the name of its output file, relative to the
+ * output directory. Comment rows starting with "//" and blank rows are
+ * ignored.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class BatchRunner {
+
+   private final SimulationOptions options; // Settings of every simulation
+   private final int numThreads; // No. of worker threads
+
+   /**
+    * Class constructor.
+    *
+    * @param options Settings used to simulate every file.
+    * @param numThreads Number of files simulated at the same time.
+    */
+   public BatchRunner(SimulationOptions options, int numThreads) {
+      this.options = options;
+      this.numThreads = numThreads;
+   }
+
+   /**
+    * Lists the files of a batch.
+    *
+    * @param inName Name of the input directory or manifest file.
+    * @param outDirName Name of the directory receiving the reports, created
+    * if it does not exist.
+    * @return Input and output file of each job, in name or manifest order.
+    * @throws FileNotFoundException If the input does not exist.
+    * @throws IOException If the input can not be read, the manifest has a row
+    * without two file names or the output directory can not be created.
+    */
+   public static List<BatchJob> readJobs(String inName, String outDirName)
+      throws IOException {
+
+      File in = new File(inName);
+      File outDir = new File(outDirName);
+      if (!in.exists()) {
+         throw new FileNotFoundException(inName + " does not exist");
+      }
+      if (!outDir.isDirectory() && !outDir.mkdirs()) {
+         throw new IOException("Can not create directory " + outDirName);
+      }
+
+      List<BatchJob> jobs = new ArrayList<>();
+      if (in.isDirectory()) {
+         // Reports would overwrite the input files
+         if (in.getCanonicalFile().equals(outDir.getCanonicalFile())) {
+            throw new IOException("Output directory can not be the input directory");
+         }
+
+         File[] files = in.listFiles();
+         if (files == null) {
+            throw new IOException("Can not list directory " + inName);
+         }
+         Arrays.sort(files);
+         for (File file : files) {
+            if (file.isFile()) {
+               jobs.add(new BatchJob(file.getPath(),
+                  new File(outDir, file.getName()).getPath()));
+            }
+         }
+         return jobs;
+      }
+
+      File manifestDir = in.getAbsoluteFile().getParentFile();
+      int rowNum = 0;
+      for (String row : Files.readAllLines(in.toPath(), Charset.defaultCharset())) {
+         String line = row.trim();
+         rowNum++;
+         if (line.isEmpty() || line.startsWith("//")) {
+            continue;
+         }
+
+         String[] names = line.split("\\s+");
+         if (names.length != 2) {
+            throw new IOException("Row " + rowNum + " of " + inName
+               + " must hold an input and an output file name");
+         }
+         File inFile = new File(names[0]);
+         File outFile = new File(names[1]);
+         jobs.add(new BatchJob(
+            (inFile.isAbsolute() ? inFile : new File(manifestDir, names[0])).getPath(),
+            (outFile.isAbsolute() ? outFile : new File(outDir, names[1])).getPath()));
+      }
+      return jobs;
+   }
+
+   /**
+    * Simulates every job and waits until all of them finished.
+    *
+    * @param jobs Jobs to run, which keep their own results.
+    * @return Time taken by the whole batch, in nanoseconds.
+    * @throws InterruptedException If the thread is interrupted while waiting.
+    */
+   public long run(List<BatchJob> jobs) throws InterruptedException {
+      return run(jobs, null, null);
+   }
+
+   /**
+    * Simulates every job and waits until all of them finished, exporting the
+    * metrics of every worker's engine and serving cached reports.
+    *
+    * @param jobs Jobs to run, which keep their own results.
+    * @param exporter Exporter of the engines' metrics, null if none.
+    * @param cache Cache of the results, null to always simulate.
+    * @return Time taken by the whole batch, in nanoseconds.
+    * @throws InterruptedException If the thread is interrupted while waiting.
+    */
+   public long run(List<BatchJob> jobs, MetricsExporter exporter,
+      ResultCache cache) throws InterruptedException {
+
+      // Engines are not shared: each worker thread creates its own
+      ThreadLocal<SimulationEngine> engines = ThreadLocal.withInitial(() -> {
+         SimulationEngine engine = new SimulationEngine(options);
+         if (exporter != null && engine.getMetrics() != null) {
+            exporter.register(engine.getMetrics());
+         }
+         return engine;
+      });
+      ExecutorService workers = Executors.newFixedThreadPool(
+         Math.max(1, Math.min(numThreads, jobs.size())));
+
+      long start = System.nanoTime();
+      try {
+         for (BatchJob job : jobs) {
+            workers.execute(() -> job.run(engines.get(), options, cache));
+         }
+         workers.shutdown();
+         while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            // Keep waiting for long batches
+         }
+      } finally {
+         workers.shutdownNow();
+      }
+
+      return System.nanoTime() - start;
+   }
+
+   /**
+    * Writes the result and timing of every job followed by the throughput of
+    * the batch.
+    *
+    * @param jobs Jobs that have been run.
+    * @param elapsedNanos Time taken by the whole batch, in nanoseconds.
+    * @param output Stream receiving the summary.
+    */
+   public static void writeSummary(List<BatchJob> jobs, long elapsedNanos,
+      PrintStream output) {
+
+      long totalServed = 0;
+      long totalSkipped = 0;
+      int numFailed = 0;
+
+      for (BatchJob job : jobs) {
+         SimulationStats stats = job.getStats();
+         if (stats == null) {
+            numFailed++;
+            output.printf("%s: FAILED in %.1f ms: %s%n", job.getInFileName(),
+               job.getElapsedNanos() / 1e6, job.getError());
+         } else {
+            totalServed += stats.getTotalServed();
+            totalSkipped += stats.getTotalSkipped();
+            output.printf("%s: %d served, %d skipped in %.1f ms%n",
+               job.getInFileName(), stats.getTotalServed(),
+               stats.getTotalSkipped(), job.getElapsedNanos() / 1e6);
+         }
+      }
+
+      double seconds = Math.max(elapsedNanos, 1) / 1e9;
+      output.printf("%d files (%d failed), %d passengers in %.3f s: "
+         + "%.1f files/s, %.0f passengers/s%n", jobs.size(), numFailed,
+         totalServed + totalSkipped, seconds, jobs.size() / seconds,
+         (totalServed + totalSkipped) / seconds);
+   }
+}
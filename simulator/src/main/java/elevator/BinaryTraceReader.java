@@ -0,0 +1,247 @@
+/* File name : BinaryTraceReader.java */
+package elevator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This program reads passenger data from a binary trace created by a
+ * TraceConverter. The rows of a trace were checked when it was converted, so
+ * the reader decodes them straight from the memory-mapped file without
+ * checking them again, and no objects are created per row.
+ *
+ * A trace holds, in big-endian byte order:
+ *
+ *    header      magic "ELVT", format version, number of floors, width in
+ *                bytes of a floor no. (1, 2 or 4), number of records, file
+ *                offset of the dictionary and number of names
+ *    records     one per passenger in arrival order: name no. as a varint,
+ *                starting and destination floor nos. in the fixed width and
+ *                time since the previous arrival as a varint
+ *    dictionary  file offset of each name relative to the first name plus
+ *                the end of the last one, followed by the UTF-8 bytes of
+ *                every name
+ *
+ * A varint holds 7 bits per byte, lowest bits first, with the high bit set
+ * on every byte but the last.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class BinaryTraceReader implements PassengerSource, Closeable {
+
+   static final int MAGIC = 0x454c5654; // "ELVT"
+   static final int VERSION = 1; // Format version written by the converter
+   static final int HEADER_SIZE = 36; // Bytes before the first record
+
+   private static final long WINDOW_SIZE = 1L << 28; // Bytes mapped at a time
+   private static final int MAX_RECORD_SIZE = 32; // Longest possible record
+
+   private final FileInputStream input; // Owner of the mapped channel
+   private final FileChannel channel; // Channel of the trace
+   private final int numFloors; // Floors the trace was checked against
+   private final int floorWidth; // Bytes of each floor no.
+   private final long numRecords; // No. of passengers in the trace
+   private final long recordsEnd; // File offset past the last record
+   private final int[] nameStarts; // Offset of each name, then pool length
+   private final byte[] namePool; // UTF-8 bytes of every name
+   private MappedByteBuffer buffer; // Currently mapped window of records
+   private long bufferStart; // File offset of the first byte in the window
+   private long numRead; // No. of records read so far
+   private long arrivalTime; // Arrival time of the last record
+   private int lastNameId; // Name no. of the last record
+   private int floorEntered; // Starting floor no. of the last record
+   private int floorExited; // Destination floor no. of the last record
+
+   /**
+    * Class constructor.
+    *
+    * @param inFileName Name of the trace file.
+    * @param numFloors Number of floors in the building, which can not be
+    * less than the floors the trace was converted for.
+    * @throws FileNotFoundException If the file does not exist.
+    * @throws IOException If the file is not a trace or was converted for a
+    * taller building, or can not be mapped.
+    */
+   public BinaryTraceReader(String inFileName, int numFloors) throws IOException {
+      this.input = new FileInputStream(inFileName);
+      this.channel = input.getChannel();
+      try {
+         ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+         while (header.hasRemaining() && channel.read(header) >= 0) {
+            // Keep reading until the header is complete
+         }
+         header.flip();
+         if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException(inFileName + " is not a binary trace");
+         }
+         if (header.getInt() != VERSION) {
+            throw new IOException(inFileName + " has an unknown trace version");
+         }
+         this.numFloors = header.getInt();
+         this.floorWidth = header.get();
+         header.position(header.position() + 3); // Reserved
+         this.numRecords = header.getLong();
+         this.recordsEnd = header.getLong();
+         int numNames = header.getInt();
+         if (numFloors < this.numFloors) {
+            throw new IOException(inFileName + " was converted for "
+               + this.numFloors + " floors");
+         }
+
+         // The dictionary is small next to the records and is read at once
+         ByteBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY,
+            recordsEnd, 4L * (numNames + 1));
+         this.nameStarts = new int[numNames + 1];
+         offsets.asIntBuffer().get(nameStarts);
+         this.namePool = new byte[nameStarts[numNames]];
+         channel.map(FileChannel.MapMode.READ_ONLY,
+            recordsEnd + 4L * (numNames + 1), namePool.length).get(namePool);
+      } catch (IOException | RuntimeException e) {
+         input.close();
+         throw e;
+      }
+
+      this.numRead = 0;
+      this.arrivalTime = 0;
+      map(HEADER_SIZE);
+   }
+
+   /**
+    * Indicates whether the file is a binary trace rather than text.
+    *
+    * @param fileName Name of the file.
+    * @return Boolean indicating if the file starts like a trace.
+    * @throws FileNotFoundException If the file does not exist.
+    * @throws IOException If the file can not be read.
+    */
+   public static boolean isTrace(String fileName) throws IOException {
+      try (DataInputStream input = new DataInputStream(
+            new FileInputStream(fileName))) {
+         return input.readInt() == MAGIC;
+      } catch (EOFException e) {
+         return false;
+      }
+   }
+
+   /**
+    * Gets the number of floors the trace was checked against.
+    *
+    * @return Highest floor no. a record can hold.
+    */
+   public int getNumFloors() {
+      return this.numFloors;
+   }
+
+   /**
+    * Gets the number of passengers in the trace.
+    *
+    * @return No. of records.
+    */
+   public long getNumRecords() {
+      return this.numRecords;
+   }
+
+   @Override
+   public Passenger next() throws IOException {
+      if (!readRecord()) {
+         return null;
+      }
+      int nameId = lastNameId;
+      return new Passenger(new String(namePool, nameStarts[nameId],
+         nameStarts[nameId + 1] - nameStarts[nameId], "UTF-8"),
+         floorEntered, floorExited, arrivalTime);
+   }
+
+   @Override
+   public int nextIndex(PassengerStore store) throws IOException {
+      if (!readRecord()) {
+         return -1;
+      }
+      int nameId = lastNameId;
+      return store.add(namePool, nameStarts[nameId],
+         nameStarts[nameId + 1] - nameStarts[nameId], floorEntered,
+         floorExited, arrivalTime);
+   }
+
+   @Override
+   public int sizeHint() {
+      return (int) Math.min(Integer.MAX_VALUE - 8, numRecords - numRead);
+   }
+
+   /**
+    * Releases the trace.
+    *
+    * @throws IOException If the file can not be closed.
+    */
+   @Override
+   public void close() throws IOException {
+      buffer = null;
+      input.close();
+   }
+
+   /**
+    * Decodes the next record.
+    *
+    * @return Boolean indicating if a record was read, false at the end.
+    * @throws IOException If the file can not be mapped.
+    */
+   private boolean readRecord() throws IOException {
+      if (numRead == numRecords) {
+         return false;
+      }
+      // A record never spans two windows
+      if (buffer.remaining() < MAX_RECORD_SIZE
+         && bufferStart + buffer.limit() < recordsEnd) {
+         map(bufferStart + buffer.position());
+      }
+
+      lastNameId = (int) readVarint();
+      floorEntered = readFloor();
+      floorExited = readFloor();
+      arrivalTime += readVarint();
+      numRead++;
+      return true;
+   }
+
+   /**
+    * Decodes a floor no. of the trace's width.
+    */
+   private int readFloor() {
+      switch (floorWidth) {
+         case 1:
+            return buffer.get() & 0xff;
+         case 2:
+            return buffer.getShort() & 0xffff;
+         default:
+            return buffer.getInt();
+      }
+   }
+
+   /**
+    * Decodes a varint.
+    */
+   private long readVarint() {
+      long value = 0;
+      int shift = 0;
+      byte b;
+      do {
+         b = buffer.get();
+         value |= (long) (b & 0x7f) << shift;
+         shift += 7;
+      } while (b < 0);
+      return value;
+   }
+
+   /**
+    * Maps the window of records starting at the given file offset.
+    */
+   private void map(long offset) throws IOException {
+      bufferStart = offset;
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+         Math.min(WINDOW_SIZE, recordsEnd - offset));
+   }
+}
@@ -0,0 +1,103 @@
+/* File name : BucketedElevator.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program represents an elevator whose passengers are grouped by their
+ * destination. When the elevator stops, only the passengers exiting at the
+ * floor get off, so no one has to temporarily exit and the time spent at a
+ * stop depends on the number of people exiting rather than on the number of
+ * people riding.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class BucketedElevator extends ElevatorCar {
+
+   private final IndexQueue[] destinationQueues; // Riders per destination
+   private int numRiders; // Counts passengers riding the elevator
+
+   /**
+    * Class constructor for an elevator with a store of its own.
+    *
+    * @param capacity Max. no. of passengers that can ride at once.
+    * @param numFloors No. of floors served by the elevator.
+    */
+   public BucketedElevator(int capacity, int numFloors) {
+      this(capacity, numFloors, new PassengerStore());
+   }
+
+   /**
+    * Class constructor.
+    *
+    * @param capacity Max. no. of passengers that can ride at once.
+    * @param numFloors No. of floors served by the elevator.
+    * @param store Store holding the passengers who get in.
+    */
+   public BucketedElevator(int capacity, int numFloors, PassengerStore store) {
+      super(capacity, numFloors, store);
+
+      this.destinationQueues = new IndexQueue[numFloors];
+      for (int i = 0; i < numFloors; i++) {
+         this.destinationQueues[i] = new IndexQueue(store);
+      }
+      this.numRiders = 0;
+   }
+
+   @Override
+   public void board(int passenger) {
+      int floorExited = getStore().getFloorExited(passenger);
+      destinationQueues[floorExited - 1].enqueue(passenger);
+      getStore().setState(passenger, PassengerStore.RIDING);
+      addExitRequest(floorExited);
+      numRiders++;
+   }
+
+   @Override
+   public void unload(int floorNum, SimulationListener listener) {
+      IndexQueue destinationQueue = destinationQueues[floorNum - 1];
+      while (!destinationQueue.isEmpty()) {
+         int passenger = destinationQueue.dequeue();
+         removeExitRequest(floorNum);
+         numRiders--;
+         getStore().setState(passenger, PassengerStore.EXITED);
+         listener.passengerExited(report(passenger));
+      }
+   }
+
+   @Override
+   public void reset() {
+      for (IndexQueue destinationQueue : destinationQueues) {
+         destinationQueue.clear();
+      }
+      numRiders = 0;
+      clearExitRequests();
+   }
+
+   @Override
+   void writeState(DataOutput output) throws IOException {
+      super.writeState(output);
+      output.writeInt(numRiders);
+      for (IndexQueue destinationQueue : destinationQueues) {
+         destinationQueue.writeState(output);
+      }
+   }
+
+   @Override
+   void readState(DataInput input) throws IOException {
+      super.readState(input);
+      numRiders = input.readInt();
+      for (IndexQueue destinationQueue : destinationQueues) {
+         destinationQueue.readState(input);
+      }
+   }
+
+   @Override
+   public int getSize() {
+      return this.numRiders;
+   }
+}
@@ -0,0 +1,322 @@
+/* File name : CampusRunner.java */
+package elevator;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This program simulates a campus of buildings, each with its own elevators
+ * and passengers, and merges their results into a campus-wide report. The
+ * passengers of a campus come either from a directory holding one input file
+ * per building, named after the building, or from a single campus file whose
+ * rows start with the name of the building (see PassengerParser). A campus
+ * file is read once and its passengers are split by building in memory.
+ *
+ * Each building is simulated on its own, with the same settings, and gets
+ * the same report as a single file run of its passengers, written to the
+ * output directory under the building's name. Every building is a task of a
+ * work-stealing ForkJoinPool, whose idle workers take the next building
+ * waiting as soon as they are done with theirs. The largest buildings are
+ * handed out first, so that no long one is left to finish alone while the
+ * other workers are idle. Every worker reuses one SimulationEngine for the
+ * buildings it simulates. The campus report then lists the results of every
+ * building followed by their totals, with the wait and ride time percentiles
+ * of the whole campus.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class CampusRunner {
+
+   public static final String REPORT_NAME = "campus.txt"; // Campus report
+   public static final String TOTALS_NAME = "Campus"; // Row of the totals
+
+   private final SimulationOptions options; // Settings of every building
+   private final List<BatchJob> buildings; // Passengers and report of each
+   private final List<String> names; // Name of each building
+
+   /**
+    * Class constructor.
+    *
+    * @param options Settings used to simulate every building.
+    * @param buildings Job of each building.
+    * @param names Name of each building, in the same order.
+    */
+   private CampusRunner(SimulationOptions options, List<BatchJob> buildings,
+      List<String> names) {
+
+      this.options = options;
+      this.buildings = buildings;
+      this.names = names;
+   }
+
+   /**
+    * Lists the buildings of a campus, reading and splitting the passengers
+    * of a campus file.
+    *
+    * @param options Settings used to simulate every building.
+    * @param inName Name of the input directory or campus file.
+    * @param outDirName Name of the directory receiving the reports, created
+    * if it does not exist.
+    * @return Runner of the campus.
+    * @throws FileNotFoundException If the input does not exist.
+    * @throws IOException If the input can not be read, the output directory
+    * can not be created, or a building would overwrite the campus report or
+    * be taken for its totals.
+    * @throws PassengerDataException If a row of a campus file holds a value
+    * that can not be processed.
+    */
+   public static CampusRunner read(SimulationOptions options, String inName,
+      String outDirName) throws IOException, PassengerDataException {
+
+      File in = new File(inName);
+      File outDir = new File(outDirName);
+      if (!in.exists()) {
+         throw new FileNotFoundException(inName + " does not exist");
+      }
+
+      List<BatchJob> buildings = new ArrayList<>();
+      List<String> names = new ArrayList<>();
+      if (in.isDirectory()) {
+         for (BatchJob job : BatchRunner.readJobs(inName, outDirName)) {
+            buildings.add(job);
+            names.add(new File(job.getInFileName()).getName());
+         }
+      } else {
+         if (!outDir.isDirectory() && !outDir.mkdirs()) {
+            throw new IOException("Can not create directory " + outDirName);
+         }
+         List<PassengerStore> stores = split(inName, options.getNumFloors(),
+            names);
+         for (int building = 0; building < stores.size(); building++) {
+            buildings.add(new BatchJob(names.get(building),
+               PassengerTrace.of(stores.get(building)),
+               new File(outDir, names.get(building)).getPath()));
+         }
+      }
+
+      // Names are compared ignoring case, as some file systems do
+      for (String name : names) {
+         if (name.equalsIgnoreCase(REPORT_NAME)) {
+            throw new IOException("Building " + name
+               + " would overwrite the campus report");
+         }
+         if (name.equalsIgnoreCase(TOTALS_NAME)) {
+            throw new IOException("Building " + name
+               + " would be taken for the campus totals");
+         }
+      }
+      return new CampusRunner(options, buildings, names);
+   }
+
+   /**
+    * Reads a campus file and splits its passengers by building.
+    *
+    * @param inFileName Name of the campus file.
+    * @param numFloors Number of floors in every building.
+    * @param names List receiving the name of each building, in the order
+    * they first appear in the file.
+    * @return Passengers of each building, in file order.
+    */
+   private static List<PassengerStore> split(String inFileName, int numFloors,
+      List<String> names) throws IOException, PassengerDataException {
+
+      List<PassengerStore> stores = new ArrayList<>();
+      try (PassengerParser parser = new PassengerParser(inFileName, numFloors)) {
+         parser.readBuildings();
+         // Each row is read into a small store and copied to its building
+         PassengerStore row = new PassengerStore();
+         int passenger;
+         while ((passenger = parser.nextIndex(row)) >= 0) {
+            int building = parser.getBuilding();
+            if (building == stores.size()) {
+               stores.add(new PassengerStore());
+            }
+            stores.get(building).add(row, passenger);
+            row.clear();
+         }
+         names.addAll(parser.getBuildings());
+      }
+      return stores;
+   }
+
+   /**
+    * Gets the number of buildings.
+    *
+    * @return No. of buildings of the campus.
+    */
+   public int getNumBuildings() {
+      return buildings.size();
+   }
+
+   /**
+    * Indicates whether any building could not be simulated.
+    *
+    * @return Boolean indicating if a building failed.
+    */
+   public boolean hasFailed() {
+      for (BatchJob building : buildings) {
+         if (building.getError() != null) {
+            return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * Simulates every building and waits until all of them finished,
+    * exporting the metrics of every worker's engine and serving cached
+    * reports of building files.
+    *
+    * @param numThreads Most buildings simulated at the same time.
+    * @param exporter Exporter of the engines' metrics, null if none.
+    * @param cache Cache of the results, null to always simulate.
+    * @return Time taken by the whole campus, in nanoseconds.
+    */
+   public long run(int numThreads, MetricsExporter exporter, ResultCache cache) {
+      // Engines are not shared: each worker thread creates its own
+      ThreadLocal<SimulationEngine> engines = ThreadLocal.withInitial(() -> {
+         SimulationEngine engine = new SimulationEngine(options);
+         if (exporter != null && engine.getMetrics() != null) {
+            exporter.register(engine.getMetrics());
+         }
+         return engine;
+      });
+
+      List<BatchJob> order = new ArrayList<>(buildings);
+      order.sort(Comparator.comparingLong(CampusRunner::weigh).reversed());
+      // Tasks submitted from outside the pool are taken in the order given
+      ForkJoinPool pool = new ForkJoinPool(
+         Math.max(1, Math.min(numThreads, buildings.size())),
+         ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+      long start = System.nanoTime();
+      try {
+         List<ForkJoinTask<?>> tasks = new ArrayList<>();
+         for (BatchJob building : order) {
+            tasks.add(pool.submit(() -> building.run(engines.get(), options,
+               cache)));
+         }
+         for (ForkJoinTask<?> task : tasks) {
+            task.join();
+         }
+      } finally {
+         pool.shutdown();
+      }
+      return System.nanoTime() - start;
+   }
+
+   /**
+    * Estimates the work of a building from its passengers, or the length of
+    * its file.
+    */
+   private static long weigh(BatchJob building) {
+      return (building.getSize() >= 0)
+         ? building.getSize() : new File(building.getInFileName()).length();
+   }
+
+   /**
+    * Writes a table with a row for each building, in input order, followed
+    * by the totals of the campus and its throughput. Latency columns are
+    * added if any building was timed, and a column of floors travelled if
+    * they are reported. The names are padded to the longest one, so the
+    * columns line up.
+    *
+    * @param output Writer receiving the report.
+    * @param elapsedNanos Time taken by the whole campus, in nanoseconds.
+    */
+   public void writeReport(PrintWriter output, long elapsedNanos) {
+      boolean isTimed = false;
+      boolean isTravelReported = false;
+      int width = "Building".length();
+      for (int index = 0; index < buildings.size(); index++) {
+         SimulationStats stats = buildings.get(index).getStats();
+         isTimed |= (stats != null && stats.isTimed());
+         isTravelReported |= (stats != null && stats.isTravelReported());
+         width = Math.max(width, names.get(index).length());
+      }
+      String nameFormat = "%-" + width + "s";
+
+      output.printf(nameFormat + " %10s %10s %10s %10s", "Building", "Served",
+         "Skipped", "Empty", "Stops");
+      if (isTravelReported) {
+         output.printf(" %10s", "Travelled");
+      }
+      if (isTimed) {
+         output.printf(" %20s %20s", "Wait p50/p95/p99", "Ride p50/p95/p99");
+      }
+      output.printf(" %10s\n", "ms");
+
+      long totalServed = 0;
+      long totalSkipped = 0;
+      long totalEmpty = 0;
+      long floorStops = 0;
+      long floorsTravelled = 0;
+      int numFailed = 0;
+      LatencyHistogram waitTimes = new LatencyHistogram();
+      LatencyHistogram rideTimes = new LatencyHistogram();
+      for (int index = 0; index < buildings.size(); index++) {
+         BatchJob building = buildings.get(index);
+         SimulationStats stats = building.getStats();
+         output.printf(nameFormat, names.get(index));
+         if (stats == null) {
+            numFailed++;
+            output.print(" FAILED: " + building.getError() + "\n");
+            continue;
+         }
+         totalServed += stats.getTotalServed();
+         totalSkipped += stats.getTotalSkipped();
+         totalEmpty += stats.getEmptyOccasions();
+         floorStops += stats.getFloorStops();
+         floorsTravelled += stats.getFloorsTravelled();
+         waitTimes.add(stats.getWaitTimes());
+         rideTimes.add(stats.getRideTimes());
+         writeRow(output, stats.getTotalServed(), stats.getTotalSkipped(),
+            stats.getEmptyOccasions(), stats.getFloorStops(),
+            isTravelReported ? stats.getFloorsTravelled() : -1,
+            isTimed ? stats.getWaitTimes() : null, stats.getRideTimes(),
+            building.getElapsedNanos());
+      }
+
+      output.printf(nameFormat, TOTALS_NAME);
+      writeRow(output, totalServed, totalSkipped, totalEmpty, floorStops,
+         isTravelReported ? floorsTravelled : -1, isTimed ? waitTimes : null,
+         rideTimes, elapsedNanos);
+
+      double seconds = Math.max(elapsedNanos, 1) / 1e9;
+      output.printf("\n%d buildings (%d failed), %d passengers in %.3f s: "
+         + "%.0f passengers/s\n", buildings.size(), numFailed,
+         totalServed + totalSkipped, seconds,
+         (totalServed + totalSkipped) / seconds);
+   }
+
+   /**
+    * Writes the results of a building or of the campus after its name.
+    */
+   private static void writeRow(PrintWriter output, long served, long skipped,
+      long empty, long stops, long travelled, LatencyHistogram waitTimes,
+      LatencyHistogram rideTimes, long elapsedNanos) {
+
+      output.printf(" %10d %10d %10d %10d", served, skipped, empty, stops);
+      if (travelled >= 0) {
+         output.printf(" %10d", travelled);
+      }
+      if (waitTimes != null) {
+         output.printf(" %20s %20s", percentiles(waitTimes),
+            percentiles(rideTimes));
+      }
+      output.printf(" %10.1f\n", elapsedNanos / 1e6);
+   }
+
+   /**
+    * Formats the 50th, 95th and 99th percentiles of the latencies.
+    */
+   private static String percentiles(LatencyHistogram latencies) {
+      return (latencies.getPercentile(50) + "/" + latencies.getPercentile(95)
+         + "/" + latencies.getPercentile(99));
+   }
+}
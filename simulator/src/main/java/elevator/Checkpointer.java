@@ -0,0 +1,249 @@
+/* File name : Checkpointer.java */
+package elevator;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * This program runs a streaming simulation of an input file and saves its
+ * state to a checkpoint file every few seconds, so a run that was stopped
+ * can resume from its last checkpoint and end with the same report as a run
+ * that was not. A checkpoint holds the settings of the run, the length of
+ * the report written so far, the position of the next unread row of the
+ * input file and the state of the engine: the cars and their riders, the
+ * people waiting, the scheduled events and the latencies recorded so far.
+ *
+ * The state is copied to memory between two events. A streaming engine
+ * holds only the people waiting and riding, so the copy takes time in
+ * proportion to them rather than to the length of the input. Writing the
+ * copy to the file is left to a background thread, and a checkpoint falling
+ * due while the previous one is still being written is skipped, so the run
+ * never waits for the disk. The file is replaced atomically and ends with a
+ * checksum, so a run stopped while writing keeps the previous checkpoint.
+ * The checkpoint is removed once the run ends.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class Checkpointer implements Closeable {
+
+   private static final int MAGIC = 0x454c4350; // "ELCP"
+   private static final int VERSION = 4; // Changes when the state changes
+   private static final int CHECK_STEPS = 1024; // Events between clock reads
+
+   private final Path file; // Checkpoint file
+   private final long intervalNanos; // Time between checkpoints
+   private final String settings; // Settings of the run, checked on resume
+   private final ByteArrayOutputStream snapshot; // Reused to copy the state
+   private final ExecutorService writer; // Writes checkpoints to the file
+   private Future<?> lastWrite; // Checkpoint being written, null if none
+   private DataInputStream resumeState; // State to resume from, or null
+
+   /**
+    * Class constructor.
+    *
+    * @param fileName Name of the checkpoint file.
+    * @param intervalSeconds Seconds between checkpoints.
+    * @param settings Settings of the run and name of its input file, which
+    * a run resuming from the checkpoint must share.
+    */
+   public Checkpointer(String fileName, int intervalSeconds, String settings) {
+      this.file = Paths.get(fileName).toAbsolutePath();
+      this.intervalNanos = intervalSeconds * 1_000_000_000L;
+      this.settings = settings;
+      this.snapshot = new ByteArrayOutputStream(4096);
+      this.writer = Executors.newSingleThreadExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "checkpoint-writer");
+         thread.setDaemon(true);
+         return thread;
+      });
+      this.lastWrite = null;
+      this.resumeState = null;
+   }
+
+   /**
+    * Reads the checkpoint file, if there is one, for the next run to resume
+    * from.
+    *
+    * @return Length of the report when the checkpoint was saved, -1 if there
+    * is no checkpoint.
+    * @throws IOException If the checkpoint can not be read, is damaged or
+    * was saved by a run with other settings.
+    */
+   public long load() throws IOException {
+      byte[] data;
+      try {
+         data = Files.readAllBytes(file);
+      } catch (NoSuchFileException e) {
+         return -1;
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, Math.max(0, data.length - 4));
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+      if (data.length < 12 || input.readInt() != MAGIC
+         || input.readInt() != VERSION
+         || (int) crc.getValue() != readChecksum(data)) {
+         throw new IOException("Checkpoint " + file + " is damaged");
+      }
+      String saved = input.readUTF();
+      if (!saved.equals(settings)) {
+         throw new IOException("Checkpoint " + file
+            + " was saved with other settings: " + saved);
+      }
+
+      long reportLength = input.readLong();
+      this.resumeState = input;
+      return reportLength;
+   }
+
+   /**
+    * Simulates the passengers of the parser, resuming from the checkpoint
+    * read by load if there is one, and saves a checkpoint whenever the
+    * interval has passed. The report must continue from the length returned
+    * by load.
+    *
+    * @param engine Streaming engine performing the simulation.
+    * @param parser Parser of the input file, at its first row.
+    * @param report Report opened with a length that can be read.
+    * @return Aggregate data of the run.
+    * @throws IOException If the passenger data or the checkpoint can not be
+    * read.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   public SimulationStats run(SimulationEngine engine, PassengerParser parser,
+      ReportWriter report) throws IOException, PassengerDataException {
+
+      if (resumeState != null) {
+         parser.readState(resumeState);
+         engine.resume(parser, report, resumeState);
+         resumeState = null;
+      } else {
+         engine.start(parser, report);
+      }
+
+      SimulationMetrics metrics = engine.getMetrics();
+      long startNanos = System.nanoTime();
+      long dueNanos = startNanos + intervalNanos;
+      int countdown = CHECK_STEPS;
+      while (engine.step()) {
+         // The clock is only read every so many events
+         if (--countdown == 0) {
+            countdown = CHECK_STEPS;
+            long now = System.nanoTime();
+            if (now - dueNanos >= 0) {
+               save(engine, parser, report);
+               dueNanos = now + intervalNanos;
+            }
+         }
+      }
+      long endNanos = System.nanoTime();
+      report.flush();
+      if (metrics != null) {
+         metrics.addSimulateNanos(endNanos - startNanos);
+         metrics.addWriteNanos(System.nanoTime() - endNanos);
+      }
+
+      // A finished run has nothing to resume
+      awaitWrite();
+      Files.deleteIfExists(file);
+      return engine.getStats();
+   }
+
+   /**
+    * Copies the state of the run and hands it to the background thread,
+    * unless the previous checkpoint is still being written.
+    */
+   private void save(SimulationEngine engine, PassengerParser parser,
+      ReportWriter report) throws IOException {
+
+      if (lastWrite != null && !lastWrite.isDone()) {
+         return;
+      }
+      awaitWrite();
+
+      snapshot.reset();
+      DataOutputStream output = new DataOutputStream(snapshot);
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeUTF(settings);
+      output.writeLong(report.getLength());
+      parser.writeState(output);
+      engine.writeState(output);
+      output.flush();
+
+      lastWrite = writer.submit(() -> {
+         write();
+         return null;
+      });
+   }
+
+   /**
+    * Writes the copied state to a temporary file, followed by its checksum,
+    * and moves it in place of the checkpoint.
+    *
+    * @throws IOException If the checkpoint can not be written.
+    */
+   private void write() throws IOException {
+      byte[] data = snapshot.toByteArray();
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, data.length);
+
+      Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      try (FileOutputStream output = new FileOutputStream(temp.toFile())) {
+         output.write(data);
+         new DataOutputStream(output).writeInt((int) crc.getValue());
+         // The checkpoint must be on disk before it replaces the last one
+         output.getFD().sync();
+      }
+      try {
+         Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+         Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   /**
+    * Waits for the checkpoint being written, if any. A checkpoint that could
+    * not be written is reported, and the run goes on to the next one.
+    */
+   private void awaitWrite() {
+      if (lastWrite == null) {
+         return;
+      }
+      try {
+         lastWrite.get();
+      } catch (ExecutionException e) {
+         System.out.println("Checkpoint Not Written " + e.getCause());
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+      lastWrite = null;
+   }
+
+   /**
+    * Reads the checksum at the end of the checkpoint.
+    */
+   private static int readChecksum(byte[] data) {
+      int end = data.length;
+      return ((data[end - 4] & 0xff) << 24) | ((data[end - 3] & 0xff) << 16)
+         | ((data[end - 2] & 0xff) << 8) | (data[end - 1] & 0xff);
+   }
+
+   /**
+    * Waits for the checkpoint being written and stops the background thread.
+    */
+   @Override
+   public void close() {
+      awaitWrite();
+      writer.shutdown();
+   }
+}
@@ -0,0 +1,24 @@
+/* File name : Dispatcher.java */
+package elevator;
+
+/**
+ * The Dispatcher interface decides which car of an elevator bank serves a hall
+ * call, i.e. a floor where people are waiting. Once assigned, the car stops at
+ * the floor on its way, although any car stopping there first lets the people
+ * waiting in.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public interface Dispatcher {
+
+   /**
+    * Chooses the car serving the hall call on the floor.
+    *
+    * @param floorNum Floor no. where people are waiting.
+    * @param bank Elevator bank with the position of every car.
+    * @return Index of the car serving the call.
+    */
+   int assign(int floorNum, ElevatorBank bank);
+}
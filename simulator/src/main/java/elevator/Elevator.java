@@ -0,0 +1,190 @@
+/* File name : Elevator.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program represents an elevator whose passengers form a stack of
+ * passenger indices, chained through the links of a PassengerStore, so
+ * letting people in and out creates no objects. The elevator collects data on
+ * the number of total passengers served, passengers skipped (i.e. passengers
+ * who could not ride the elevator because it was full), occasions when the
+ * elevator was empty. The number of floors served and the number of
+ * passengers the elevator can hold are set when the elevator is created, and
+ * the elevator keeps track of how many of its passengers will exit at each
+ * floor. Passengers ride in the order they got in, so the ones who got in
+ * last have to temporarily exit to let the ones behind them out.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.0
+ * @since 2020-10-06
+ */
+public class Elevator extends ElevatorCar {
+
+   public static final int DEFAULT_CAPACITY = 5; // Passengers in a car
+   public static final int DEFAULT_NUM_FLOORS = 5; // Floors in the building
+
+   private int top; // Passenger who got in last, -1 if empty
+   private int size; // Counts passengers riding the elevator
+   private int tempExitTop; // Passenger who got off temporarily last
+
+   /**
+    * Class constructor for a five-passenger elevator in a five-story building.
+    */
+   public Elevator() {
+      this(DEFAULT_CAPACITY, DEFAULT_NUM_FLOORS);
+   }
+
+   /**
+    * Class constructor for an elevator with a store of its own.
+    *
+    * @param capacity Max. no. of passengers that can ride at once.
+    * @param numFloors No. of floors served by the elevator.
+    */
+   public Elevator(int capacity, int numFloors) {
+      this(capacity, numFloors, new PassengerStore());
+   }
+
+   /**
+    * Class constructor.
+    *
+    * @param capacity Max. no. of passengers that can ride at once.
+    * @param numFloors No. of floors served by the elevator.
+    * @param store Store holding the passengers who get in.
+    */
+   public Elevator(int capacity, int numFloors, PassengerStore store) {
+      super(capacity, numFloors, store);
+
+      this.top = -1;
+      this.size = 0;
+      this.tempExitTop = -1;
+   }
+
+   /**
+    * Adds the passenger to the top of the stack.
+    *
+    * @param passenger Index of the passenger.
+    */
+   public void push(int passenger) {
+      getStore().setLink(passenger, top);
+      top = passenger;
+      this.size++;
+   }
+
+   /**
+    * Removes and returns the passenger at the top of the stack.
+    *
+    * @return Index of the passenger who got in last.
+    */
+   public int pop() {
+      // -1 is returned if the stack is empty to keep the program running
+      if (isEmpty()) {
+         System.out.println("Empty Stack Exception");
+         return -1;
+      }
+
+      int passenger = top;
+      top = getStore().getLink(passenger);
+      getStore().setLink(passenger, -1);
+      this.size--;
+
+      return passenger;
+   }
+
+   /**
+    * Gets the passenger at the top of the stack.
+    *
+    * @return Index of the passenger who got in last.
+    */
+   public int peek() {
+      if (isEmpty()) {
+         System.out.println("Empty Stack Exception");
+         return -1;
+      }
+
+      return top;
+   }
+
+   @Override
+   public int getSize() {
+      return this.size;
+   }
+
+   @Override
+   public void board(int passenger) {
+      push(passenger);
+      getStore().setState(passenger, PassengerStore.RIDING);
+      addExitRequest(getStore().getFloorExited(passenger));
+   }
+
+   /**
+    * Lets out the passengers whose destination is the floor. Passengers who
+    * got in after them temporarily exit and get back in afterwards.
+    *
+    * @param floorNum Floor no. where the elevator stopped.
+    * @param listener Listener notified of every exit.
+    */
+   @Override
+   public void unload(int floorNum, SimulationListener listener) {
+      PassengerStore store = getStore();
+      while (getExitRequests(floorNum) > 0) {
+         int passenger = pop();
+         if (store.getFloorExited(passenger) == (floorNum)) {
+            removeExitRequest(floorNum);
+            store.setState(passenger, PassengerStore.EXITED);
+            listener.passengerExited(report(passenger));
+         } else {
+            store.setLink(passenger, tempExitTop);
+            tempExitTop = passenger;
+            store.incrementTempExits(passenger);
+            incrementTempExits();
+            listener.passengerTempExited(report(passenger));
+         }
+      }
+      // Restore people who got off temporarily, the last one out first in
+      while (tempExitTop >= 0) {
+         int passenger = tempExitTop;
+         tempExitTop = store.getLink(passenger);
+         push(passenger);
+      }
+   }
+
+   @Override
+   public void reset() {
+      top = -1;
+      size = 0;
+      tempExitTop = -1;
+      clearExitRequests();
+   }
+
+   /**
+    * Writes the exit requests, the aggregate data and the top of the stack
+    * for a checkpoint. The riders themselves are written with the store.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   @Override
+   void writeState(DataOutput output) throws IOException {
+      super.writeState(output);
+      output.writeInt(top);
+      output.writeInt(size);
+   }
+
+   /**
+    * Replaces the exit requests, the aggregate data and the top of the stack
+    * with the ones written by writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   @Override
+   void readState(DataInput input) throws IOException {
+      super.readState(input);
+      top = input.readInt();
+      size = input.readInt();
+      tempExitTop = -1;
+   }
+}
@@ -0,0 +1,387 @@
+/* File name : ElevatorBank.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This program represents a bank of elevators serving the same floors. Next to
+ * the elevators themselves it keeps where each car is heading, the direction
+ * it travels in, the hall calls (floors where people wait) assigned to it and
+ * when it reaches its next stop. A car takes the same time to travel each
+ * floor, so a car that travels further reaches its stops later. A car with no
+ * one riding and no hall calls is parked and does not move until it gets a
+ * hall call. The floors each car travels are counted as it reaches its stops.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class ElevatorBank {
+
+   private final ElevatorCar[] cars; // Elevators in the bank
+   private final int[] floorNums; // Floor no. of each car's next stop
+   private final boolean[] isAscending; // Direction each car travels in
+   private final int[] departFloors; // Floor no. each car last left
+   private final long[] departTimes; // Time each car last left a floor
+   private final long[] arrivalTimes; // Time each car reaches its next stop
+   private final boolean[] isParked; // Whether each car waits for a call
+   private final BitSet[] hallCalls; // Floor nos. assigned to each car
+   private final int[] hallCallCars; // Car serving each floor, -1 if none
+   private final long[] floorsTravelled; // Floors each car has travelled
+   private final int travelTime; // Time for a car to travel one floor
+
+   /**
+    * Class constructor for cars travelling one floor per unit of time.
+    *
+    * @param cars Elevators in the bank, all serving the same floors.
+    */
+   public ElevatorBank(ElevatorCar[] cars) {
+      this(cars, 1);
+   }
+
+   /**
+    * Class constructor.
+    *
+    * @param cars Elevators in the bank, all serving the same floors.
+    * @param travelTime Time for a car to travel one floor.
+    */
+   public ElevatorBank(ElevatorCar[] cars, int travelTime) {
+      int numFloors = cars[0].getNumFloors();
+
+      this.cars = cars;
+      this.floorNums = new int[cars.length];
+      this.isAscending = new boolean[cars.length];
+      this.departFloors = new int[cars.length];
+      this.departTimes = new long[cars.length];
+      this.arrivalTimes = new long[cars.length];
+      this.isParked = new boolean[cars.length];
+      this.hallCalls = new BitSet[cars.length];
+      for (int car = 0; car < cars.length; car++) {
+         this.hallCalls[car] = new BitSet(numFloors + 1);
+      }
+      this.hallCallCars = new int[numFloors];
+      this.floorsTravelled = new long[cars.length];
+      this.travelTime = travelTime;
+      reset();
+   }
+
+   /**
+    * Empties every car and clears the hall calls. Every car starts ascending
+    * from the first floor.
+    */
+   public void reset() {
+      for (int car = 0; car < cars.length; car++) {
+         cars[car].reset();
+         floorNums[car] = 1;
+         isAscending[car] = true;
+         departFloors[car] = 1;
+         departTimes[car] = 0;
+         arrivalTimes[car] = 0;
+         isParked[car] = false;
+         hallCalls[car].clear();
+         floorsTravelled[car] = 0;
+      }
+      Arrays.fill(hallCallCars, -1);
+   }
+
+   /**
+    * Gets the number of cars in the bank.
+    *
+    * @return No. of cars.
+    */
+   public int getNumCars() {
+      return cars.length;
+   }
+
+   /**
+    * Gets the number of floors served by the bank.
+    *
+    * @return Highest floor no.
+    */
+   public int getNumFloors() {
+      return cars[0].getNumFloors();
+   }
+
+   /**
+    * Gets one of the cars.
+    *
+    * @param car Index of the car, starting at 0.
+    * @return The car.
+    */
+   public ElevatorCar getCar(int car) {
+      return cars[car];
+   }
+
+   /**
+    * Gets the floor no. of the car's next stop, or of the floor where it is
+    * parked.
+    *
+    * @param car Index of the car.
+    * @return Floor no.
+    */
+   public int getFloor(int car) {
+      return floorNums[car];
+   }
+
+   /**
+    * Indicates whether the car travels up.
+    *
+    * @param car Index of the car.
+    * @return Boolean indicating if the car is ascending.
+    */
+   public boolean isAscending(int car) {
+      return isAscending[car];
+   }
+
+   /**
+    * Indicates whether the car is parked waiting for a hall call.
+    *
+    * @param car Index of the car.
+    * @return Boolean indicating if the car is parked.
+    */
+   public boolean isParked(int car) {
+      return isParked[car];
+   }
+
+   /**
+    * Indicates whether no one rides any of the cars.
+    *
+    * @return Boolean indicating if every car is empty.
+    */
+   public boolean isEmpty() {
+      for (ElevatorCar elevator : cars) {
+         if (!elevator.isEmpty()) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Gets the car assigned to the hall call on the floor.
+    *
+    * @param floorNum Floor no. of the hall call.
+    * @return Index of the car, -1 if the call is not assigned.
+    */
+   public int getHallCallCar(int floorNum) {
+      return hallCallCars[floorNum - 1];
+   }
+
+   /**
+    * Assigns the hall call on the floor to a car. A parked car sets off
+    * towards the floor, and a moving car heading past the floor stops there
+    * first.
+    *
+    * @param floorNum Floor no. of the hall call.
+    * @param car Index of the car serving the call.
+    * @param now Current time.
+    */
+   void assignHallCall(int floorNum, int car, long now) {
+      hallCallCars[floorNum - 1] = car;
+      hallCalls[car].set(floorNum);
+
+      if (isParked[car]) {
+         isParked[car] = false;
+         if (floorNum != floorNums[car]) {
+            isAscending[car] = floorNum > floorNums[car];
+         }
+         departFloors[car] = floorNums[car];
+         departTimes[car] = Math.max(now, arrivalTimes[car]);
+         moveTo(car, floorNum);
+         return;
+      }
+
+      // Stop at the floor if it is before the car's next stop and the car
+      // has not passed it yet
+      int direction = isAscending[car] ? 1 : -1;
+      int distance = (floorNum - departFloors[car]) * direction;
+      int remaining = (floorNums[car] - floorNum) * direction;
+      if (distance >= 0 && remaining > 0
+         && departTimes[car] + (long) distance * travelTime >= now) {
+         moveTo(car, floorNum);
+      }
+   }
+
+   /**
+    * Clears the hall call on the floor, regardless of the car assigned to it.
+    *
+    * @param floorNum Floor no. of the hall call.
+    */
+   void clearHallCall(int floorNum) {
+      int car = hallCallCars[floorNum - 1];
+      if (car >= 0) {
+         hallCalls[car].clear(floorNum);
+         hallCallCars[floorNum - 1] = -1;
+      }
+   }
+
+   /**
+    * Finds the closest floor past the given one, in the car's direction of
+    * travel, with a hall call assigned to the car.
+    *
+    * @param car Index of the car.
+    * @param floorNum Floor no. to search from, excluded from the search.
+    * @return Floor no. with a hall call, -1 if there is none.
+    */
+   int nextHallCall(int car, int floorNum) {
+      return nextHallCall(car, floorNum, isAscending[car]);
+   }
+
+   /**
+    * Finds the closest floor past the given one, in the given direction,
+    * with a hall call assigned to the car.
+    *
+    * @param car Index of the car.
+    * @param floorNum Floor no. to search from, excluded from the search.
+    * @param isAscending Whether to search the floors above or below.
+    * @return Floor no. with a hall call, -1 if there is none.
+    */
+   int nextHallCall(int car, int floorNum, boolean isAscending) {
+      int next;
+      if (isAscending) {
+         next = hallCalls[car].nextSetBit(floorNum + 1);
+      } else {
+         next = (floorNum > 1) ? hallCalls[car].previousSetBit(floorNum - 1) : -1;
+      }
+      return (next > 0) ? next : -1;
+   }
+
+   /**
+    * Sets the direction the car travels in.
+    *
+    * @param car Index of the car.
+    * @param isAscending Whether the car travels up.
+    */
+   void setAscending(int car, boolean isAscending) {
+      this.isAscending[car] = isAscending;
+   }
+
+   /**
+    * Counts the floors the car travelled to reach its next stop, once it
+    * gets there.
+    *
+    * @param car Index of the car.
+    */
+   void arrive(int car) {
+      floorsTravelled[car] += Math.abs(floorNums[car] - departFloors[car]);
+   }
+
+   /**
+    * Gets the floors the car has travelled since the bank was reset.
+    *
+    * @param car Index of the car.
+    * @return No. of floors travelled.
+    */
+   public long getFloorsTravelled(int car) {
+      return floorsTravelled[car];
+   }
+
+   /**
+    * Sends the car from the floor where it stopped to its next stop.
+    *
+    * @param car Index of the car.
+    * @param floorNum Floor no. of the next stop.
+    * @param departTime Time the car leaves, once people got off and on.
+    */
+   void depart(int car, int floorNum, long departTime) {
+      departFloors[car] = floorNums[car];
+      departTimes[car] = departTime;
+      moveTo(car, floorNum);
+   }
+
+   /**
+    * Parks the car on the floor where it stopped.
+    *
+    * @param car Index of the car.
+    * @param readyTime Time the car can leave, once people got off and on.
+    */
+   void park(int car, long readyTime) {
+      isParked[car] = true;
+      arrivalTimes[car] = readyTime;
+   }
+
+   /**
+    * Indicates whether the car has no one riding and no hall calls.
+    *
+    * @param car Index of the car.
+    * @return Boolean indicating if the car has nothing to do.
+    */
+   boolean isIdle(int car) {
+      return cars[car].isEmpty() && hallCalls[car].isEmpty();
+   }
+
+   /**
+    * Gets the time when the car reaches its next stop, or when a parked car
+    * can leave.
+    *
+    * @param car Index of the car.
+    * @return Arrival time.
+    */
+   long getArrivalTime(int car) {
+      return arrivalTimes[car];
+   }
+
+   /**
+    * Writes where each car is heading and when, its riders and the hall
+    * calls for a checkpoint.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      for (int car = 0; car < cars.length; car++) {
+         output.writeInt(floorNums[car]);
+         output.writeBoolean(isAscending[car]);
+         output.writeInt(departFloors[car]);
+         output.writeLong(departTimes[car]);
+         output.writeLong(arrivalTimes[car]);
+         output.writeBoolean(isParked[car]);
+         output.writeLong(floorsTravelled[car]);
+         cars[car].writeState(output);
+      }
+      for (int hallCallCar : hallCallCars) {
+         output.writeInt(hallCallCar);
+      }
+   }
+
+   /**
+    * Replaces the state of every car with the one written by writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException {
+      for (int car = 0; car < cars.length; car++) {
+         floorNums[car] = input.readInt();
+         isAscending[car] = input.readBoolean();
+         departFloors[car] = input.readInt();
+         departTimes[car] = input.readLong();
+         arrivalTimes[car] = input.readLong();
+         isParked[car] = input.readBoolean();
+         floorsTravelled[car] = input.readLong();
+         cars[car].readState(input);
+         hallCalls[car].clear();
+      }
+      // Each car's hall calls follow from the car serving each floor
+      for (int floor = 0; floor < hallCallCars.length; floor++) {
+         hallCallCars[floor] = input.readInt();
+         if (hallCallCars[floor] >= 0) {
+            hallCalls[hallCallCars[floor]].set(floor + 1);
+         }
+      }
+   }
+
+   /**
+    * Sets the car's next stop, counting the floors to travel from the floor
+    * it last left.
+    */
+   private void moveTo(int car, int floorNum) {
+      floorNums[car] = floorNum;
+      arrivalTimes[car] = departTimes[car]
+         + (long) Math.abs(floorNum - departFloors[car]) * travelTime;
+   }
+}
@@ -0,0 +1,334 @@
+/* File name : ElevatorCar.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This program represents a car of an elevator bank, the part shared by every
+ * car model. A car lets passengers in and out, keeps track of how many of its
+ * passengers will exit at each floor and collects data on the number of total
+ * passengers served, passengers skipped (i.e. passengers who could not ride
+ * because the car was full), occasions when the car was empty and times
+ * passengers temporarily exited. Subclasses decide the order passengers ride
+ * in. Passengers are indices of the PassengerStore the car was created with.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public abstract class ElevatorCar {
+
+   private final PassengerStore store; // Data of the passengers riding
+   private final PassengerView view; // Reused to report passengers
+   private final int capacity; // Max. no. of passengers riding at once
+   private final int numFloors; // No. of floors served, numbered from 1
+   private final int[] exitFloorRequests; // Passengers exiting per floor
+   private final BitSet exitFloors; // Floor nos. with exit requests
+   private int totalPassengers; // Agg. passenger counter
+   private int totalSkipped; // Agg. skipped counter
+   private int totalEmpty; // Agg. empty occasion counter
+   private long totalTempExits; // Agg. temporary exit counter
+
+   /**
+    * Class constructor.
+    *
+    * @param capacity Max. no. of passengers that can ride at once.
+    * @param numFloors No. of floors served by the car.
+    * @param store Store holding the passengers who get in.
+    */
+   protected ElevatorCar(int capacity, int numFloors, PassengerStore store) {
+      if (capacity < 1 || numFloors < 1) {
+         throw new IllegalArgumentException(
+            "Capacity and number of floors must be at least 1");
+      }
+
+      this.store = store;
+      this.view = new PassengerView(store, -1);
+      this.capacity = capacity;
+      this.numFloors = numFloors;
+      // Each index position represents a floor and the element value is the
+      // number of people inside the car that will exit at that floor
+      this.exitFloorRequests = new int[numFloors];
+      this.exitFloors = new BitSet(numFloors + 1);
+      this.totalPassengers = 0;
+      this.totalSkipped = 0;
+      this.totalEmpty = 0;
+      this.totalTempExits = 0;
+   }
+
+   /**
+    * Lets a passenger in the car.
+    *
+    * @param passenger Index of the passenger getting in.
+    */
+   public abstract void board(int passenger);
+
+   /**
+    * Lets out the passengers whose destination is the floor.
+    *
+    * @param floorNum Floor no. where the car stopped.
+    * @param listener Listener notified of every exit.
+    */
+   public abstract void unload(int floorNum, SimulationListener listener);
+
+   /**
+    * Gets the number of passengers riding the car.
+    *
+    * @return This car's size.
+    */
+   public abstract int getSize();
+
+   /**
+    * Lets everyone out and clears the exit requests and the aggregate data,
+    * so the car can be used for another run.
+    */
+   public abstract void reset();
+
+   /**
+    * Gets the max. number of passengers that can ride at once.
+    *
+    * @return This car's capacity.
+    */
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   /**
+    * Gets the number of floors served by the car.
+    *
+    * @return This car's highest floor no.
+    */
+   public int getNumFloors() {
+      return this.numFloors;
+   }
+
+   /**
+    * Gets the store holding the passengers who get in.
+    *
+    * @return This car's passenger store.
+    */
+   public PassengerStore getStore() {
+      return this.store;
+   }
+
+   /**
+    * Indicates whether no one rides the car.
+    *
+    * @return Boolean indicating if this car is empty.
+    */
+   public boolean isEmpty() {
+      return getSize() == 0;
+   }
+
+   /**
+    * Indicates whether the car can not take more passengers.
+    *
+    * @return Boolean indicating if this car is full.
+    */
+   public boolean isFull() {
+      return getSize() >= this.capacity;
+   }
+
+   /**
+    * Points the reused view at the passenger so it can be reported.
+    *
+    * @param passenger Index of the passenger.
+    * @return View of the passenger, valid until the next report.
+    */
+   protected Passenger report(int passenger) {
+      view.setIndex(passenger);
+      return view;
+   }
+
+   /**
+    * Records that a passenger riding the car will exit at the floor.
+    *
+    * @param floorNum Floor no. of the passenger's destination.
+    */
+   protected void addExitRequest(int floorNum) {
+      if (this.exitFloorRequests[floorNum - 1]++ == 0) {
+         this.exitFloors.set(floorNum);
+      }
+   }
+
+   /**
+    * Records that a passenger exited the car at the floor.
+    *
+    * @param floorNum Floor no. where the passenger exited.
+    */
+   protected void removeExitRequest(int floorNum) {
+      if (--this.exitFloorRequests[floorNum - 1] == 0) {
+         this.exitFloors.clear(floorNum);
+      }
+   }
+
+   /**
+    * Gets the number of passengers riding the car who will exit at the floor.
+    *
+    * @param floorNum Floor no. to check.
+    * @return No. of passengers exiting at the floor.
+    */
+   public int getExitRequests(int floorNum) {
+      return this.exitFloorRequests[floorNum - 1];
+   }
+
+   /**
+    * Finds the closest floor past the given one, in the direction of travel,
+    * where a passenger riding the car will exit.
+    *
+    * @param floorNum Floor no. to search from, excluded from the search.
+    * @param isAscending Whether to search the floors above or below.
+    * @return Floor no. with exit requests, -1 if there is none.
+    */
+   public int nextExitFloor(int floorNum, boolean isAscending) {
+      if (isAscending) {
+         int next = this.exitFloors.nextSetBit(floorNum + 1);
+         return (next > 0) ? next : -1;
+      }
+      int next = (floorNum > 1) ? this.exitFloors.previousSetBit(floorNum - 1) : -1;
+      return (next > 0) ? next : -1;
+   }
+
+   /**
+    * Increments the number of passengers serviced by one.
+    */
+   public void incrementTotalServiced() {
+      this.totalPassengers++;
+   }
+
+   /**
+    * Increments the number of passengers skipped by one.
+    */
+   public void incrementTotalSkipped() {
+      this.totalSkipped++;
+   }
+
+   /**
+    * Increment the number of empty occasions by one.
+    */
+   public void incrementEmptyOccasions() {
+      this.totalEmpty++;
+   }
+
+   /**
+    * Increments the number of times passengers temporarily exited by one.
+    */
+   protected void incrementTempExits() {
+      this.totalTempExits++;
+   }
+
+   /**
+    * Gets the number of passengers serviced.
+    *
+    * @return Total served.
+    */
+   public int getTotalServiced() {
+      return this.totalPassengers;
+   }
+
+   /**
+    * Gets the number of passengers skipped.
+    *
+    * @return Total skipped.
+    */
+   public int getTotalSkipped() {
+      return this.totalSkipped;
+   }
+
+   /**
+    * Gets the number of empty occasions.
+    *
+    * @return Empty occasions.
+    */
+   public int getEmptyOccasions() {
+      return this.totalEmpty;
+   }
+
+   /**
+    * Gets the number of times passengers temporarily exited.
+    *
+    * @return Total temporary exits.
+    */
+   public long getTotalTempExits() {
+      return this.totalTempExits;
+   }
+
+   /**
+    * Clears the exit requests and the aggregate data.
+    */
+   protected void clearExitRequests() {
+      Arrays.fill(this.exitFloorRequests, 0);
+      this.exitFloors.clear();
+      this.totalPassengers = 0;
+      this.totalSkipped = 0;
+      this.totalEmpty = 0;
+      this.totalTempExits = 0;
+   }
+
+   /**
+    * Writes the exit requests and the aggregate data for a checkpoint.
+    * Subclasses add the order of their riders, who are themselves written
+    * with the store.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      for (int requests : exitFloorRequests) {
+         output.writeInt(requests);
+      }
+      output.writeInt(totalPassengers);
+      output.writeInt(totalSkipped);
+      output.writeInt(totalEmpty);
+      output.writeLong(totalTempExits);
+   }
+
+   /**
+    * Replaces the exit requests and the aggregate data with the ones written
+    * by writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException {
+      exitFloors.clear();
+      for (int floor = 0; floor < numFloors; floor++) {
+         exitFloorRequests[floor] = input.readInt();
+         if (exitFloorRequests[floor] > 0) {
+            exitFloors.set(floor + 1);
+         }
+      }
+      totalPassengers = input.readInt();
+      totalSkipped = input.readInt();
+      totalEmpty = input.readInt();
+      totalTempExits = input.readLong();
+   }
+
+   /**
+    * Gets the aggregate data on the number of passengers served and skipped
+    * as well as number of times the car was empty. Floor stops are counted
+    * by the engine, not the car, so they are left at 0.
+    *
+    * @return Aggregate data of the car.
+    */
+   public SimulationStats getStats() {
+      return new SimulationStats(this.totalPassengers, this.totalSkipped,
+         this.totalEmpty, 0);
+   }
+
+   /**
+    * Gets the aggregate data on the number of passengers served and skipped
+    * as well as number of times the car was empty as a string, in the format
+    * of the report's totals.
+    *
+    * @return Aggregate data of the car.
+    */
+   @Override
+   public String toString() {
+      return getStats().toString();
+   }
+}
@@ -0,0 +1,571 @@
+/* File name : ElevatorSimulation.java */
+package elevator;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * This program reads elevator passenger data from an input file and simulates 
+ * an operating elevator. Unless other settings are given on the command line,
+ * the building has five floors and the elevator cannot hold more than five
+ * passengers. At each floor, the program prints information
+ * on people entering, leaving, or skipping the elevator. The program terminates
+ * when there are no people waiting on the elevator and when the there are no 
+ * passengers riding the elevator.
+ * 
+ * @author Rodrigo Rogel-Perez
+ * @version 1.0
+ * @since 2020-10-06
+ */
+public class ElevatorSimulation {
+   
+   private static final int CHARS_PER_PASSENGER = 64; // Report text per row
+   private static final int BYTES_PER_PASSENGER = 48; // Event log per row
+   
+   /**
+    * Main entry point of the program.
+    * 
+    * @param args Holds the options followed by two command line arguments: 
+    * the input file name and the output file name.  
+    */
+   public static void main(String[] args) {
+      
+      //  Check for command line arguments.
+      SimulationOptions options = null;
+      try {
+         options = SimulationOptions.parse(args);
+      } catch (IllegalArgumentException e) {
+         System.out.println(e.getMessage());
+         System.out.println(SimulationOptions.usage());
+         System.exit(-1);
+      }
+      
+      if (options.isBatch()) {
+         runBatch(options);
+         return;
+      }
+      if (options.isCampus()) {
+         runCampus(options);
+         return;
+      }
+      if (!options.getSweeps().isEmpty()) {
+         runSweep(options);
+         return;
+      }
+      if (options.isServing()) {
+         runService(options);
+         return;
+      }
+      
+      SimulationEngine engine = new SimulationEngine(options);
+      try (MetricsExporter exporter = MetricsExporter.start(options)) {
+         if (exporter != null) {
+            exporter.register(engine.getMetrics());
+         }
+         ResultCache cache = ResultCache.of(options);
+         if (options.getNumGenerated() > 0) {
+            simulateGenerated(engine, options, cache);
+         } else if (options.getCheckpointFileName() != null) {
+            checkpoint(engine, options);
+         } else if (options.isPipelined()) {
+            pipeline(engine, options, cache);
+         } else if (options.getFollowSeconds() > 0) {
+            follow(engine, options);
+         } else {
+            simulate(engine, options, options.getInFileName(),
+               options.getOutFileName(), cache);
+         }
+      } catch (PassengerDataException e) {
+         // The row and column number of the value that can not be processed
+         // are written instead of the report, along with the row itself
+         writeResult(e.getReport(), options.getOutFileName());
+         System.exit(-1);
+      } catch (FileNotFoundException e) {
+         System.out.println("File Not Found " + e);
+         System.exit(-1);
+      }
+      // Throw exception if other I/O related error is encoutered
+      catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+   }
+   
+   /**
+    * Serves the report of an input file from the result cache, or simulates
+    * the passengers and stores the report in the cache.
+    *
+    * @param engine Engine performing the simulation on a cache miss.
+    * @param options Settings of the run.
+    * @param inFileName Name of file containing passenger data.
+    * @param outFileName Name of file on which the report is written.
+    * @param cache Cache of the results, null to always simulate.
+    * @return Aggregate data of the run.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If a file can not be read or written.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static SimulationStats simulate(SimulationEngine engine,
+      SimulationOptions options, String inFileName, String outFileName,
+      ResultCache cache) throws IOException, PassengerDataException {
+
+      if (cache == null) {
+         return simulate(engine, options, inFileName, outFileName);
+      }
+      String key = cache.keyOf(inFileName);
+      SimulationStats stats = cache.serve(key, outFileName);
+      if (stats == null) {
+         stats = simulate(engine, options, inFileName, outFileName);
+         store(cache, key, outFileName, stats);
+      }
+      return stats;
+   }
+
+   /**
+    * Simulates the passengers of an input file and writes the report to the
+    * output file, in the report format of the settings. The input file is
+    * either text or a binary trace, whose rows were checked when it was
+    * converted.
+    *
+    * @param engine Engine performing the simulation.
+    * @param options Settings of the run.
+    * @param inFileName Name of file containing passenger data.
+    * @param outFileName Name of file on which the report is written.
+    * @return Aggregate data of the run.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If a file can not be read or written.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static SimulationStats simulate(SimulationEngine engine,
+      SimulationOptions options, String inFileName, String outFileName)
+      throws IOException, PassengerDataException {
+
+      // Events are streamed to the output file as they happen instead of 
+      // being collected in memory until the end of the simulation
+      int numFloors = options.getNumFloors();
+      if (BinaryTraceReader.isTrace(inFileName)) {
+         try (BinaryTraceReader trace = new BinaryTraceReader(inFileName, numFloors);
+            ReportWriter report = ReportWriter.open(options.getReportFormat(),
+               outFileName)) {
+            return run(engine, trace, report);
+         }
+      }
+      try (PassengerParser parser = new PassengerParser(inFileName, numFloors);
+         ReportWriter report = ReportWriter.open(options.getReportFormat(),
+            outFileName)) {
+         return run(engine, parser, report);
+      }
+   }
+   
+   /**
+    * Simulates the passengers of an input file that is still being written,
+    * taking its rows as they come until none came for the given time. The
+    * report is flushed whenever the simulation waits for more rows, so it
+    * keeps up with the input.
+    *
+    * @param engine Streaming engine performing the simulation.
+    * @param options Settings of the run, with the seconds without new rows
+    * after which the input ends.
+    * @return Aggregate data of the run.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If a file can not be read or written.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static SimulationStats follow(SimulationEngine engine,
+      SimulationOptions options) throws IOException, PassengerDataException {
+
+      try (PassengerParser parser = new PassengerParser(
+            options.getInFileName(), options.getNumFloors());
+         ReportWriter report = ReportWriter.open(options.getReportFormat(),
+            options.getOutFileName())) {
+         parser.follow(options.getFollowSeconds() * 1000L, report::flush);
+         return run(engine, parser, report);
+      }
+   }
+   
+   /**
+    * Serves the report of an input file from the result cache, or simulates
+    * the passengers with the input read and the report written on threads of
+    * their own, and stores the report in the cache.
+    *
+    * @param engine Engine performing the simulation on a cache miss.
+    * @param options Settings of the run and of its pipeline.
+    * @param cache Cache of the results, null to always simulate.
+    * @return Aggregate data of the run.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If a file can not be read or written.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static SimulationStats pipeline(SimulationEngine engine,
+      SimulationOptions options, ResultCache cache)
+      throws IOException, PassengerDataException {
+
+      if (cache == null) {
+         return pipeline(engine, options);
+      }
+      String key = cache.keyOf(options.getInFileName());
+      SimulationStats stats = cache.serve(key, options.getOutFileName());
+      if (stats == null) {
+         stats = pipeline(engine, options);
+         store(cache, key, options.getOutFileName(), stats);
+      }
+      return stats;
+   }
+
+   /**
+    * Simulates the passengers of an input file, text or binary trace, while
+    * one thread reads them ahead of the simulation and another writes the
+    * report behind it. The report is the same as without the threads.
+    */
+   private static SimulationStats pipeline(SimulationEngine engine,
+      SimulationOptions options) throws IOException, PassengerDataException {
+
+      String inFileName = options.getInFileName();
+      if (BinaryTraceReader.isTrace(inFileName)) {
+         try (BinaryTraceReader trace = new BinaryTraceReader(inFileName,
+               options.getNumFloors())) {
+            return pipeline(engine, trace, options);
+         }
+      }
+      try (PassengerParser parser = new PassengerParser(inFileName,
+            options.getNumFloors())) {
+         return pipeline(engine, parser, options);
+      }
+   }
+
+   /**
+    * Simulates the passengers of a source, read by a thread of its own, and
+    * writes the report on another thread. The reading thread is stopped
+    * before the source is closed by the caller.
+    */
+   private static SimulationStats pipeline(SimulationEngine engine,
+      PassengerSource input, SimulationOptions options)
+      throws IOException, PassengerDataException {
+
+      int blockSize = options.getPipelineBatch();
+      try (PipelinedSource source = new PipelinedSource(input, blockSize);
+         ReportWriter report = openPipelined(options)) {
+         return run(engine, source, report);
+      }
+   }
+
+   /**
+    * Creates the report writer of a pipelined run. Text reports and event
+    * logs are written on a thread of their own; a summary is written on the
+    * simulation's thread, since it is only written once the run ends.
+    */
+   private static ReportWriter openPipelined(SimulationOptions options)
+      throws IOException {
+
+      String format = options.getReportFormat();
+      switch (format) {
+         case SimulationOptions.REPORT_CSV:
+         case SimulationOptions.REPORT_BINARY:
+            return new EventLogWriter(new PipelinedOutputStream(
+               new FileOutputStream(options.getOutFileName()),
+               options.getPipelineBatch() * BYTES_PER_PASSENGER), null,
+               format.equals(SimulationOptions.REPORT_BINARY), false);
+         case SimulationOptions.REPORT_SUMMARY:
+            return ReportWriter.open(format, options.getOutFileName());
+         default:
+            return new TextReportWriter(new PipelinedWriter(
+               new FileWriter(options.getOutFileName()),
+               options.getPipelineBatch() * CHARS_PER_PASSENGER));
+      }
+   }
+   
+   /**
+    * Simulates the passengers of an input file while saving checkpoints,
+    * resuming from the last checkpoint if asked to and one was saved. The
+    * report then continues from where it was when the checkpoint was saved.
+    *
+    * @param engine Streaming engine performing the simulation.
+    * @param options Settings of the run and of its checkpoints.
+    * @return Aggregate data of the run.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If a file can not be read or written, or the
+    * checkpoint does not belong to the run.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   static SimulationStats checkpoint(SimulationEngine engine,
+      SimulationOptions options) throws IOException, PassengerDataException {
+
+      String inFileName = options.getInFileName();
+      if (BinaryTraceReader.isTrace(inFileName)) {
+         throw new IOException("Checkpoints need a text input file: "
+            + inFileName);
+      }
+      String settings = options.describeSimulation() + " input="
+         + new File(inFileName).getAbsolutePath();
+
+      try (Checkpointer checkpointer = new Checkpointer(
+            options.getCheckpointFileName(), options.getCheckpointInterval(),
+            settings);
+         PassengerParser parser = new PassengerParser(inFileName,
+            options.getNumFloors())) {
+         long reportLength = options.isResuming() ? checkpointer.load() : -1;
+         try (ReportWriter report = ReportWriter.open(
+               options.getReportFormat(), options.getOutFileName(),
+               Math.max(0, reportLength))) {
+            if (options.getFollowSeconds() > 0) {
+               parser.follow(options.getFollowSeconds() * 1000L, report::flush);
+            }
+            return checkpointer.run(engine, parser, report);
+         }
+      }
+   }
+   
+   /**
+    * Runs the engine over the source and flushes the report, timing the
+    * flush when the engine collects metrics.
+    */
+   private static SimulationStats run(SimulationEngine engine,
+      PassengerSource source, ReportWriter report)
+      throws IOException, PassengerDataException {
+
+      SimulationStats stats = engine.run(source, report);
+      
+      // The part of the report still buffered is written out here
+      SimulationMetrics metrics = engine.getMetrics();
+      if (metrics != null) {
+         long start = System.nanoTime();
+         report.flush();
+         metrics.addWriteNanos(System.nanoTime() - start);
+      }
+      return stats;
+   }
+   
+   /**
+    * Serves the report of synthetic passengers from the result cache, or
+    * simulates them and stores the report in the cache.
+    *
+    * @param engine Engine performing the simulation on a cache miss.
+    * @param options Settings of the run and of the synthetic passengers.
+    * @param cache Cache of the results, null to always simulate.
+    * @return Aggregate data of the run.
+    * @throws IOException If the report can not be written.
+    * @throws PassengerDataException If a passenger can not be processed.
+    */
+   static SimulationStats simulateGenerated(SimulationEngine engine,
+      SimulationOptions options, ResultCache cache)
+      throws IOException, PassengerDataException {
+
+      if (cache == null) {
+         return simulate(engine, WorkloadGenerator.of(options),
+            options.getReportFormat(), options.getOutFileName());
+      }
+      String key = cache.keyOfSource("generate=" + options.getNumGenerated()
+         + " pattern=" + options.getPattern() + " seed=" + options.getSeed()
+         + " interval=" + options.getArrivalInterval());
+      SimulationStats stats = cache.serve(key, options.getOutFileName());
+      if (stats == null) {
+         stats = simulate(engine, WorkloadGenerator.of(options),
+            options.getReportFormat(), options.getOutFileName());
+         store(cache, key, options.getOutFileName(), stats);
+      }
+      return stats;
+   }
+
+   /**
+    * Stores a report in the result cache. A report that can not be cached
+    * is still a valid result, so the failure is only reported.
+    */
+   private static void store(ResultCache cache, String key, String outFileName,
+      SimulationStats stats) {
+
+      try {
+         cache.store(key, outFileName, stats);
+      } catch (IOException e) {
+         System.out.println("Result Not Cached " + e);
+      }
+   }
+   
+   /**
+    * Simulates passengers from a source other than an input file and writes
+    * the report to the output file.
+    *
+    * @param engine Engine performing the simulation.
+    * @param source Passengers in the order they start waiting.
+    * @param reportFormat What the report holds.
+    * @param outFileName Name of file on which the report is written.
+    * @return Aggregate data of the run.
+    * @throws IOException If the report can not be written.
+    * @throws PassengerDataException If the source holds a value that can not
+    * be processed.
+    */
+   static SimulationStats simulate(SimulationEngine engine,
+      PassengerSource source, String reportFormat, String outFileName)
+      throws IOException, PassengerDataException {
+
+      try (ReportWriter report = ReportWriter.open(reportFormat, outFileName)) {
+         return run(engine, source, report);
+      }
+   }
+   
+   /**
+    * Simulates every file of a batch on a pool of worker threads and prints
+    * a summary with the timing of each file and the overall throughput.
+    *
+    * @param options Settings of the batch; the input is a directory or a
+    * manifest and the output is a directory.
+    */
+   private static void runBatch(SimulationOptions options) {
+      List<BatchJob> jobs = null;
+      try (MetricsExporter exporter = MetricsExporter.start(options)) {
+         jobs = BatchRunner.readJobs(
+            options.getInFileName(), options.getOutFileName());
+         BatchRunner runner = new BatchRunner(options, options.getNumJobs());
+         long elapsedNanos = runner.run(jobs, exporter, ResultCache.of(options));
+         BatchRunner.writeSummary(jobs, elapsedNanos, System.out);
+      } catch (FileNotFoundException e) {
+         System.out.println("File Not Found " + e);
+         System.exit(-1);
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      } catch (InterruptedException e) {
+         System.out.println("Batch Interrupted " + e);
+         System.exit(-1);
+      }
+      
+      // The metrics are dumped before a failed batch ends the program
+      for (BatchJob job : jobs) {
+         if (job.getError() != null) {
+            System.exit(-1);
+         }
+      }
+   }
+   
+   /**
+    * Simulates every building of a campus on a pool of worker threads, then
+    * writes the campus report to the output directory and prints the time
+    * taken.
+    *
+    * @param options Settings of every building; the input is a directory or
+    * a campus file and the output is a directory.
+    */
+   private static void runCampus(SimulationOptions options) {
+      File report = new File(options.getOutFileName(), CampusRunner.REPORT_NAME);
+      CampusRunner campus = null;
+      try (MetricsExporter exporter = MetricsExporter.start(options)) {
+         campus = CampusRunner.read(options, options.getInFileName(),
+            options.getOutFileName());
+         long elapsedNanos = campus.run(options.getNumJobs(), exporter,
+            ResultCache.of(options));
+         try (PrintWriter output = new PrintWriter(new BufferedWriter(
+               new FileWriter(report)))) {
+            campus.writeReport(output, elapsedNanos);
+         }
+         System.out.printf("%d buildings in %.3f s%n",
+            campus.getNumBuildings(), elapsedNanos / 1e9);
+      } catch (PassengerDataException e) {
+         // A faulty row of a campus file is reported instead of the campus
+         writeResult(e.getReport(), report.getPath());
+         System.exit(-1);
+      } catch (FileNotFoundException e) {
+         System.out.println("File Not Found " + e);
+         System.exit(-1);
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+
+      // The metrics are dumped before a failed campus ends the program
+      if (campus.hasFailed()) {
+         System.exit(-1);
+      }
+   }
+   
+   /**
+    * Reads the passengers once and simulates them in every configuration of
+    * a sweep on a pool of worker threads, then writes the table comparing
+    * the results to the output file and prints the time taken. The time of
+    * each configuration is printed to the error stream rather than written
+    * to the table.
+    *
+    * @param options Settings of the sweep; the input is a file or synthetic
+    * passengers and the output is the table.
+    */
+   private static void runSweep(SimulationOptions options) {
+      ParameterSweep sweep = new ParameterSweep(options);
+      try {
+         PassengerTrace trace;
+         if (options.getNumGenerated() > 0) {
+            trace = PassengerTrace.load(WorkloadGenerator.of(options));
+         } else if (BinaryTraceReader.isTrace(options.getInFileName())) {
+            try (BinaryTraceReader reader = new BinaryTraceReader(
+                  options.getInFileName(), sweep.getNumFloors())) {
+               trace = PassengerTrace.load(reader);
+            }
+         } else {
+            try (PassengerParser parser = new PassengerParser(
+                  options.getInFileName(), sweep.getNumFloors())) {
+               trace = PassengerTrace.load(parser);
+            }
+         }
+
+         long elapsedNanos = sweep.run(trace, options.getNumJobs());
+         try (PrintWriter output = new PrintWriter(new BufferedWriter(
+               new FileWriter(options.getOutFileName())))) {
+            sweep.writeTable(output);
+         }
+         sweep.writeTimes(System.err);
+         System.out.printf("%d configurations of %d passengers in %.3f s%n",
+            sweep.getNumConfigurations(), trace.getSize(), elapsedNanos / 1e9);
+      } catch (PassengerDataException e) {
+         writeResult(e.getReport(), options.getOutFileName());
+         System.exit(-1);
+      } catch (FileNotFoundException e) {
+         System.out.println("File Not Found " + e);
+         System.exit(-1);
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+   }
+   
+   /**
+    * Starts a service answering simulation requests on a local port, which
+    * keeps running until the program is stopped.
+    *
+    * @param options Settings of the service and default settings of the
+    * requests.
+    */
+   private static void runService(SimulationOptions options) {
+      try {
+         SimulationService service = SimulationService.start(options);
+         // Requests still waiting are turned away when the program stops
+         Runtime.getRuntime().addShutdownHook(
+            new Thread(service::close, "service-stop"));
+         System.out.printf("Serving simulations on http://localhost:%d/%n",
+            service.getPort());
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+   }
+   
+   /**
+    * Write text to the specified file.
+    *
+    * @param text The text to write.
+    * @param fileName File name on which text will be written.
+    */
+   private static void writeResult(String text, String fileName) {
+
+      // Write to new file using try-with-resource statement to automatically close stream at end of session
+      try ( PrintWriter output = new PrintWriter( new BufferedWriter( new FileWriter( fileName ) ) ) ) {
+         output.print( text );
+      }
+      // Throw exception if other I/O related error is encoutered
+      catch ( IOException e ) {
+         System.out.println( "An I/O Error Occurred " + e );
+         System.exit(-1);
+      }
+   }
+}
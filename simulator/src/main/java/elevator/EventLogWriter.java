@@ -0,0 +1,264 @@
+/* File name : EventLogWriter.java */
+package elevator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+
+/**
+ * This program writes the passenger events of a run as a compact event log
+ * meant to be read by other programs rather than people. Every record holds
+ * the car and the floor of the stop, the number of the passenger in input
+ * order and the event, which is one of:
+ *
+ *    enter      the passenger entered the car
+ *    exit       the passenger reached their destination and left
+ *    temp-exit  the passenger left for a while to let others out
+ *    skip       the passenger could not ride because the car was full
+ *    stay       the passenger did not ride because they were at their
+ *               destination already
+ *
+ * In CSV the log starts with a header row and has a row per event. In binary
+ * the log starts with a 16-byte header, the "ELVE" magic number, the version
+ * of the format, the no. of floors and the no. of cars, as 4-byte integers,
+ * followed by a 16-byte record per event: the passenger as an 8-byte
+ * integer, the floor as a 4-byte integer, then the car and the event code as
+ * 2-byte integers. Integers are big-endian. Records are rendered into a
+ * reused buffer, so writing an event creates no objects.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class EventLogWriter extends ReportWriter {
+
+   public static final int MAGIC = 0x454c5645; // "ELVE", starts binary logs
+   public static final int VERSION = 1; // Version of the binary format
+   public static final short ENTER = 1; // Codes of the events
+   public static final short EXIT = 2;
+   public static final short TEMP_EXIT = 3;
+   public static final short SKIP = 4;
+   public static final short STAY = 5;
+
+   private static final int RECORD_SIZE = 16; // Bytes per binary record
+   private static final String HEADER = "car,floor,passenger,event\n";
+   private static final String[] EVENT_NAMES =
+      { null, "enter", "exit", "temp-exit", "skip", "stay" };
+
+   private final OutputStream output; // Destination of the log
+   private final boolean isBinary; // Whether records are binary, not CSV
+   private final boolean isContinued; // Whether the header was written
+   private final byte[] record; // Reused to render a record
+   private int carNum; // Car of the current stop
+   private int floorNum; // Floor of the current stop
+   private IOException error; // First error writing the log, if any
+
+   /**
+    * Class constructor.
+    *
+    * @param output Stream on which the log will be written.
+    * @param channel File the stream writes to, or null.
+    * @param isBinary Whether records are written in binary rather than CSV.
+    * @param isContinued Whether the log continues one whose header has been
+    * written already.
+    */
+   EventLogWriter(OutputStream output, FileChannel channel, boolean isBinary,
+      boolean isContinued) {
+
+      super(channel);
+      this.output = output;
+      this.isBinary = isBinary;
+      this.isContinued = isContinued;
+      this.record = new byte[64];
+      this.carNum = 1;
+      this.floorNum = 0;
+      this.error = null;
+   }
+
+   @Override
+   public void simulationStarted(int numFloors, int numCars) {
+      // A run resumed from a checkpoint starts again after the header
+      if (isContinued) {
+         return;
+      }
+      if (isBinary) {
+         putInt(0, MAGIC);
+         putInt(4, VERSION);
+         putInt(8, numFloors);
+         putInt(12, numCars);
+         write(RECORD_SIZE);
+      } else {
+         int length = 0;
+         for (int index = 0; index < HEADER.length(); index++) {
+            record[length++] = (byte) HEADER.charAt(index);
+         }
+         write(length);
+      }
+   }
+
+   @Override
+   public void floorStopped(int carNum, int floorNum) {
+      this.carNum = carNum;
+      this.floorNum = floorNum;
+   }
+
+   @Override
+   public void passengerExited(Passenger passenger) {
+      writeEvent(passenger, EXIT);
+   }
+
+   @Override
+   public void passengerTempExited(Passenger passenger) {
+      writeEvent(passenger, TEMP_EXIT);
+   }
+
+   @Override
+   public void elevatorEmptied() {
+   }
+
+   @Override
+   public void passengerEntered(Passenger passenger) {
+      writeEvent(passenger, ENTER);
+   }
+
+   @Override
+   public void passengerStayed(Passenger passenger) {
+      writeEvent(passenger, STAY);
+   }
+
+   @Override
+   public void passengerSkipped(Passenger passenger) {
+      writeEvent(passenger, SKIP);
+   }
+
+   @Override
+   public void elevatorFilled() {
+   }
+
+   @Override
+   public void directionReported(boolean isAscending) {
+   }
+
+   @Override
+   public void simulationEnded(SimulationStats stats) {
+   }
+
+   /**
+    * Writes the record of an event at the current stop.
+    *
+    * @param passenger Passenger of the event.
+    * @param event Code of the event.
+    */
+   private void writeEvent(Passenger passenger, short event) {
+      // Only passengers of a store have a number
+      long number = (passenger instanceof PassengerView)
+         ? ((PassengerView) passenger).getNumber() : -1;
+      if (isBinary) {
+         putInt(0, (int) (number >>> 32));
+         putInt(4, (int) number);
+         putInt(8, floorNum);
+         putInt(12, (carNum << 16) | event);
+         write(RECORD_SIZE);
+      } else {
+         int length = putNumber(0, carNum);
+         record[length++] = ',';
+         length = putNumber(length, floorNum);
+         record[length++] = ',';
+         length = putNumber(length, number);
+         record[length++] = ',';
+         String name = EVENT_NAMES[event];
+         for (int index = 0; index < name.length(); index++) {
+            record[length++] = (byte) name.charAt(index);
+         }
+         record[length++] = '\n';
+         write(length);
+      }
+   }
+
+   /**
+    * Puts a big-endian 4-byte integer in the record.
+    */
+   private void putInt(int offset, int value) {
+      record[offset] = (byte) (value >>> 24);
+      record[offset + 1] = (byte) (value >>> 16);
+      record[offset + 2] = (byte) (value >>> 8);
+      record[offset + 3] = (byte) value;
+   }
+
+   /**
+    * Puts the decimal digits of a number in the record without creating a
+    * string.
+    *
+    * @param offset Index in the record of the first digit.
+    * @param number Number to put.
+    * @return Index in the record past the last digit.
+    */
+   private int putNumber(int offset, long number) {
+      if (number < 0) {
+         record[offset++] = '-';
+      }
+      // Digits are rendered from the lowest, as negative values, so that the
+      // lowest long value needs no special case
+      long value = (number < 0) ? number : -number;
+      int end = offset;
+      do {
+         record[end++] = (byte) ('0' - value % 10);
+         value /= 10;
+      } while (value < 0);
+      for (int low = offset, high = end - 1; low < high; low++, high--) {
+         byte digit = record[low];
+         record[low] = record[high];
+         record[high] = digit;
+      }
+      return end;
+   }
+
+   /**
+    * Writes the first bytes of the record to the log, unless the log could
+    * not be written earlier.
+    *
+    * @param length No. of bytes to write.
+    */
+   private void write(int length) {
+      if (error != null) {
+         return;
+      }
+      try {
+         output.write(record, 0, length);
+      } catch (IOException e) {
+         error = e;
+      }
+   }
+
+   @Override
+   public void flush() {
+      if (error != null) {
+         return;
+      }
+      try {
+         output.flush();
+      } catch (IOException e) {
+         error = e;
+      }
+   }
+
+   /**
+    * Flushes and closes the log.
+    *
+    * @throws IOException If an I/O error occurred while writing the log.
+    */
+   @Override
+   public void close() throws IOException {
+      try {
+         output.close();
+      } catch (IOException e) {
+         if (error == null) {
+            error = e;
+         }
+      }
+      // Events can not throw, so the first error is surfaced at the end
+      if (error != null) {
+         throw error;
+      }
+   }
+}
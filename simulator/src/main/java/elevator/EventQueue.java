@@ -0,0 +1,204 @@
+/* File name : EventQueue.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This program holds the events scheduled by a simulation run in order of
+ * their time. Events scheduled for the same time come out in the order they
+ * were scheduled. An event is an int whose meaning is left to the caller, and
+ * the queue is a binary heap kept in arrays so scheduling an event creates no
+ * objects.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class EventQueue {
+
+   private long[] times; // Time of each event, in heap order
+   private long[] seqs; // Order in which each event was scheduled
+   private int[] events; // Events, in heap order
+   private int size; // No. of scheduled events
+   private long nextSeq; // Order of the next event scheduled
+
+   /**
+    * Class constructor for an empty queue.
+    */
+   public EventQueue() {
+      this.times = new long[16];
+      this.seqs = new long[16];
+      this.events = new int[16];
+      this.size = 0;
+      this.nextSeq = 0;
+   }
+
+   /**
+    * Schedules an event.
+    *
+    * @param time Time of the event.
+    * @param event Event to schedule.
+    * @return Order in which the event was scheduled, unique in the queue.
+    */
+   public long add(long time, int event) {
+      if (size == times.length) {
+         times = Arrays.copyOf(times, size * 2);
+         seqs = Arrays.copyOf(seqs, size * 2);
+         events = Arrays.copyOf(events, size * 2);
+      }
+
+      // Move the hole up until the parent comes first
+      long seq = nextSeq++;
+      int index = size++;
+      while (index > 0) {
+         int parent = (index - 1) >>> 1;
+         if (!isBefore(time, seq, parent)) {
+            break;
+         }
+         set(index, times[parent], seqs[parent], events[parent]);
+         index = parent;
+      }
+      set(index, time, seq, event);
+
+      return seq;
+   }
+
+   /**
+    * Removes the first event.
+    */
+   public void remove() {
+      if (size == 0) {
+         System.out.println("Empty Queue Exception");
+         return;
+      }
+
+      long time = times[--size];
+      long seq = seqs[size];
+      int event = events[size];
+
+      // Move the hole down until both children come after the last event
+      int index = 0;
+      int half = size >>> 1;
+      while (index < half) {
+         int child = 2 * index + 1;
+         if (child + 1 < size && isBefore(times[child + 1], seqs[child + 1], child)) {
+            child++;
+         }
+         if (isBefore(time, seq, child)) {
+            break;
+         }
+         set(index, times[child], seqs[child], events[child]);
+         index = child;
+      }
+      set(index, time, seq, event);
+   }
+
+   /**
+    * Gets the first event.
+    *
+    * @return The event.
+    */
+   public int peek() {
+      return events[0];
+   }
+
+   /**
+    * Gets the time of the first event.
+    *
+    * @return Time of the event.
+    */
+   public long peekTime() {
+      return times[0];
+   }
+
+   /**
+    * Gets the order in which the first event was scheduled.
+    *
+    * @return Order of the event.
+    */
+   public long peekSeq() {
+      return seqs[0];
+   }
+
+   /**
+    * Removes every event.
+    */
+   public void clear() {
+      size = 0;
+      nextSeq = 0;
+   }
+
+   /**
+    * Writes the scheduled events in heap order, along with the order of the
+    * next event scheduled.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      output.writeInt(size);
+      output.writeLong(nextSeq);
+      for (int index = 0; index < size; index++) {
+         output.writeLong(times[index]);
+         output.writeLong(seqs[index]);
+         output.writeInt(events[index]);
+      }
+   }
+
+   /**
+    * Replaces the scheduled events with the ones written by writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException {
+      int numEvents = input.readInt();
+      if (numEvents > times.length) {
+         times = new long[numEvents];
+         seqs = new long[numEvents];
+         events = new int[numEvents];
+      }
+      nextSeq = input.readLong();
+      for (int index = 0; index < numEvents; index++) {
+         set(index, input.readLong(), input.readLong(), input.readInt());
+      }
+      size = numEvents;
+   }
+
+   /**
+    * Gets the number of scheduled events.
+    *
+    * @return No. of events.
+    */
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether no event is scheduled.
+    *
+    * @return Boolean indicating if the queue is empty.
+    */
+   public boolean isEmpty() {
+      return size == 0;
+   }
+
+   /**
+    * Indicates whether an event comes before the one at the index.
+    */
+   private boolean isBefore(long time, long seq, int index) {
+      return time < times[index] || (time == times[index] && seq < seqs[index]);
+   }
+
+   /**
+    * Places an event at the index.
+    */
+   private void set(int index, long time, long seq, int event) {
+      times[index] = time;
+      seqs[index] = seq;
+      events[index] = event;
+   }
+}
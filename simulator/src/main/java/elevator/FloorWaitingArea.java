@@ -0,0 +1,123 @@
+/* File name : FloorWaitingArea.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * This program keeps the people waiting for the elevator in a separate line
+ * for each floor. When the elevator stops at a floor, everyone waiting there
+ * can get in regardless of the order of the passenger data, and the floors
+ * where people are waiting are known without looking at every person.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class FloorWaitingArea implements WaitingArea {
+
+   private final PassengerStore store; // Data of the people waiting
+   private final IndexQueue[] floorQueues; // Line of people on each floor
+   private final BitSet waitingFloors; // Floor nos. where people are waiting
+   private int size; // Counts the people waiting on all floors
+
+   /**
+    * Class constructor.
+    *
+    * @param numFloors Number of floors in the building.
+    * @param store Store holding the people waiting.
+    */
+   public FloorWaitingArea(int numFloors, PassengerStore store) {
+      this.store = store;
+      this.floorQueues = new IndexQueue[numFloors];
+      for (int i = 0; i < numFloors; i++) {
+         this.floorQueues[i] = new IndexQueue(store);
+      }
+      this.waitingFloors = new BitSet(numFloors + 1);
+      this.size = 0;
+   }
+
+   @Override
+   public void add(int passenger) {
+      int floorNum = store.getFloorEntered(passenger);
+      floorQueues[floorNum - 1].enqueue(passenger);
+      waitingFloors.set(floorNum);
+      size++;
+   }
+
+   @Override
+   public void clear() {
+      for (int floorNum = waitingFloors.nextSetBit(1); floorNum > 0;
+         floorNum = waitingFloors.nextSetBit(floorNum + 1)) {
+         floorQueues[floorNum - 1].clear();
+      }
+      waitingFloors.clear();
+      size = 0;
+   }
+
+   @Override
+   public boolean hasWaiting(int floorNum) {
+      return waitingFloors.get(floorNum);
+   }
+
+   @Override
+   public int board(int floorNum) {
+      IndexQueue floorQueue = floorQueues[floorNum - 1];
+      if (floorQueue.isEmpty()) {
+         return -1;
+      }
+
+      int passenger = floorQueue.dequeue();
+      if (floorQueue.isEmpty()) {
+         waitingFloors.clear(floorNum);
+      }
+      size--;
+
+      return passenger;
+   }
+
+   @Override
+   public int nextWaitingFloor(int floorNum, boolean isAscending) {
+      int next;
+      if (isAscending) {
+         next = waitingFloors.nextSetBit(floorNum + 1);
+      } else {
+         next = (floorNum > 1) ? waitingFloors.previousSetBit(floorNum - 1) : -1;
+      }
+
+      return (next > 0) ? next : -1;
+   }
+
+   @Override
+   public int getSize() {
+      return this.size;
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return getSize() == 0;
+   }
+
+   @Override
+   public void writeState(DataOutput output) throws IOException {
+      for (IndexQueue floorQueue : floorQueues) {
+         floorQueue.writeState(output);
+      }
+   }
+
+   @Override
+   public void readState(DataInput input) throws IOException {
+      waitingFloors.clear();
+      size = 0;
+      for (int floorNum = 1; floorNum <= floorQueues.length; floorNum++) {
+         IndexQueue floorQueue = floorQueues[floorNum - 1];
+         floorQueue.readState(input);
+         if (!floorQueue.isEmpty()) {
+            waitingFloors.set(floorNum);
+            size += floorQueue.getSize();
+         }
+      }
+   }
+}
@@ -0,0 +1,140 @@
+/* File name : IndexQueue.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program implements a Queue ADT of passenger indices. Passengers are
+ * chained through the links of their PassengerStore, so a passenger can be
+ * in only one queue or elevator at a time and enqueueing creates no objects.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class IndexQueue {
+
+   private final PassengerStore store; // Holds the links between passengers
+   private int head; // Index of the passenger in front, -1 if empty
+   private int tail; // Index of the passenger at the back, -1 if empty
+   private int size; // Counts number of passengers in the Queue
+
+   /**
+    * Class constructor.
+    *
+    * @param store Store holding the passengers.
+    */
+   public IndexQueue(PassengerStore store) {
+      this.store = store;
+      this.head = -1;
+      this.tail = -1;
+      this.size = 0;
+   }
+
+   /**
+    * Adds the passenger to the back of the Queue.
+    *
+    * @param passenger Index of the passenger.
+    */
+   public void enqueue(int passenger) {
+      store.setLink(passenger, -1);
+      if (isEmpty()) {
+         head = passenger;
+      } else {
+         store.setLink(tail, passenger);
+      }
+      tail = passenger;
+      this.size++;
+   }
+
+   /**
+    * Removes and returns the passenger in front of the Queue.
+    *
+    * @return Index of the passenger, -1 if the Queue is empty.
+    */
+   public int dequeue() {
+      // -1 is returned if the Queue is empty to keep the program running
+      if (isEmpty()) {
+         System.out.println("Empty Queue Exception");
+         return -1;
+      }
+
+      int passenger = head;
+      head = store.getLink(passenger);
+      if (head < 0) {
+         tail = -1;
+      }
+      store.setLink(passenger, -1);
+      this.size--;
+
+      return passenger;
+   }
+
+   /**
+    * Gets the passenger in front of the Queue.
+    *
+    * @return Index of the passenger, -1 if the Queue is empty.
+    */
+   public int peek() {
+      if (isEmpty()) {
+         System.out.println("Empty Queue Exception");
+         return -1;
+      }
+
+      return head;
+   }
+
+   /**
+    * Writes the front and back of the Queue; the links between them are kept
+    * by the store.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      output.writeInt(head);
+      output.writeInt(tail);
+      output.writeInt(size);
+   }
+
+   /**
+    * Replaces the Queue with the one written by writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException {
+      head = input.readInt();
+      tail = input.readInt();
+      size = input.readInt();
+   }
+
+   /**
+    * Removes every passenger from the Queue.
+    */
+   public void clear() {
+      head = -1;
+      tail = -1;
+      size = 0;
+   }
+
+   /**
+    * Gets the number of passengers in the Queue.
+    *
+    * @return This Queue's size.
+    */
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether the Queue is empty.
+    *
+    * @return Boolean indicating if this Queue has no passengers.
+    */
+   public boolean isEmpty() {
+      return getSize() == 0;
+   }
+}
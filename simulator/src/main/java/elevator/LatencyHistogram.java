@@ -0,0 +1,222 @@
+/* File name : LatencyHistogram.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This program counts latencies, such as the time passengers wait for the
+ * elevator, in log-linear buckets. Latencies below 64 have a bucket each and
+ * every doubling above that is split into 32 buckets, so a percentile is
+ * exact for short latencies and within about 3% for long ones. Recording a
+ * latency takes constant time and no memory, however many are recorded. Any
+ * other non-negative quantity, such as the riders boarding at a stop, can be
+ * counted the same way.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class LatencyHistogram {
+
+   private static final int LINEAR_BUCKETS = 64; // Latencies with own bucket
+   private static final int SUB_BUCKETS = 32; // Buckets per doubling above
+   private static final int NUM_BUCKETS = LINEAR_BUCKETS + 58 * SUB_BUCKETS;
+
+   private final long[] counts; // No. of latencies in each bucket
+   private long count; // No. of latencies recorded
+   private long sum; // Total of the latencies recorded
+   private long max; // Longest latency recorded
+
+   /**
+    * Class constructor for an empty histogram.
+    */
+   public LatencyHistogram() {
+      this.counts = new long[NUM_BUCKETS];
+      this.count = 0;
+      this.sum = 0;
+      this.max = 0;
+   }
+
+   /**
+    * Records a latency.
+    *
+    * @param latency Latency, negative values count as 0.
+    */
+   public void record(long latency) {
+      latency = Math.max(0, latency);
+      counts[bucketOf(latency)]++;
+      count++;
+      sum += latency;
+      max = Math.max(max, latency);
+   }
+
+   /**
+    * Adds every latency recorded by another histogram to this one.
+    *
+    * @param other Histogram to add.
+    */
+   public void add(LatencyHistogram other) {
+      for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+         counts[bucket] += other.counts[bucket];
+      }
+      count += other.count;
+      sum += other.sum;
+      max = Math.max(max, other.max);
+   }
+
+   /**
+    * Removes every latency recorded.
+    */
+   public void reset() {
+      Arrays.fill(counts, 0);
+      count = 0;
+      sum = 0;
+      max = 0;
+   }
+
+   /**
+    * Gets the number of latencies recorded.
+    *
+    * @return No. of latencies.
+    */
+   public long getCount() {
+      return this.count;
+   }
+
+   /**
+    * Gets the total of the latencies recorded.
+    *
+    * @return Sum of the latencies.
+    */
+   public long getSum() {
+      return this.sum;
+   }
+
+   /**
+    * Gets the average of the latencies recorded.
+    *
+    * @return Mean latency, 0 if none was recorded.
+    */
+   public double getMean() {
+      return (count == 0) ? 0 : (double) sum / count;
+   }
+
+   /**
+    * Gets the longest latency recorded.
+    *
+    * @return Longest latency, 0 if none was recorded.
+    */
+   public long getMax() {
+      return this.max;
+   }
+
+   /**
+    * Gets the latency that the given percentage of the recorded latencies
+    * does not exceed, rounded up to the end of its bucket.
+    *
+    * @param percentile Percentage between 0 and 100.
+    * @return Latency, 0 if none was recorded.
+    */
+   public long getPercentile(double percentile) {
+      if (count == 0) {
+         return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+         seen += counts[bucket];
+         if (seen >= rank) {
+            return Math.min(max, highestOf(bucket));
+         }
+      }
+      return max;
+   }
+
+   /**
+    * Copies the histogram.
+    *
+    * @return A histogram with the same latencies.
+    */
+   public LatencyHistogram copy() {
+      LatencyHistogram copy = new LatencyHistogram();
+      copy.add(this);
+      return copy;
+   }
+
+   /**
+    * Writes the histogram in a compact form, listing only the buckets that
+    * counted a latency.
+    *
+    * @param output Destination of the histogram.
+    * @throws IOException If the histogram can not be written.
+    */
+   public void writeTo(DataOutput output) throws IOException {
+      int numUsed = 0;
+      for (long bucketCount : counts) {
+         if (bucketCount > 0) {
+            numUsed++;
+         }
+      }
+      output.writeLong(count);
+      output.writeLong(sum);
+      output.writeLong(max);
+      output.writeInt(numUsed);
+      for (int bucket = 0; bucket < NUM_BUCKETS; bucket++) {
+         if (counts[bucket] > 0) {
+            output.writeShort(bucket);
+            output.writeLong(counts[bucket]);
+         }
+      }
+   }
+
+   /**
+    * Reads a histogram written by writeTo.
+    *
+    * @param input Source of the histogram.
+    * @return The histogram read.
+    * @throws IOException If the histogram can not be read or is damaged.
+    */
+   public static LatencyHistogram readFrom(DataInput input) throws IOException {
+      LatencyHistogram histogram = new LatencyHistogram();
+      histogram.count = input.readLong();
+      histogram.sum = input.readLong();
+      histogram.max = input.readLong();
+      int numUsed = input.readInt();
+      for (int index = 0; index < numUsed; index++) {
+         int bucket = input.readUnsignedShort();
+         if (bucket >= NUM_BUCKETS) {
+            throw new IOException("Damaged histogram");
+         }
+         histogram.counts[bucket] = input.readLong();
+      }
+      return histogram;
+   }
+
+   /**
+    * Gets the index of the bucket counting the latency.
+    */
+   private static int bucketOf(long latency) {
+      if (latency < LINEAR_BUCKETS) {
+         return (int) latency;
+      }
+      int shift = 58 - Long.numberOfLeadingZeros(latency);
+      int top = (int) (latency >>> shift);
+      return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+   }
+
+   /**
+    * Gets the longest latency counted by the bucket.
+    */
+   private static long highestOf(int bucket) {
+      if (bucket < LINEAR_BUCKETS) {
+         return bucket;
+      }
+      int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+      long top = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+      return ((top + 1) << shift) - 1;
+   }
+}
@@ -0,0 +1,159 @@
+/* File name : LatencyRecorder.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program passes every simulation event on to another listener and, on
+ * the way, records how long each passenger waited for the elevator and how
+ * long they rode it. A passenger waits from their arrival time until they get
+ * in, and rides until they exit at their destination; getting out for a
+ * moment to let others out does not end the ride.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+class LatencyRecorder implements SimulationListener {
+
+   private final LatencyHistogram waitTimes; // Time from arrival to boarding
+   private final LatencyHistogram rideTimes; // Time from boarding to exit
+   private SimulationListener listener; // Receives every event
+   private long now; // Time of the events being passed on
+
+   /**
+    * Class constructor.
+    */
+   LatencyRecorder() {
+      this.waitTimes = new LatencyHistogram();
+      this.rideTimes = new LatencyHistogram();
+      this.listener = null;
+      this.now = 0;
+   }
+
+   /**
+    * Removes the recorded latencies and sets the listener of a new run.
+    *
+    * @param listener Listener receiving every event.
+    */
+   void reset(SimulationListener listener) {
+      this.listener = listener;
+      this.now = 0;
+      waitTimes.reset();
+      rideTimes.reset();
+   }
+
+   /**
+    * Sets the time of the events that follow.
+    *
+    * @param now Current time.
+    */
+   void setTime(long now) {
+      this.now = now;
+   }
+
+   /**
+    * Gets the time passengers waited for the elevator.
+    *
+    * @return Wait times.
+    */
+   LatencyHistogram getWaitTimes() {
+      return this.waitTimes;
+   }
+
+   /**
+    * Gets the time passengers rode the elevator.
+    *
+    * @return Ride times.
+    */
+   LatencyHistogram getRideTimes() {
+      return this.rideTimes;
+   }
+
+   /**
+    * Writes the wait and ride times recorded so far for a checkpoint.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      waitTimes.writeTo(output);
+      rideTimes.writeTo(output);
+   }
+
+   /**
+    * Replaces the wait and ride times with the ones written by writeState
+    * and passes events on to another listener.
+    *
+    * @param listener Listener receiving every event.
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(SimulationListener listener, DataInput input)
+      throws IOException {
+
+      reset(listener);
+      waitTimes.add(LatencyHistogram.readFrom(input));
+      rideTimes.add(LatencyHistogram.readFrom(input));
+   }
+
+   @Override
+   public void simulationStarted(int numFloors, int numCars) {
+      listener.simulationStarted(numFloors, numCars);
+   }
+
+   @Override
+   public void floorStopped(int carNum, int floorNum) {
+      listener.floorStopped(carNum, floorNum);
+   }
+
+   @Override
+   public void passengerExited(Passenger passenger) {
+      rideTimes.record(now - passenger.getBoardTime());
+      listener.passengerExited(passenger);
+   }
+
+   @Override
+   public void passengerTempExited(Passenger passenger) {
+      listener.passengerTempExited(passenger);
+   }
+
+   @Override
+   public void elevatorEmptied() {
+      listener.elevatorEmptied();
+   }
+
+   @Override
+   public void passengerEntered(Passenger passenger) {
+      passenger.setBoardTime(now);
+      waitTimes.record(now - passenger.getArrivalTime());
+      listener.passengerEntered(passenger);
+   }
+
+   @Override
+   public void passengerStayed(Passenger passenger) {
+      listener.passengerStayed(passenger);
+   }
+
+   @Override
+   public void passengerSkipped(Passenger passenger) {
+      listener.passengerSkipped(passenger);
+   }
+
+   @Override
+   public void elevatorFilled() {
+      listener.elevatorFilled();
+   }
+
+   @Override
+   public void directionReported(boolean isAscending) {
+      listener.directionReported(isAscending);
+   }
+
+   @Override
+   public void simulationEnded(SimulationStats stats) {
+      listener.simulationEnded(stats);
+   }
+}
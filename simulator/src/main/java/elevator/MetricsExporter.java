@@ -0,0 +1,409 @@
+/* File name : MetricsExporter.java */
+package elevator;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.file.*;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This program publishes the metrics of one or more simulation engines. The
+ * metrics of every registered engine are summed into a snapshot, which is
+ * dumped to a file at a fixed interval and once more when the exporter is
+ * closed, and which backs the attributes of an MBean. A file whose name ends
+ * with .json receives a JSON object; any other file receives the Prometheus
+ * text exposition format, so it can be read by a node exporter's textfile
+ * collector. Each dump replaces the file at once, so readers never see a
+ * partial dump.
+ *
+ * The engines keep updating their metrics while the exporter reads them; a
+ * snapshot is therefore only consistent once the runs have ended.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class MetricsExporter implements MetricsExporterMBean, Closeable {
+
+   public static final String OBJECT_NAME = "elevator:type=SimulationMetrics";
+
+   private final int numFloors; // Floors of the building
+   private final List<SimulationMetrics> sources; // Metrics of each engine
+   private final String fileName; // File receiving dumps, null if none
+   private ScheduledExecutorService timer; // Dumps the file periodically
+   private ObjectName objectName; // Name of the MBean, null if unpublished
+
+   /**
+    * Class constructor for an exporter that neither dumps nor publishes the
+    * metrics until started.
+    *
+    * @param numFloors Number of floors in the building.
+    * @param fileName File receiving the dumps, null if there is none.
+    */
+   public MetricsExporter(int numFloors, String fileName) {
+      this.numFloors = numFloors;
+      this.sources = new CopyOnWriteArrayList<>();
+      this.fileName = fileName;
+      this.timer = null;
+      this.objectName = null;
+   }
+
+   /**
+    * Creates and starts the exporter asked for by the settings.
+    *
+    * @param options Settings of the run.
+    * @return Started exporter, null if metrics are not collected.
+    * @throws IOException If the MBean can not be registered.
+    */
+   public static MetricsExporter start(SimulationOptions options)
+      throws IOException {
+
+      if (!options.hasMetrics()) {
+         return null;
+      }
+
+      MetricsExporter exporter = new MetricsExporter(options.getNumFloors(),
+         options.getMetricsFileName());
+      if (options.isJmx()) {
+         exporter.publish();
+      }
+      if (options.getMetricsFileName() != null) {
+         exporter.schedule(options.getMetricsInterval());
+      }
+      return exporter;
+   }
+
+   /**
+    * Adds the metrics of an engine to the ones exported.
+    *
+    * @param metrics Metrics of the engine.
+    */
+   public void register(SimulationMetrics metrics) {
+      sources.add(metrics);
+   }
+
+   /**
+    * Registers the exporter with the platform MBean server.
+    *
+    * @throws IOException If the MBean can not be registered.
+    */
+   public void publish() throws IOException {
+      try {
+         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+         objectName = new ObjectName(OBJECT_NAME);
+         if (server.isRegistered(objectName)) {
+            server.unregisterMBean(objectName);
+         }
+         server.registerMBean(this, objectName);
+      } catch (JMException e) {
+         objectName = null;
+         throw new IOException("Metrics could not be published " + e, e);
+      }
+   }
+
+   /**
+    * Dumps the metrics to the file at a fixed interval, on a daemon thread
+    * that does not keep the program running.
+    *
+    * @param intervalSeconds Seconds between dumps.
+    */
+   public void schedule(int intervalSeconds) {
+      timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+         Thread thread = new Thread(runnable, "metrics-exporter");
+         thread.setDaemon(true);
+         return thread;
+      });
+      timer.scheduleAtFixedRate(() -> {
+         // A failed dump is reported and retried at the next interval
+         try {
+            dump();
+         } catch (IOException e) {
+            System.out.println("An I/O Error Occurred " + e);
+         }
+      }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+   }
+
+   /**
+    * Sums the metrics of every registered engine.
+    *
+    * @return New metrics holding the sums.
+    */
+   public SimulationMetrics snapshot() {
+      SimulationMetrics total = new SimulationMetrics(numFloors);
+      for (SimulationMetrics metrics : sources) {
+         total.add(metrics);
+      }
+      return total;
+   }
+
+   /**
+    * Writes a snapshot of the metrics to the file, replacing its contents.
+    *
+    * @throws IOException If the file can not be written.
+    */
+   public synchronized void dump() throws IOException {
+      if (fileName == null) {
+         return;
+      }
+
+      Path target = Paths.get(fileName).toAbsolutePath();
+      Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+      try (PrintWriter output = new PrintWriter(
+            new BufferedWriter(new FileWriter(temp.toFile())))) {
+         if (fileName.endsWith(".json")) {
+            writeJson(snapshot(), output);
+         } else {
+            writePrometheus(snapshot(), output);
+         }
+         if (output.checkError()) {
+            throw new IOException("Metrics could not be written to " + temp);
+         }
+      }
+      try {
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+         Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   /**
+    * Stops the periodic dumps, writes the final dump and unregisters the
+    * MBean.
+    *
+    * @throws IOException If the final dump can not be written.
+    */
+   @Override
+   public void close() throws IOException {
+      if (timer != null) {
+         timer.shutdownNow();
+         timer = null;
+      }
+      try {
+         dump();
+      } finally {
+         if (objectName != null) {
+            try {
+               ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            } catch (JMException e) {
+               // The MBean is gone along with the program
+            }
+            objectName = null;
+         }
+      }
+   }
+
+   /**
+    * Writes the metrics as a JSON object.
+    *
+    * @param metrics Metrics to write.
+    * @param output Writer receiving the object.
+    */
+   public static void writeJson(SimulationMetrics metrics, PrintWriter output) {
+      output.print("{\n");
+      output.printf(Locale.ROOT, "  \"runs\": %d,%n", metrics.getRuns());
+      output.printf(Locale.ROOT, "  \"stops\": %d,%n", metrics.getStops());
+      writeJsonArray("stopsPerFloor", metrics.getStopsPerFloor(), output);
+      writeJsonArray("queueDepth", metrics.getQueueDepths(), output);
+      writeJsonArray("maxQueueDepth", metrics.getMaxQueueDepths(), output);
+      writeJsonHistogram("exitedPerStop", metrics.getExitedPerStop(), output);
+      writeJsonHistogram("boardedPerStop", metrics.getBoardedPerStop(), output);
+      writeJsonHistogram("tempExitsPerStop", metrics.getTempExitsPerStop(),
+         output);
+      writeJsonHistogram("occupancy", metrics.getOccupancy(), output);
+      output.printf(Locale.ROOT, "  \"meanOccupancy\": %.3f,%n",
+         metrics.getMeanOccupancy());
+      output.printf(Locale.ROOT, "  \"phaseMillis\": {\"parse\": %.3f, "
+         + "\"simulate\": %.3f, \"write\": %.3f}%n",
+         metrics.getParseNanos() / 1e6, metrics.getSimulateNanos() / 1e6,
+         metrics.getWriteNanos() / 1e6);
+      output.print("}\n");
+   }
+
+   /**
+    * Writes the metrics in the Prometheus text exposition format.
+    *
+    * @param metrics Metrics to write.
+    * @param output Writer receiving the metrics.
+    */
+   public static void writePrometheus(SimulationMetrics metrics,
+      PrintWriter output) {
+
+      writePrometheusHeader("elevator_runs_total", "counter",
+         "Simulation runs started.", output);
+      output.printf(Locale.ROOT, "elevator_runs_total %d%n", metrics.getRuns());
+      writePrometheusHeader("elevator_stops_total", "counter",
+         "Stops where people exited or waited, by floor.", output);
+      writePrometheusFloors("elevator_stops_total", metrics.getStopsPerFloor(),
+         output);
+      writePrometheusHeader("elevator_queue_depth", "gauge",
+         "People waiting, by floor.", output);
+      writePrometheusFloors("elevator_queue_depth", metrics.getQueueDepths(),
+         output);
+      writePrometheusHeader("elevator_queue_depth_max", "gauge",
+         "Most people waiting at once, by floor.", output);
+      writePrometheusFloors("elevator_queue_depth_max",
+         metrics.getMaxQueueDepths(), output);
+      writePrometheusSummary("elevator_exited_per_stop",
+         "Riders getting off at their destination at each stop.",
+         metrics.getExitedPerStop(), output);
+      writePrometheusSummary("elevator_boarded_per_stop",
+         "Riders getting in at each stop.", metrics.getBoardedPerStop(), output);
+      writePrometheusSummary("elevator_temp_exits_per_stop",
+         "Riders getting off temporarily at each stop.",
+         metrics.getTempExitsPerStop(), output);
+      writePrometheusSummary("elevator_occupancy",
+         "Riders in a car as it leaves a floor.", metrics.getOccupancy(),
+         output);
+      writePrometheusHeader("elevator_occupancy_mean", "gauge",
+         "Riders in a car, weighted by the time they rode.", output);
+      output.printf(Locale.ROOT, "elevator_occupancy_mean %.3f%n",
+         metrics.getMeanOccupancy());
+      writePrometheusHeader("elevator_phase_seconds_total", "counter",
+         "Time spent in each phase of the runs.", output);
+      output.printf(Locale.ROOT,
+         "elevator_phase_seconds_total{phase=\"parse\"} %.6f%n",
+         metrics.getParseNanos() / 1e9);
+      output.printf(Locale.ROOT,
+         "elevator_phase_seconds_total{phase=\"simulate\"} %.6f%n",
+         metrics.getSimulateNanos() / 1e9);
+      output.printf(Locale.ROOT,
+         "elevator_phase_seconds_total{phase=\"write\"} %.6f%n",
+         metrics.getWriteNanos() / 1e9);
+   }
+
+   @Override
+   public long getRuns() {
+      return snapshot().getRuns();
+   }
+
+   @Override
+   public long getStops() {
+      return snapshot().getStops();
+   }
+
+   @Override
+   public long[] getStopsPerFloor() {
+      return snapshot().getStopsPerFloor();
+   }
+
+   @Override
+   public long[] getQueueDepths() {
+      return snapshot().getQueueDepths();
+   }
+
+   @Override
+   public long[] getMaxQueueDepths() {
+      return snapshot().getMaxQueueDepths();
+   }
+
+   @Override
+   public double getMeanExitedPerStop() {
+      return snapshot().getExitedPerStop().getMean();
+   }
+
+   @Override
+   public double getMeanBoardedPerStop() {
+      return snapshot().getBoardedPerStop().getMean();
+   }
+
+   @Override
+   public double getMeanTempExitsPerStop() {
+      return snapshot().getTempExitsPerStop().getMean();
+   }
+
+   @Override
+   public double getMeanOccupancy() {
+      return snapshot().getMeanOccupancy();
+   }
+
+   @Override
+   public double getParseMillis() {
+      return snapshot().getParseNanos() / 1e6;
+   }
+
+   @Override
+   public double getSimulateMillis() {
+      return snapshot().getSimulateNanos() / 1e6;
+   }
+
+   @Override
+   public double getWriteMillis() {
+      return snapshot().getWriteNanos() / 1e6;
+   }
+
+   /**
+    * Writes a named array of numbers as a member of a JSON object.
+    */
+   private static void writeJsonArray(String name, long[] values,
+      PrintWriter output) {
+
+      output.print("  \"" + name + "\": [");
+      for (int index = 0; index < values.length; index++) {
+         output.print((index == 0) ? "" : ", ");
+         output.print(values[index]);
+      }
+      output.print("],\n");
+   }
+
+   /**
+    * Writes the count, mean, percentiles and max. of a histogram as a member
+    * of a JSON object.
+    */
+   private static void writeJsonHistogram(String name,
+      LatencyHistogram histogram, PrintWriter output) {
+
+      output.printf(Locale.ROOT, "  \"%s\": {\"count\": %d, \"mean\": %.3f, "
+         + "\"p50\": %d, \"p95\": %d, \"p99\": %d, \"max\": %d},%n", name,
+         histogram.getCount(), histogram.getMean(),
+         histogram.getPercentile(50), histogram.getPercentile(95),
+         histogram.getPercentile(99), histogram.getMax());
+   }
+
+   /**
+    * Writes the help and type lines of a Prometheus metric.
+    */
+   private static void writePrometheusHeader(String name, String type,
+      String help, PrintWriter output) {
+
+      output.print("# HELP " + name + " " + help + "\n");
+      output.print("# TYPE " + name + " " + type + "\n");
+   }
+
+   /**
+    * Writes one sample of a Prometheus metric for each floor.
+    */
+   private static void writePrometheusFloors(String name, long[] values,
+      PrintWriter output) {
+
+      for (int floor = 0; floor < values.length; floor++) {
+         output.printf(Locale.ROOT, "%s{floor=\"%d\"} %d%n", name, floor + 1,
+            values[floor]);
+      }
+   }
+
+   /**
+    * Writes a histogram as a Prometheus summary with its percentiles.
+    */
+   private static void writePrometheusSummary(String name, String help,
+      LatencyHistogram histogram, PrintWriter output) {
+
+      writePrometheusHeader(name, "summary", help, output);
+      output.printf(Locale.ROOT, "%s{quantile=\"0.5\"} %d%n", name,
+         histogram.getPercentile(50));
+      output.printf(Locale.ROOT, "%s{quantile=\"0.95\"} %d%n", name,
+         histogram.getPercentile(95));
+      output.printf(Locale.ROOT, "%s{quantile=\"0.99\"} %d%n", name,
+         histogram.getPercentile(99));
+      output.printf(Locale.ROOT, "%s_sum %d%n", name, histogram.getSum());
+      output.printf(Locale.ROOT, "%s_count %d%n", name, histogram.getCount());
+   }
+}
@@ -0,0 +1,98 @@
+/* File name : MetricsExporterMBean.java */
+package elevator;
+
+/**
+ * This program defines the attributes a MetricsExporter publishes over JMX.
+ * Every attribute is summed over the engines registered with the exporter.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public interface MetricsExporterMBean {
+
+   /**
+    * Gets the number of runs started.
+    *
+    * @return Runs.
+    */
+   long getRuns();
+
+   /**
+    * Gets the number of stops where people exited or waited.
+    *
+    * @return Stops.
+    */
+   long getStops();
+
+   /**
+    * Gets the number of stops made at each floor.
+    *
+    * @return Stops, the first floor at index 0.
+    */
+   long[] getStopsPerFloor();
+
+   /**
+    * Gets the number of people waiting on each floor.
+    *
+    * @return People waiting, the first floor at index 0.
+    */
+   long[] getQueueDepths();
+
+   /**
+    * Gets the most people that waited on each floor at once.
+    *
+    * @return Max. people waiting, the first floor at index 0.
+    */
+   long[] getMaxQueueDepths();
+
+   /**
+    * Gets the average number of riders getting off at each stop.
+    *
+    * @return Mean exits per stop.
+    */
+   double getMeanExitedPerStop();
+
+   /**
+    * Gets the average number of riders getting in at each stop.
+    *
+    * @return Mean boardings per stop.
+    */
+   double getMeanBoardedPerStop();
+
+   /**
+    * Gets the average number of riders getting off temporarily at each stop.
+    *
+    * @return Mean temporary exits per stop.
+    */
+   double getMeanTempExitsPerStop();
+
+   /**
+    * Gets the average number of riders in a car, weighted by the time they
+    * rode.
+    *
+    * @return Mean occupancy over time.
+    */
+   double getMeanOccupancy();
+
+   /**
+    * Gets the time spent reading passengers.
+    *
+    * @return Elapsed time in milliseconds.
+    */
+   double getParseMillis();
+
+   /**
+    * Gets the time spent simulating.
+    *
+    * @return Elapsed time in milliseconds.
+    */
+   double getSimulateMillis();
+
+   /**
+    * Gets the time spent flushing reports.
+    *
+    * @return Elapsed time in milliseconds.
+    */
+   double getWriteMillis();
+}
@@ -0,0 +1,32 @@
+/* File name : NearestCarDispatcher.java */
+package elevator;
+
+/**
+ * This program assigns a hall call to the car closest to the floor, regardless
+ * of the direction the car travels in. Parked cars are preferred over moving
+ * cars at the same distance.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class NearestCarDispatcher implements Dispatcher {
+
+   @Override
+   public int assign(int floorNum, ElevatorBank bank) {
+      int best = 0;
+      int bestDistance = Integer.MAX_VALUE;
+
+      for (int car = 0; car < bank.getNumCars(); car++) {
+         // Doubling the distance leaves room to favor parked cars on a tie
+         int distance = 2 * Math.abs(bank.getFloor(car) - floorNum)
+            + (bank.isParked(car) ? 0 : 1);
+         if (distance < bestDistance) {
+            best = car;
+            bestDistance = distance;
+         }
+      }
+
+      return best;
+   }
+}
@@ -0,0 +1,324 @@
+/* File name : ParameterSweep.java */
+package elevator;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This program answers what-if questions about the building, such as how a
+ * larger car or more floors would serve the same passengers. It simulates a
+ * PassengerTrace once for every combination of the values of the swept
+ * options and writes a table comparing the results: passengers served and
+ * skipped, empty occasions, floor stops, the floors travelled when the
+ * motion or the number of cars is swept or reported and, when the runs are
+ * timed, the wait and ride time percentiles. The table holds nothing that
+ * changes from one sweep to the next, so sweeps of the same trace can be
+ * compared; the time taken by each run is written apart from it.
+ *
+ * The configurations are split among the threads of a ForkJoinPool. Every
+ * run creates its own SimulationEngine, so the elevators and waiting lines
+ * are not shared, while the passengers of the trace are read once and shared
+ * by all the runs without being copied.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class ParameterSweep {
+
+   private final List<String> names; // Swept options, without "--"
+   private final List<String[]> values; // Values of each configuration
+   private final List<SimulationOptions> configurations; // Settings of each run
+   private final SimulationStats[] results; // Data of each run, null if failed
+   private final String[] errors; // Why each run failed, null if it did not
+   private final long[] elapsedNanos; // Time taken by each run
+
+   /**
+    * Class constructor. The first swept option changes slowest from one
+    * configuration to the next.
+    *
+    * @param options Settings shared by every configuration, along with the
+    * swept options and their values.
+    */
+   public ParameterSweep(SimulationOptions options) {
+      Map<String, List<String>> sweeps = options.getSweeps();
+      this.names = new ArrayList<>(sweeps.keySet());
+      this.values = new ArrayList<>();
+      this.configurations = new ArrayList<>();
+      addConfigurations(options, sweeps, 0, new String[names.size()]);
+      this.results = new SimulationStats[configurations.size()];
+      this.errors = new String[configurations.size()];
+      this.elapsedNanos = new long[configurations.size()];
+   }
+
+   /**
+    * Adds every combination of the values of the options from the given one
+    * on to the settings.
+    */
+   private void addConfigurations(SimulationOptions options,
+      Map<String, List<String>> sweeps, int nameIndex, String[] combination) {
+
+      if (nameIndex == names.size()) {
+         values.add(combination.clone());
+         configurations.add(options);
+         return;
+      }
+      String name = names.get(nameIndex);
+      for (String value : sweeps.get(name)) {
+         combination[nameIndex] = value;
+         addConfigurations(options.with("--" + name, value), sweeps,
+            nameIndex + 1, combination);
+      }
+   }
+
+   /**
+    * Gets the number of configurations.
+    *
+    * @return No. of runs of the sweep.
+    */
+   public int getNumConfigurations() {
+      return configurations.size();
+   }
+
+   /**
+    * Gets the most floors of any configuration, which the passenger data is
+    * checked against.
+    *
+    * @return Highest no. of floors.
+    */
+   public int getNumFloors() {
+      int numFloors = 1;
+      for (SimulationOptions configuration : configurations) {
+         numFloors = Math.max(numFloors, configuration.getNumFloors());
+      }
+      return numFloors;
+   }
+
+   /**
+    * Simulates the trace in every configuration.
+    *
+    * @param trace Passengers shared by every run.
+    * @param parallelism Most runs at the same time.
+    * @return Time taken by the whole sweep, in nanoseconds.
+    */
+   public long run(PassengerTrace trace, int parallelism) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      long start = System.nanoTime();
+      try {
+         pool.invoke(new SweepTask(trace, 0, configurations.size()));
+      } finally {
+         pool.shutdown();
+      }
+      return System.nanoTime() - start;
+   }
+
+   /**
+    * Simulates the trace in one configuration. A building with fewer floors
+    * than the trace uses is reported instead of simulated.
+    *
+    * @param trace Passengers shared by every run.
+    * @param index Index of the configuration.
+    */
+   private void runConfiguration(PassengerTrace trace, int index) {
+      SimulationOptions configuration = configurations.get(index);
+      if (configuration.getNumFloors() < trace.getHighestFloor()) {
+         errors[index] = "needs at least " + trace.getHighestFloor() + " floors";
+         return;
+      }
+
+      long start = System.nanoTime();
+      try {
+         SimulationEngine engine = new SimulationEngine(configuration);
+         results[index] = engine.run(trace, new DiscardingListener());
+      } catch (RuntimeException e) {
+         errors[index] = e.toString();
+      }
+      elapsedNanos[index] = System.nanoTime() - start;
+   }
+
+   /**
+    * Writes a table with a row for each configuration: the values of the
+    * swept options followed by the results of the run. Latency columns are
+    * added if any run was timed, and the floors travelled if the motion or
+    * the number of cars is swept or any run reports them.
+    *
+    * @param output Writer receiving the table.
+    */
+   public void writeTable(PrintWriter output) {
+      boolean isTimed = false;
+      boolean isTravelReported = names.contains("motion")
+         || names.contains("cars");
+      for (SimulationStats stats : results) {
+         isTimed |= (stats != null && stats.isTimed());
+         isTravelReported |= (stats != null && stats.isTravelReported());
+      }
+
+      // Each swept option gets a column as wide as its longest value
+      int[] widths = new int[names.size()];
+      for (int column = 0; column < names.size(); column++) {
+         widths[column] = names.get(column).length();
+         for (String[] row : values) {
+            widths[column] = Math.max(widths[column], row[column].length());
+         }
+         output.print(pad(names.get(column), widths[column] + 2));
+      }
+      output.printf("%10s %10s %10s %10s", "Served", "Skipped", "Empty",
+         "Stops");
+      if (isTravelReported) {
+         output.printf(" %10s", "Travelled");
+      }
+      if (isTimed) {
+         output.printf(" %20s %20s", "Wait p50/p95/p99", "Ride p50/p95/p99");
+      }
+      output.print("\n");
+
+      for (int index = 0; index < configurations.size(); index++) {
+         for (int column = 0; column < names.size(); column++) {
+            output.print(pad(values.get(index)[column], widths[column] + 2));
+         }
+         SimulationStats stats = results[index];
+         if (stats == null) {
+            output.print(errors[index] + "\n");
+            continue;
+         }
+         output.printf("%10d %10d %10d %10d", stats.getTotalServed(),
+            stats.getTotalSkipped(), stats.getEmptyOccasions(),
+            stats.getFloorStops());
+         if (isTravelReported) {
+            output.printf(" %10d", stats.getFloorsTravelled());
+         }
+         if (isTimed) {
+            output.printf(" %20s %20s", percentiles(stats.getWaitTimes()),
+               percentiles(stats.getRideTimes()));
+         }
+         output.print("\n");
+      }
+   }
+
+   /**
+    * Writes the time taken by the run of each configuration, in
+    * milliseconds, after the values of its swept options.
+    *
+    * @param output Stream receiving the times.
+    */
+   public void writeTimes(PrintStream output) {
+      for (int index = 0; index < configurations.size(); index++) {
+         if (results[index] != null) {
+            output.printf("%s: %.1f ms%n",
+               String.join(" ", values.get(index)), elapsedNanos[index] / 1e6);
+         }
+      }
+   }
+
+   /**
+    * Pads the text with spaces on the right to the given width.
+    */
+   private static String pad(String text, int width) {
+      StringBuilder padded = new StringBuilder(text);
+      while (padded.length() < width) {
+         padded.append(' ');
+      }
+      return padded.toString();
+   }
+
+   /**
+    * Formats the 50th, 95th and 99th percentiles of the latencies.
+    */
+   private static String percentiles(LatencyHistogram latencies) {
+      return (latencies.getPercentile(50) + "/" + latencies.getPercentile(95)
+         + "/" + latencies.getPercentile(99));
+   }
+
+   /**
+    * This task simulates a range of configurations, splitting it in halves
+    * until a single configuration is left.
+    */
+   private class SweepTask extends RecursiveAction {
+
+      private static final long serialVersionUID = 1L;
+
+      private final PassengerTrace trace; // Passengers shared by every run
+      private final int start; // First configuration of the range
+      private final int end; // Configuration past the range
+
+      /**
+       * Class constructor.
+       *
+       * @param trace Passengers shared by every run.
+       * @param start Index of the first configuration.
+       * @param end Index past the last configuration.
+       */
+      SweepTask(PassengerTrace trace, int start, int end) {
+         this.trace = trace;
+         this.start = start;
+         this.end = end;
+      }
+
+      @Override
+      protected void compute() {
+         if (end - start == 1) {
+            runConfiguration(trace, start);
+            return;
+         }
+         int middle = (start + end) >>> 1;
+         invokeAll(new SweepTask(trace, start, middle),
+            new SweepTask(trace, middle, end));
+      }
+   }
+
+   /**
+    * This listener ignores every event, since a sweep only compares the
+    * aggregate data of its runs.
+    */
+   private static class DiscardingListener implements SimulationListener {
+
+      @Override
+      public void simulationStarted(int numFloors, int numCars) {
+      }
+
+      @Override
+      public void floorStopped(int carNum, int floorNum) {
+      }
+
+      @Override
+      public void passengerExited(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerTempExited(Passenger passenger) {
+      }
+
+      @Override
+      public void elevatorEmptied() {
+      }
+
+      @Override
+      public void passengerEntered(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerStayed(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerSkipped(Passenger passenger) {
+      }
+
+      @Override
+      public void elevatorFilled() {
+      }
+
+      @Override
+      public void directionReported(boolean isAscending) {
+      }
+
+      @Override
+      public void simulationEnded(SimulationStats stats) {
+      }
+   }
+}
@@ -1,4 +1,5 @@
 /* File name : Passenger.java */
+package elevator;
 
 /**
  * The Passenger program represents a person waiting for the elevator. A
@@ -14,6 +15,8 @@ class Passenger {
    private final String name; // First name of passenger, serves as identifier
    private final int floorEntered; // Floor no. where passenger initially waited
    private final int floorExited; // Floor no. of the passenger's destination
+   private final long arrivalTime; // Time the passenger started waiting
+   private long boardTime; // Time the passenger got in the elevator
    private int numTempExits; // Counts no. times passengers had to temp. exit
    private Passenger next; // Passenger infront of this passenger
    private Passenger previous; // Passenger behind this passenger
@@ -26,10 +29,25 @@ class Passenger {
     * @param floorExited Floor no. of the passenger's destination.
     */
    public Passenger(String name, int floorEntered, int floorExited) {
+      this(name, floorEntered, floorExited, 0);
+   }
+
+   /**
+    * Class constructor for a passenger who starts waiting at a given time.
+    *
+    * @param name First name of passenger.
+    * @param floorEntered Floor no. where passenger initially waited.
+    * @param floorExited Floor no. of the passenger's destination.
+    * @param arrivalTime Time the passenger started waiting.
+    */
+   public Passenger(String name, int floorEntered, int floorExited,
+      long arrivalTime) {
 
       this.name = name;
       this.floorEntered = floorEntered;
       this.floorExited = floorExited;
+      this.arrivalTime = arrivalTime;
+      this.boardTime = 0;
       this.numTempExits = 0;
       this.next = null;
       this.previous = null;
@@ -63,6 +81,33 @@ class Passenger {
       return this.floorExited;
    }
    
+   /**
+    * Gets the time the passenger started waiting for the elevator.
+    *
+    * @return This passenger's arrival time.
+    */
+   public long getArrivalTime() {
+      return this.arrivalTime;
+   }
+
+   /**
+    * Gets the time the passenger got in the elevator.
+    *
+    * @return This passenger's boarding time.
+    */
+   public long getBoardTime() {
+      return this.boardTime;
+   }
+
+   /**
+    * Sets the time the passenger got in the elevator.
+    *
+    * @param boardTime Boarding time.
+    */
+   public void setBoardTime(long boardTime) {
+      this.boardTime = boardTime;
+   }
+
    /**
     * Gets the number of times the passenger had to temporarily exit
     * to let other passengers in the elevator out.
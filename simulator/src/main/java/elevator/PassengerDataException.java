@@ -0,0 +1,48 @@
+/* File name : PassengerDataException.java */
+package elevator;
+
+/**
+ * Signals a row in the passenger data that can not be processed. The
+ * exception keeps the offending row so it can be reported next to the row
+ * and column number of the faulty value.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PassengerDataException extends Exception {
+
+   private static final long serialVersionUID = 1L;
+
+   private final String record; // Row of passenger data that failed
+
+   /**
+    * Class constructor.
+    *
+    * @param message Description of the faulty value and its position.
+    * @param record Row of passenger data containing the faulty value.
+    */
+   public PassengerDataException(String message, String record) {
+      super(message);
+      this.record = record;
+   }
+
+   /**
+    * Gets the row of passenger data that could not be processed.
+    *
+    * @return The faulty row as it appears in the input file.
+    */
+   public String getRecord() {
+      return this.record;
+   }
+
+   /**
+    * Gets the error text written to the output file i.e. the description of
+    * the faulty value followed by the row itself.
+    *
+    * @return The error report.
+    */
+   public String getReport() {
+      return getMessage() + "\n" + getRecord() + "\n";
+   }
+}
@@ -0,0 +1,719 @@
+/* File name : PassengerParser.java */
+package elevator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This program reads elevator passenger data by memory-mapping the input file
+ * and scanning its bytes directly. Each row holds a name followed by the floor
+ * no. where the passenger waited and the floor no. of their destination,
+ * separated by white space. Floor nos. must be between 1 and the number of
+ * floors in the building. An optional fourth column holds the time the
+ * passenger started waiting; times can not decrease from one row to the next,
+ * and a row without one arrives at the same time as the row before it.
+ * Comment rows starting with "//" and blank rows
+ * are ignored. Rows are returned one at a time in file order, and apart from
+ * the passenger's name no objects are created per row.
+ *
+ * The rows of a campus file start with one more column naming the building
+ * the passenger is in. Arrival times then only have to keep their order
+ * within each building, and a row without one arrives at the same time as
+ * the row before it in the same building.
+ *
+ * A parser can follow a file that is still being written, like tail -f: at
+ * the end of the file it waits for more rows, and the input ends once the
+ * file stopped growing for a while.
+ *
+ * The position of the next unread row can be saved with a checkpoint, and a
+ * parser of the same file can go on from there.
+ *
+ * Rows already in memory, such as a trace sent to a SimulationService, are
+ * scanned the same way without a file.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PassengerParser implements PassengerSource, Closeable {
+
+   private static final long WINDOW_SIZE = 1L << 28; // Bytes mapped at a time
+   private static final long NOT_AN_INTEGER = Long.MIN_VALUE;
+   private static final long POLL_MILLIS = 100; // Time between size checks
+   private static final int SAMPLE_SIZE = 1 << 16; // Bytes read by sizeHint
+
+   private final FileInputStream input; // Owner of the mapped channel, or null
+   private final FileChannel channel; // Channel of the input file, or null
+   private long fileSize; // No. of bytes of the input file read so far
+   private final Charset charset; // Charset used to decode names and rows
+   private final int numFloors; // Highest valid floor no.
+   private ByteBuffer buffer; // Currently mapped window of the file
+   private long bufferStart; // File offset of the first byte in the window
+   private int position; // Offset of the next unread byte in the window
+   private int rowNum; // Number of the next data row, comments excluded
+   private long arrivalTime; // Arrival time of the last data row
+   private int nameStart; // Offset of the name in the last data row
+   private int nameEnd; // Offset past the name in the last data row
+   private int floorEntered; // Starting floor no. of the last data row
+   private int floorExited; // Destination floor no. of the last data row
+   private byte[] scratch; // Reused to decode names
+   private byte[] nameBytes; // Reused to copy names to a store
+   private long followMillis; // Time to wait for more rows, 0 if none
+   private Runnable idleAction; // Run before waiting for more rows
+   private List<String> buildings; // Building names, null if no such column
+   private Map<String, Integer> buildingIndexes; // Index of each building
+   private long[] buildingTimes; // Arrival time of each building's last row
+   private byte[] buildingBytes; // Name of the last row's building
+   private int buildingLength; // No. of bytes in the last building name
+   private int building; // Index of the last data row's building
+
+   /**
+    * Class constructor for a five-story building.
+    *
+    * @param inFileName Name of file containing elevator passenger data.
+    * @throws FileNotFoundException If the file does not exist.
+    * @throws IOException If the file can not be mapped.
+    */
+   public PassengerParser(String inFileName) throws IOException {
+      this(inFileName, Elevator.DEFAULT_NUM_FLOORS);
+   }
+
+   /**
+    * Class constructor.
+    *
+    * @param inFileName Name of file containing elevator passenger data.
+    * @param numFloors Number of floors in the building.
+    * @throws FileNotFoundException If the file does not exist.
+    * @throws IOException If the file can not be mapped.
+    */
+   public PassengerParser(String inFileName, int numFloors) throws IOException {
+      this(new FileInputStream(inFileName), null, numFloors);
+      this.fileSize = channel.size();
+      map(0);
+   }
+
+   /**
+    * Class constructor for rows held in memory.
+    *
+    * @param data Bytes of the rows, which must not change while they are
+    * read.
+    * @param numFloors Number of floors in the building.
+    */
+   public PassengerParser(byte[] data, int numFloors) {
+      this(null, ByteBuffer.wrap(data), numFloors);
+   }
+
+   /**
+    * Class constructor for a file or for rows held in memory.
+    *
+    * @param input Input file, or null.
+    * @param data Bytes of the rows if there is no file.
+    * @param numFloors Number of floors in the building.
+    */
+   private PassengerParser(FileInputStream input, ByteBuffer data,
+      int numFloors) {
+
+      this.numFloors = numFloors;
+      this.input = input;
+      this.channel = (input != null) ? input.getChannel() : null;
+      this.charset = Charset.defaultCharset();
+      this.rowNum = 1;
+      this.arrivalTime = 0;
+      this.scratch = new byte[64];
+      this.nameBytes = new byte[64];
+      this.followMillis = 0;
+      this.idleAction = null;
+      this.buildings = null;
+      this.buildingIndexes = null;
+      this.buildingTimes = null;
+      this.buildingBytes = null;
+      this.buildingLength = -1;
+      this.building = -1;
+      // The rows in memory are a single window holding the whole input
+      this.buffer = data;
+      this.fileSize = (data != null) ? data.limit() : 0;
+      this.bufferStart = 0;
+      this.position = 0;
+   }
+
+   /**
+    * Makes the parser read the name of a building in the first column of
+    * every row, before the passenger's name. Building names become the names
+    * of files, so they can not hold path separators.
+    */
+   public void readBuildings() {
+      this.buildings = new ArrayList<>();
+      this.buildingIndexes = new HashMap<>();
+      this.buildingTimes = new long[16];
+      this.buildingBytes = new byte[16];
+   }
+
+   /**
+    * Gets the building of the last data row read.
+    *
+    * @return Index of the building in the list of buildings, -1 if no row was
+    * read or the rows have no building column.
+    */
+   public int getBuilding() {
+      return this.building;
+   }
+
+   /**
+    * Gets the buildings of the rows read so far, in the order they first
+    * appeared.
+    *
+    * @return Building names, empty if the rows have no building column.
+    */
+   public List<String> getBuildings() {
+      return (buildings == null) ? new ArrayList<>() : buildings;
+   }
+
+   /**
+    * Makes the parser wait for more rows at the end of the file, for input
+    * that is still being written. A row without a line terminator at the end
+    * of the file is only read once it is complete or the wait is over.
+    *
+    * @param followMillis Time without new rows after which the input ends.
+    * @param idleAction Action run each time the parser starts waiting, such
+    * as flushing the report, or null.
+    */
+   public void follow(long followMillis, Runnable idleAction) {
+      this.followMillis = followMillis;
+      this.idleAction = idleAction;
+   }
+
+   /**
+    * Returns a queue containing all the passenger data in the input file, in
+    * the same order as the rows in the file.
+    *
+    * @return Queue with passenger objects.
+    * @throws IOException If the file can not be read.
+    * @throws PassengerDataException If a row holds a value that can not be
+    * processed.
+    */
+   public PassengerQueue readAll() throws IOException, PassengerDataException {
+      PassengerQueue passengerQueue = new PassengerQueue();
+      Passenger passenger;
+
+      while ((passenger = next()) != null) {
+         passengerQueue.enqueue(passenger);
+      }
+
+      return passengerQueue;
+   }
+
+   /**
+    * Returns the passenger in the next data row of the input file.
+    *
+    * @return Next passenger, null if there are no more rows.
+    * @throws IOException If the file can not be read.
+    * @throws PassengerDataException If the row holds a value that can not be
+    * processed.
+    */
+   @Override
+   public Passenger next() throws IOException, PassengerDataException {
+      if (!readRow()) {
+         return null;
+      }
+
+      return new Passenger(decode(nameStart, nameEnd), floorEntered,
+         floorExited, arrivalTime);
+   }
+
+   /**
+    * Adds the passenger in the next data row of the input file to the store,
+    * copying the name straight from the file.
+    *
+    * @param store Store receiving the passenger.
+    * @return Index of the passenger, -1 if there are no more rows.
+    * @throws IOException If the file can not be read.
+    * @throws PassengerDataException If the row holds a value that can not be
+    * processed.
+    */
+   @Override
+   public int nextIndex(PassengerStore store)
+      throws IOException, PassengerDataException {
+
+      if (!readRow()) {
+         return -1;
+      }
+
+      // ASCII names are copied as they are, other names are decoded with
+      // the file's charset and stored in UTF-8
+      byte[] name = nameBytes;
+      int length = nameEnd - nameStart;
+      if (length > name.length) {
+         name = nameBytes = new byte[Math.max(length, name.length * 2)];
+      }
+      for (int index = 0; index < length; index++) {
+         byte b = buffer.get(nameStart + index);
+         if (b < 0) {
+            name = decode(nameStart, nameEnd).getBytes(StandardCharsets.UTF_8);
+            length = name.length;
+            break;
+         }
+         name[index] = b;
+      }
+
+      return store.add(name, 0, length, floorEntered, floorExited,
+         arrivalTime);
+   }
+
+   /**
+    * Estimates the number of rows left from the average length of the rows
+    * at the start of the window, so the file is not read twice. The estimate
+    * is exact when the sample holds every row left. A sixteenth is added so
+    * rows slightly longer than the sampled ones do not make a store grow
+    * near the end; a store still grows if the estimate falls short.
+    *
+    * @return Estimated no. of rows left, 0 if the sample holds no full row.
+    */
+   @Override
+   public int sizeHint() {
+      long numBytes = fileSize - (bufferStart + position);
+      int end = (int) Math.min(buffer.limit(), position + (long) SAMPLE_SIZE);
+      long numRows = 0;
+      for (int index = position; index < end; index++) {
+         if (buffer.get(index) == '\n') {
+            numRows++;
+         }
+      }
+      if (end - position >= numBytes) {
+         // Last row may have no terminator
+         return (int) Math.min(Integer.MAX_VALUE - 8, numRows + 1);
+      }
+      if (numRows == 0) {
+         return 0;
+      }
+      long estimate = numBytes * numRows / (end - position);
+      return (int) Math.min(Integer.MAX_VALUE - 8, estimate + (estimate >> 4));
+   }
+
+   /**
+    * Reads the next data row of the input file, keeping where its name is
+    * and the values of its other columns.
+    *
+    * @return Boolean indicating if a row was read, false at end of file.
+    * @throws IOException If the file can not be read.
+    * @throws PassengerDataException If the row holds a value that can not be
+    * processed.
+    */
+   private boolean readRow() throws IOException, PassengerDataException {
+      while (bufferStart + position < fileSize || waitForData()) {
+         // Window may move while looking for the end of the row, so the
+         // start of the row is only read afterwards
+         int lineEnd = findLineEnd();
+         int lineStart = position;
+         skipLineTerminator(lineEnd);
+
+         // Data file can contain comments so we ignore those lines.
+         // Also, input file may contain blank lines in between rows.
+         if (lineEnd == lineStart || isComment(lineStart, lineEnd)) {
+            continue;
+         }
+
+         int rowNameStart = skipWhiteSpace(lineStart, lineEnd);
+         int rowBuilding = -1;
+         int column = 2;
+         if (buildings != null) {
+            int buildingEnd = skipToken(rowNameStart, lineEnd);
+            if (buildingEnd == rowNameStart) {
+               continue;
+            }
+            rowBuilding = findBuilding(rowNameStart, buildingEnd);
+            if (rowBuilding < 0) {
+               throw error(" column 1 is not a building name.", lineStart,
+                  lineEnd);
+            }
+            rowNameStart = skipWhiteSpace(buildingEnd, lineEnd);
+            column = 3;
+         }
+         int rowNameEnd = skipToken(rowNameStart, lineEnd);
+         if (rowNameStart == rowNameEnd && buildings == null) {
+            continue;
+         }
+
+         // We check the values in the second and third columns...
+         // the values must be in the closed interval [1, floors] and have
+         // to be intergers.
+         int start = skipWhiteSpace(rowNameEnd, lineEnd);
+         int end = skipToken(start, lineEnd);
+         long rowFloorEntered = parseInteger(start, end);
+         if (rowFloorEntered == NOT_AN_INTEGER) {
+            throw error(" column " + column + " is not an integer.", lineStart,
+               lineEnd);
+         } else if (rowFloorEntered < 1) {
+            throw error(" column " + column + " can not be less than 1.",
+               lineStart, lineEnd);
+         } else if (rowFloorEntered > numFloors) {
+            throw error(" column " + column + " can not be greater than "
+               + numFloors + ".", lineStart, lineEnd);
+         }
+
+         start = skipWhiteSpace(end, lineEnd);
+         end = skipToken(start, lineEnd);
+         long rowFloorExited = parseInteger(start, end);
+         if (rowFloorExited == NOT_AN_INTEGER) {
+            throw error(" column " + (column + 1) + " is not an integer.",
+               lineStart, lineEnd);
+         } else if (rowFloorExited < 1) {
+            throw error(" column " + (column + 1) + " can not be less than 1.",
+               lineStart, lineEnd);
+         } else if (rowFloorExited > numFloors) {
+            // The column number has always been reported as 2 for this case
+            throw error(" column " + column + " can not be greater than "
+               + numFloors + ".", lineStart, lineEnd);
+         }
+
+         // Arrival time in the fourth column is optional, and follows the
+         // last row of the same building in a campus file
+         long lastTime = (rowBuilding < 0) ? arrivalTime
+            : buildingTimes[rowBuilding];
+         start = skipWhiteSpace(end, lineEnd);
+         end = skipToken(start, lineEnd);
+         if (start < end) {
+            long time = parseTime(start, end);
+            if (time < 0) {
+               throw error(" column " + (column + 2) + " is not a time.",
+                  lineStart, lineEnd);
+            } else if (time < lastTime) {
+               throw error(" column " + (column + 2) + " can not be less than "
+                  + lastTime + ".", lineStart, lineEnd);
+            }
+            lastTime = time;
+         }
+         arrivalTime = lastTime;
+         if (rowBuilding >= 0) {
+            buildingTimes[rowBuilding] = lastTime;
+         }
+
+         rowNum++;
+         nameStart = rowNameStart;
+         nameEnd = rowNameEnd;
+         floorEntered = (int) rowFloorEntered;
+         floorExited = (int) rowFloorExited;
+         return true;
+      }
+
+      return false;
+   }
+
+   /**
+    * Finds the building named in the range of the current row, adding it to
+    * the buildings if it is new. The building of the last row is checked
+    * first, so rows grouped by building are not decoded.
+    *
+    * @return Index of the building, -1 if the name can not be a file name.
+    */
+   private int findBuilding(int start, int end) {
+      int length = end - start;
+      if (length == buildingLength) {
+         int index = 0;
+         while (index < length && buffer.get(start + index) == buildingBytes[index]) {
+            index++;
+         }
+         if (index == length) {
+            return building;
+         }
+      }
+
+      String name = decode(start, end);
+      if (name.equals(".") || name.equals("..")
+         || name.indexOf('/') >= 0 || name.indexOf('\\') >= 0) {
+         return -1;
+      }
+      Integer index = buildingIndexes.get(name);
+      if (index == null) {
+         index = buildings.size();
+         buildings.add(name);
+         buildingIndexes.put(name, index);
+         if (index == buildingTimes.length) {
+            buildingTimes = Arrays.copyOf(buildingTimes, index * 2);
+         }
+      }
+
+      if (length > buildingBytes.length) {
+         buildingBytes = new byte[Math.max(length, buildingBytes.length * 2)];
+      }
+      for (int offset = 0; offset < length; offset++) {
+         buildingBytes[offset] = buffer.get(start + offset);
+      }
+      buildingLength = length;
+      building = index;
+      return index;
+   }
+
+   /**
+    * Writes the position of the next unread row, along with the row number
+    * and arrival time the rows after it are checked against.
+    *
+    * @param output Destination of the position.
+    * @throws IOException If the position can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      output.writeLong(bufferStart + position);
+      output.writeInt(rowNum);
+      output.writeLong(arrivalTime);
+   }
+
+   /**
+    * Moves to the position written by writeState.
+    *
+    * @param input Source of the position.
+    * @throws IOException If the position can not be read or is past the end
+    * of the file.
+    */
+   void readState(DataInput input) throws IOException {
+      long offset = input.readLong();
+      int savedRowNum = input.readInt();
+      long savedArrivalTime = input.readLong();
+      if (channel == null) {
+         throw new IOException("Checkpoints need an input file");
+      }
+      fileSize = channel.size();
+      if (offset > fileSize) {
+         throw new IOException("Input file is shorter than its checkpoint");
+      }
+
+      rowNum = savedRowNum;
+      arrivalTime = savedArrivalTime;
+      map(offset);
+   }
+
+   /**
+    * Closes the input file.
+    *
+    * @throws IOException If an I/O error occurs.
+    */
+   @Override
+   public void close() throws IOException {
+      if (input != null) {
+         input.close();
+      }
+   }
+
+   /**
+    * Maps the window of the file starting at the given offset.
+    *
+    * @param offset File offset of the first byte to map.
+    * @throws IOException If the file can not be mapped.
+    */
+   private void map(long offset) throws IOException {
+      long length = Math.min(WINDOW_SIZE, fileSize - offset);
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+      bufferStart = offset;
+      position = 0;
+   }
+
+   /**
+    * Waits until the followed file grows, then maps it again from the
+    * current position.
+    *
+    * @return Boolean indicating if the file grew, false if it is not
+    * followed or did not grow in time.
+    * @throws IOException If the file can not be mapped.
+    */
+   private boolean waitForData() throws IOException {
+      if (followMillis == 0 || channel == null) {
+         return false;
+      }
+      if (idleAction != null) {
+         idleAction.run();
+      }
+
+      long deadline = System.currentTimeMillis() + followMillis;
+      while (true) {
+         long size = channel.size();
+         if (size > fileSize) {
+            fileSize = size;
+            map(bufferStart + position);
+            return true;
+         }
+         if (System.currentTimeMillis() >= deadline) {
+            return false;
+         }
+         try {
+            Thread.sleep(POLL_MILLIS);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while following input");
+         }
+      }
+   }
+
+   /**
+    * Finds the end of the row starting at the current position, moving the
+    * mapped window forward if the row continues past it.
+    *
+    * @return Offset of the row's line terminator, or end of data.
+    * @throws IOException If the file can not be mapped.
+    */
+   private int findLineEnd() throws IOException {
+      int index = position;
+      while (true) {
+         int limit = buffer.limit();
+         while (index < limit) {
+            byte b = buffer.get(index);
+            if (b == '\n' || b == '\r') {
+               return index;
+            }
+            index++;
+         }
+         // Row is cut by the end of the window, map again from its start.
+         // At the end of a followed file the row may still be written.
+         if (bufferStart + limit >= fileSize) {
+            int offset = index - position;
+            if (!waitForData()) {
+               return index;
+            }
+            index = offset;
+            continue;
+         }
+         if (position == 0) {
+            throw new IOException("Row " + rowNum + " is too long");
+         }
+         index -= position;
+         map(bufferStart + position);
+      }
+   }
+
+   /**
+    * Moves the position past the line terminator found at the given offset.
+    * Rows may end with "\n", "\r" or "\r\n".
+    *
+    * @param lineEnd Offset of the line terminator.
+    */
+   private void skipLineTerminator(int lineEnd) {
+      position = lineEnd;
+      if (position < buffer.limit() && buffer.get(position++) == '\r'
+         && position < buffer.limit() && buffer.get(position) == '\n') {
+         position++;
+      }
+   }
+
+   /**
+    * Indicates whether the row is a comment i.e. starts with "//".
+    */
+   private boolean isComment(int lineStart, int lineEnd) {
+      return lineEnd - lineStart >= 2
+         && buffer.get(lineStart) == '/' && buffer.get(lineStart + 1) == '/';
+   }
+
+   /**
+    * Returns the offset of the first non white space byte in the range.
+    */
+   private int skipWhiteSpace(int index, int end) {
+      while (index < end && isWhiteSpace(buffer.get(index))) {
+         index++;
+      }
+      return index;
+   }
+
+   /**
+    * Returns the offset of the first white space byte in the range.
+    */
+   private int skipToken(int index, int end) {
+      while (index < end && !isWhiteSpace(buffer.get(index))) {
+         index++;
+      }
+      return index;
+   }
+
+   /**
+    * Indicates whether the byte separates values, matching the white space
+    * characters of the ASCII range.
+    */
+   private static boolean isWhiteSpace(byte b) {
+      return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+   }
+
+   /**
+    * Parses the range as a signed decimal integer the same way as
+    * Integer.parseInt does.
+    *
+    * @return The value, or NOT_AN_INTEGER if the range is not an integer.
+    */
+   private long parseInteger(int start, int end) {
+      if (start == end) {
+         return NOT_AN_INTEGER;
+      }
+
+      boolean isNegative = false;
+      byte first = buffer.get(start);
+      if (first == '-' || first == '+') {
+         isNegative = first == '-';
+         if (++start == end) {
+            return NOT_AN_INTEGER;
+         }
+      }
+
+      long value = 0;
+      for (int index = start; index < end; index++) {
+         byte b = buffer.get(index);
+         if (b < '0' || b > '9') {
+            return NOT_AN_INTEGER;
+         }
+         value = value * 10 + (b - '0');
+         if (value > (long) Integer.MAX_VALUE + 1) {
+            return NOT_AN_INTEGER;
+         }
+      }
+      value = isNegative ? -value : value;
+
+      return (value > Integer.MAX_VALUE) ? NOT_AN_INTEGER : value;
+   }
+
+   /**
+    * Parses the range as a non-negative decimal integer.
+    *
+    * @return The value, or -1 if the range is not a non-negative integer.
+    */
+   private long parseTime(int start, int end) {
+      long value = 0;
+      for (int index = start; index < end; index++) {
+         byte b = buffer.get(index);
+         if (b < '0' || b > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+            return -1;
+         }
+         value = value * 10 + (b - '0');
+      }
+      return value;
+   }
+
+   /**
+    * Decodes the bytes in the range into a string.
+    */
+   private String decode(int start, int end) {
+      int length = end - start;
+      if (length > scratch.length) {
+         scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      for (int index = 0; index < length; index++) {
+         scratch[index] = buffer.get(start + index);
+      }
+      return new String(scratch, 0, length, charset);
+   }
+
+   /**
+    * Creates the exception reporting the faulty value in the current row.
+    */
+   private PassengerDataException error(String message, int lineStart,
+      int lineEnd) {
+
+      ByteBuffer row = buffer.duplicate();
+      byte[] bytes = new byte[lineEnd - lineStart];
+      row.position(lineStart);
+      row.get(bytes);
+
+      return new PassengerDataException("Value in row " + rowNum + message,
+         new String(bytes, charset));
+   }
+}
@@ -0,0 +1,106 @@
+/* File name : PassengerQueue.java */
+package elevator;
+
+/**
+ * The PassengerQueue program implements a Queue ADT using a doubly linked-list.
+ * Passenger objects are removed in the same order they were inserted, which
+ * lets the waiting line be built in file order without first collecting it
+ * in a reversed Stack.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PassengerQueue {
+
+   private Passenger head; // Points to the front-most element, null otherwise
+   private Passenger tail; // Points to the last element, null otherwise
+   private int size; // Counts number of elements in the Queue
+
+   /**
+    * Class constructor.
+    */
+   public PassengerQueue() {
+      this.head = null;
+      this.tail = null;
+      this.size = 0;
+   }
+
+   /**
+    * Adds the passed object to the back of the Queue.
+    *
+    * @param passenger Object to be inserted into the Queue.
+    */
+   public void enqueue(Passenger passenger) {
+      // If Queue is empty, point both ends to passenger, otherwise we link the
+      // object behind the current tail
+      if (isEmpty()) {
+         head = passenger;
+      } else {
+         tail.setNext(passenger);
+         passenger.setPrevious(tail);
+      }
+      tail = passenger;
+
+      this.size++;
+   }
+
+   /**
+    * Removes and returns the front element in the Queue.
+    *
+    * @return This Queue's front-most element.
+    */
+   public Passenger dequeue() {
+      // Null is returned if the Queue is empty to keep the program running
+      if (isEmpty()) {
+         System.out.println("Empty Queue Exception");
+         return null;
+      }
+
+      // Detach the element at the front of the list and point head to successor
+      Passenger temp = head;
+      head = temp.getNext();
+      if (head == null) {
+         tail = null;
+      } else {
+         head.setPrevious(null);
+      }
+      temp.setNext(null);
+      this.size--;
+
+      return temp;
+   }
+
+   /**
+    * Gets the element at the front of the Queue.
+    *
+    * @return This Queue's front-most element.
+    */
+   public Passenger peek() {
+      // Null is returned if the Queue is empty to keep the program running
+      if (isEmpty()) {
+         System.out.println("Empty Queue Exception");
+         return null;
+      }
+
+      return head;
+   }
+
+   /**
+    * Gets the number of elements in the Queue.
+    *
+    * @return This Queue's size
+    */
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Indicates whether the Queue is empty i.e. Queue has no elements.
+    *
+    * @return Boolean indicating if this Queue has no elements.
+    */
+   public boolean isEmpty() {
+      return getSize() == 0;
+   }
+}
@@ -0,0 +1,62 @@
+/* File name : PassengerSource.java */
+package elevator;
+
+import java.io.IOException;
+
+/**
+ * The PassengerSource interface supplies the passengers of a simulation run
+ * one at a time, in the order they start waiting for the elevator.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public interface PassengerSource {
+
+   /**
+    * Returns the next passenger.
+    *
+    * @return Next passenger, null if there are no more passengers.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   Passenger next() throws IOException, PassengerDataException;
+
+   /**
+    * Adds the next passenger to the store.
+    *
+    * @param store Store receiving the passenger.
+    * @return Index of the passenger, -1 if there are no more passengers.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   default int nextIndex(PassengerStore store)
+      throws IOException, PassengerDataException {
+
+      Passenger passenger = next();
+      return (passenger == null) ? -1 : store.add(passenger);
+   }
+
+   /**
+    * Estimates the number of passengers left, so a store can make room for
+    * them at once.
+    *
+    * @return Estimated no. of passengers, 0 if unknown.
+    * @throws IOException If the passenger data can not be read.
+    */
+   default int sizeHint() throws IOException {
+      return 0;
+   }
+
+   /**
+    * Creates a source that takes the passengers out of the given queue.
+    *
+    * @param passengerQueue Passengers in the order they start waiting.
+    * @return Source emptying the queue.
+    */
+   static PassengerSource of(PassengerQueue passengerQueue) {
+      return () -> passengerQueue.isEmpty() ? null : passengerQueue.dequeue();
+   }
+}
@@ -0,0 +1,688 @@
+/* File name : PassengerStore.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * This program keeps the data of every passenger of a run in parallel arrays,
+ * so a passenger is an index rather than an object. Floors, temporary exits,
+ * times and state each have their own array, and names are interned into a
+ * single shared pool of UTF-8 bytes: a name repeated in the passenger data is
+ * stored once and passengers refer to it by number. The elevators and waiting
+ * lines chain passengers together through the links array instead of object
+ * pointers, so a run over millions of passengers creates no object per
+ * passenger.
+ *
+ * A store that recycles passengers frees the index of each passenger who
+ * exited, skipped the elevator or stayed, and gives it to the next passenger
+ * added, so it only grows to the number of people waiting and riding at
+ * once. Once most interned names belong to no one anymore, the names of the
+ * remaining passengers are moved to a new pool, so the pool also stays in
+ * proportion to the people waiting and riding. Each passenger of such a
+ * store keeps its number in the order passengers were added, which in a
+ * store that does not recycle is its index.
+ *
+ * Callers that need a Passenger get a PassengerView of an index.
+ *
+ * A store can also run the passengers of a frozen store without copying
+ * them: names, floors and arrival times are shared, and only the links,
+ * states, temporary exits and boarding times are its own. Many stores can
+ * run the same frozen passengers at once, each on its own thread.
+ *
+ * The passengers not freed yet can be written to a checkpoint and read back
+ * at the same indices, so the lines and elevators linking them stay valid.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PassengerStore {
+
+   public static final byte WAITING = 0; // Waiting or yet to arrive
+   public static final byte RIDING = 1; // Riding an elevator
+   public static final byte EXITED = 2; // Got off at their destination
+   public static final byte SKIPPED = 3; // Found the elevator full
+   public static final byte STAYED = 4; // Already on their destination
+
+   private int size; // No. of passengers stored
+   private int[] nameIds; // Interned name of each passenger
+   private int[] floorsEntered; // Floor no. where each passenger waited
+   private int[] floorsExited; // Floor no. of each passenger's destination
+   private int[] tempExits; // Counts each passenger's temporary exits
+   private int[] links; // Next passenger in the same line, -1 if none
+   private long[] arrivalTimes; // Time each passenger started waiting
+   private long[] boardTimes; // Time each passenger got in
+   private byte[] states; // What happened to each passenger so far
+   private byte[] namePool; // UTF-8 bytes of every interned name
+   private int poolLength; // No. of bytes used in the pool
+   private int[] nameStarts; // Pool offset of each name, then poolLength
+   private int numNames; // No. of interned names
+   private int[] nameTable; // Hash table of name ids plus 1, 0 if free
+   private char[] chars; // Reused to write ASCII names
+   private boolean isRecycling; // Whether indices of finished passengers are reused
+   private int freeTop; // Last index freed, -1 if none
+   private int numLive; // No. of passengers not freed
+   private long numAdded; // No. of passengers added since the store was cleared
+   private long[] numbers; // Number of each passenger if recycling, else null
+   private boolean isSharing; // Whether names, floors and times are shared
+
+   /**
+    * Class constructor for an empty store.
+    */
+   public PassengerStore() {
+      this.nameIds = new int[16];
+      this.floorsEntered = new int[16];
+      this.floorsExited = new int[16];
+      this.tempExits = new int[16];
+      this.links = new int[16];
+      this.arrivalTimes = new long[16];
+      this.boardTimes = new long[16];
+      this.states = new byte[16];
+      this.namePool = new byte[64];
+      this.nameStarts = new int[17];
+      this.nameTable = new int[32];
+      this.chars = new char[16];
+      this.isRecycling = false;
+      this.numbers = null;
+      this.isSharing = false;
+      clear();
+   }
+
+   /**
+    * Makes room for the given number of passengers, so adding them does not
+    * have to grow the arrays again.
+    *
+    * @param capacity No. of passengers the arrays can hold.
+    */
+   public void ensureCapacity(int capacity) {
+      if (capacity > floorsEntered.length) {
+         resize(capacity);
+      }
+   }
+
+   /**
+    * Removes every passenger and name, keeping the arrays for the next run.
+    */
+   public void clear() {
+      // Shared data is let go of rather than emptied
+      if (isSharing) {
+         nameIds = new int[16];
+         floorsEntered = new int[16];
+         floorsExited = new int[16];
+         arrivalTimes = new long[16];
+         namePool = new byte[64];
+         nameStarts = new int[17];
+         isSharing = false;
+      }
+      size = 0;
+      freeTop = -1;
+      numLive = 0;
+      numAdded = 0;
+      poolLength = 0;
+      numNames = 0;
+      nameStarts[0] = 0;
+      Arrays.fill(nameTable, 0);
+   }
+
+   /**
+    * Sets whether the indices of passengers who exited, skipped the elevator
+    * or stayed are given to the passengers added afterwards. A recycled
+    * passenger's data can be read until the next passenger is added.
+    *
+    * @param isRecycling Boolean indicating if indices are reused.
+    */
+   public void setRecycling(boolean isRecycling) {
+      this.isRecycling = isRecycling;
+      this.freeTop = -1;
+      this.numbers = isRecycling ? new long[floorsEntered.length] : null;
+   }
+
+   /**
+    * Replaces the passengers with those of a frozen store, who all wait and
+    * have not temporarily exited. Their names, floors and arrival times are
+    * shared with the frozen store, which must not change while shared; the
+    * store lets go of them when it is cleared.
+    *
+    * @param frozen Store whose passengers no one adds to or changes.
+    */
+   void share(PassengerStore frozen) {
+      clear();
+      int numPassengers = frozen.size;
+      if (links.length < numPassengers) {
+         links = new int[numPassengers];
+         tempExits = new int[numPassengers];
+         boardTimes = new long[numPassengers];
+         states = new byte[numPassengers];
+      }
+      Arrays.fill(links, 0, numPassengers, -1);
+      Arrays.fill(tempExits, 0, numPassengers, 0);
+      Arrays.fill(boardTimes, 0, numPassengers, 0);
+      Arrays.fill(states, 0, numPassengers, WAITING);
+
+      nameIds = frozen.nameIds;
+      floorsEntered = frozen.floorsEntered;
+      floorsExited = frozen.floorsExited;
+      arrivalTimes = frozen.arrivalTimes;
+      namePool = frozen.namePool;
+      nameStarts = frozen.nameStarts;
+      poolLength = frozen.poolLength;
+      numNames = frozen.numNames;
+      isSharing = true;
+      isRecycling = false;
+      numbers = null;
+      size = numPassengers;
+      numLive = numPassengers;
+      numAdded = numPassengers;
+   }
+
+   /**
+    * Adds a copy of the passenger's data.
+    *
+    * @param passenger Passenger to add.
+    * @return Index of the passenger.
+    */
+   public int add(Passenger passenger) {
+      byte[] name = passenger.getName().getBytes(StandardCharsets.UTF_8);
+
+      return add(name, 0, name.length, passenger.getFloorEntered(),
+         passenger.getFloorExited(), passenger.getArrivalTime());
+   }
+
+   /**
+    * Adds a copy of a passenger of another store, who is waiting and has not
+    * temporarily exited.
+    *
+    * @param from Store holding the passenger.
+    * @param passenger Index of the passenger in that store.
+    * @return Index of the passenger in this store.
+    */
+   public int add(PassengerStore from, int passenger) {
+      int nameId = from.nameIds[passenger];
+      int start = from.nameStarts[nameId];
+
+      return add(from.namePool, start, from.nameStarts[nameId + 1] - start,
+         from.floorsEntered[passenger], from.floorsExited[passenger],
+         from.arrivalTimes[passenger]);
+   }
+
+   /**
+    * Adds a passenger who is waiting and has not temporarily exited.
+    *
+    * @param name Bytes holding the passenger's first name in UTF-8.
+    * @param start Offset of the name's first byte.
+    * @param length No. of bytes in the name.
+    * @param floorEntered Floor no. where the passenger waits.
+    * @param floorExited Floor no. of the passenger's destination.
+    * @param arrivalTime Time the passenger starts waiting.
+    * @return Index of the passenger.
+    * @throws IllegalStateException If the store shares another's passengers.
+    */
+   public int add(byte[] name, int start, int length, int floorEntered,
+      int floorExited, long arrivalTime) {
+
+      if (isSharing) {
+         throw new IllegalStateException("Passengers are shared with another store");
+      }
+      // Names of freed passengers are dropped before the pool grows further
+      if (isRecycling && numNames > 2 * numLive + 64) {
+         compactNames();
+      }
+
+      int passenger;
+      numLive++;
+      if (freeTop >= 0) {
+         passenger = freeTop;
+         freeTop = links[passenger];
+      } else {
+         if (size == floorsEntered.length) {
+            resize(size + (size >> 1));
+         }
+         passenger = size++;
+      }
+      nameIds[passenger] = intern(name, start, length);
+      floorsEntered[passenger] = floorEntered;
+      floorsExited[passenger] = floorExited;
+      tempExits[passenger] = 0;
+      links[passenger] = -1;
+      arrivalTimes[passenger] = arrivalTime;
+      boardTimes[passenger] = 0;
+      states[passenger] = WAITING;
+      if (numbers != null) {
+         numbers[passenger] = numAdded;
+      }
+      numAdded++;
+
+      return passenger;
+   }
+
+   /**
+    * Estimates the memory taken by the arrays of the store, which are kept
+    * from one run to the next however few passengers the next run has.
+    *
+    * @return Approximate no. of bytes held by the store.
+    */
+   public long getRetainedBytes() {
+      long capacity = floorsEntered.length;
+      long bytes = capacity * (5 * Integer.BYTES + 2 * Long.BYTES + 1);
+      if (numbers != null) {
+         bytes += (long) numbers.length * Long.BYTES;
+      }
+      return bytes + namePool.length
+         + (long) (nameStarts.length + nameTable.length) * Integer.BYTES
+         + (long) chars.length * Character.BYTES;
+   }
+
+   /**
+    * Gets the number of passengers stored, including those whose index is
+    * free to be recycled.
+    *
+    * @return No. of passengers.
+    */
+   public int getSize() {
+      return this.size;
+   }
+
+   /**
+    * Gets the number of the passenger in the order passengers were added,
+    * starting at 0, which stays the same when indices are recycled.
+    *
+    * @param passenger Index of the passenger.
+    * @return Passenger no.
+    */
+   public long getNumber(int passenger) {
+      return (numbers != null) ? numbers[passenger] : passenger;
+   }
+
+   /**
+    * Gets the passenger's first name.
+    *
+    * @param passenger Index of the passenger.
+    * @return A new string holding the name.
+    */
+   public String getName(int passenger) {
+      int nameId = nameIds[passenger];
+      return new String(namePool, nameStarts[nameId],
+         nameStarts[nameId + 1] - nameStarts[nameId], StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Writes the passenger's first name without creating a string.
+    *
+    * @param passenger Index of the passenger.
+    * @param output Writer receiving the name.
+    */
+   public void printName(int passenger, PrintWriter output) {
+      int nameId = nameIds[passenger];
+      int start = nameStarts[nameId];
+      int length = nameStarts[nameId + 1] - start;
+      if (length > chars.length) {
+         chars = new char[Math.max(length, chars.length * 2)];
+      }
+
+      // ASCII bytes are their own characters, other names are decoded
+      for (int index = 0; index < length; index++) {
+         byte b = namePool[start + index];
+         if (b < 0) {
+            output.print(getName(passenger));
+            return;
+         }
+         chars[index] = (char) b;
+      }
+      output.write(chars, 0, length);
+   }
+
+   /**
+    * Gets the floor no. where the passenger waited.
+    *
+    * @param passenger Index of the passenger.
+    * @return Beginning floor no.
+    */
+   public int getFloorEntered(int passenger) {
+      return floorsEntered[passenger];
+   }
+
+   /**
+    * Gets the floor no. of the passenger's destination.
+    *
+    * @param passenger Index of the passenger.
+    * @return Ending floor no.
+    */
+   public int getFloorExited(int passenger) {
+      return floorsExited[passenger];
+   }
+
+   /**
+    * Gets the number of times the passenger temporarily exited.
+    *
+    * @param passenger Index of the passenger.
+    * @return No. of temporary exits.
+    */
+   public int getTempExits(int passenger) {
+      return tempExits[passenger];
+   }
+
+   /**
+    * Increments the passenger's temporary exit counter by one.
+    *
+    * @param passenger Index of the passenger.
+    */
+   public void incrementTempExits(int passenger) {
+      tempExits[passenger]++;
+   }
+
+   /**
+    * Gets the time the passenger started waiting.
+    *
+    * @param passenger Index of the passenger.
+    * @return Arrival time.
+    */
+   public long getArrivalTime(int passenger) {
+      return arrivalTimes[passenger];
+   }
+
+   /**
+    * Gets the time the passenger got in the elevator.
+    *
+    * @param passenger Index of the passenger.
+    * @return Boarding time.
+    */
+   public long getBoardTime(int passenger) {
+      return boardTimes[passenger];
+   }
+
+   /**
+    * Sets the time the passenger got in the elevator.
+    *
+    * @param passenger Index of the passenger.
+    * @param boardTime Boarding time.
+    */
+   public void setBoardTime(int passenger, long boardTime) {
+      boardTimes[passenger] = boardTime;
+   }
+
+   /**
+    * Gets what happened to the passenger so far.
+    *
+    * @param passenger Index of the passenger.
+    * @return WAITING, RIDING, EXITED, SKIPPED or STAYED.
+    */
+   public byte getState(int passenger) {
+      return states[passenger];
+   }
+
+   /**
+    * Sets what happened to the passenger so far.
+    *
+    * @param passenger Index of the passenger.
+    * @param state WAITING, RIDING, EXITED, SKIPPED or STAYED.
+    */
+   public void setState(int passenger, byte state) {
+      states[passenger] = state;
+
+      // Finished passengers are in no line or elevator, so their link is free
+      if (isRecycling && state >= EXITED) {
+         links[passenger] = freeTop;
+         freeTop = passenger;
+         numLive--;
+      }
+   }
+
+   /**
+    * Gets the passenger after this one in the line or elevator holding them.
+    *
+    * @param passenger Index of the passenger.
+    * @return Index of the next passenger, -1 if there is none.
+    */
+   public int getLink(int passenger) {
+      return links[passenger];
+   }
+
+   /**
+    * Sets the passenger after this one in the line or elevator holding them.
+    *
+    * @param passenger Index of the passenger.
+    * @param next Index of the next passenger, -1 if there is none.
+    */
+   public void setLink(int passenger, int next) {
+      links[passenger] = next;
+   }
+
+   /**
+    * Creates a Passenger backed by the store.
+    *
+    * @param passenger Index of the passenger.
+    * @return View of the passenger.
+    */
+   public PassengerView view(int passenger) {
+      return new PassengerView(this, passenger);
+   }
+
+   /**
+    * Writes the passengers who have not been freed, names included, and the
+    * links of the freed indices. Finished passengers of a store that does
+    * not recycle are written without their data, since nothing refers to
+    * them anymore.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException {
+      output.writeBoolean(isRecycling);
+      output.writeInt(size);
+      output.writeInt(freeTop);
+      output.writeInt(numLive);
+      output.writeLong(numAdded);
+      for (int passenger = 0; passenger < size; passenger++) {
+         output.writeByte(states[passenger]);
+         output.writeInt(links[passenger]);
+         if (states[passenger] >= EXITED) {
+            continue;
+         }
+
+         int nameId = nameIds[passenger];
+         int start = nameStarts[nameId];
+         int length = nameStarts[nameId + 1] - start;
+         output.writeInt(length);
+         output.write(namePool, start, length);
+         output.writeInt(floorsEntered[passenger]);
+         output.writeInt(floorsExited[passenger]);
+         output.writeInt(tempExits[passenger]);
+         output.writeLong(arrivalTimes[passenger]);
+         output.writeLong(boardTimes[passenger]);
+         if (numbers != null) {
+            output.writeLong(numbers[passenger]);
+         }
+      }
+   }
+
+   /**
+    * Replaces the passengers with the ones written by writeState, each at the
+    * index it had.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException {
+      clear();
+      setRecycling(input.readBoolean());
+      int numPassengers = input.readInt();
+      int freed = input.readInt();
+      int live = input.readInt();
+      long added = input.readLong();
+      ensureCapacity(numPassengers);
+
+      byte[] name = new byte[64];
+      for (int passenger = 0; passenger < numPassengers; passenger++) {
+         states[passenger] = input.readByte();
+         links[passenger] = input.readInt();
+         if (states[passenger] >= EXITED) {
+            continue;
+         }
+
+         int length = input.readInt();
+         if (length > name.length) {
+            name = new byte[Math.max(length, name.length * 2)];
+         }
+         input.readFully(name, 0, length);
+         nameIds[passenger] = intern(name, 0, length);
+         floorsEntered[passenger] = input.readInt();
+         floorsExited[passenger] = input.readInt();
+         tempExits[passenger] = input.readInt();
+         arrivalTimes[passenger] = input.readLong();
+         boardTimes[passenger] = input.readLong();
+         if (numbers != null) {
+            numbers[passenger] = input.readLong();
+         }
+      }
+      this.size = numPassengers;
+      this.freeTop = freed;
+      this.numLive = live;
+      this.numAdded = added;
+   }
+
+   /**
+    * Moves the passenger data to arrays of the given capacity.
+    */
+   private void resize(int capacity) {
+      nameIds = Arrays.copyOf(nameIds, capacity);
+      floorsEntered = Arrays.copyOf(floorsEntered, capacity);
+      floorsExited = Arrays.copyOf(floorsExited, capacity);
+      tempExits = Arrays.copyOf(tempExits, capacity);
+      links = Arrays.copyOf(links, capacity);
+      arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+      boardTimes = Arrays.copyOf(boardTimes, capacity);
+      states = Arrays.copyOf(states, capacity);
+      if (numbers != null) {
+         numbers = Arrays.copyOf(numbers, capacity);
+      }
+   }
+
+   /**
+    * Finds the name in the pool, adding it if it is new.
+    *
+    * @return Number of the interned name.
+    */
+   private int intern(byte[] name, int start, int length) {
+      int hash = 0;
+      for (int index = start; index < start + length; index++) {
+         hash = 31 * hash + name[index];
+      }
+
+      int mask = nameTable.length - 1;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (nameTable[slot] != 0) {
+         int nameId = nameTable[slot] - 1;
+         if (isName(nameId, name, start, length)) {
+            return nameId;
+         }
+         slot = (slot + 1) & mask;
+      }
+
+      // New name goes at the end of the pool
+      if (poolLength + length > namePool.length) {
+         namePool = Arrays.copyOf(namePool,
+            Math.max(poolLength + length, namePool.length * 2));
+      }
+      if (numNames + 1 == nameStarts.length) {
+         nameStarts = Arrays.copyOf(nameStarts, nameStarts.length * 2);
+      }
+      System.arraycopy(name, start, namePool, poolLength, length);
+      poolLength += length;
+      int nameId = numNames++;
+      nameStarts[numNames] = poolLength;
+      nameTable[slot] = nameId + 1;
+
+      // Keep the table at most half full
+      if (numNames * 2 > nameTable.length) {
+         rehash();
+      }
+      return nameId;
+   }
+
+   /**
+    * Indicates whether the interned name holds the given characters.
+    */
+   private boolean isName(int nameId, byte[] name, int start, int length) {
+      int poolStart = nameStarts[nameId];
+      if (nameStarts[nameId + 1] - poolStart != length) {
+         return false;
+      }
+      for (int index = 0; index < length; index++) {
+         if (namePool[poolStart + index] != name[start + index]) {
+            return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Keeps only the names of passengers who have not been freed, moving them
+    * to a new pool sized for them.
+    */
+   private void compactNames() {
+      int[] newIds = new int[numNames];
+      Arrays.fill(newIds, -1);
+      byte[] oldPool = namePool;
+      int[] oldStarts = nameStarts;
+      int liveLength = 0;
+      int numLiveNames = 0;
+      for (int passenger = 0; passenger < size; passenger++) {
+         int nameId = nameIds[passenger];
+         if (states[passenger] < EXITED && newIds[nameId] < 0) {
+            newIds[nameId] = numLiveNames++;
+            liveLength += oldStarts[nameId + 1] - oldStarts[nameId];
+         }
+      }
+
+      namePool = new byte[Math.max(64, liveLength * 2)];
+      nameStarts = new int[Math.max(17, numLiveNames * 2 + 1)];
+      poolLength = 0;
+      numNames = 0;
+      for (int passenger = 0; passenger < size; passenger++) {
+         int nameId = nameIds[passenger];
+         if (states[passenger] >= EXITED) {
+            continue;
+         }
+         int newId = newIds[nameId];
+         if (newId == numNames) {
+            int length = oldStarts[nameId + 1] - oldStarts[nameId];
+            System.arraycopy(oldPool, oldStarts[nameId], namePool, poolLength,
+               length);
+            poolLength += length;
+            nameStarts[++numNames] = poolLength;
+         }
+         nameIds[passenger] = newId;
+      }
+
+      int tableSize = 32;
+      while (numNames * 2 > tableSize) {
+         tableSize *= 2;
+      }
+      nameTable = new int[tableSize / 2];
+      rehash();
+   }
+
+   /**
+    * Doubles the hash table and adds every interned name to it again.
+    */
+   private void rehash() {
+      nameTable = new int[nameTable.length * 2];
+      int mask = nameTable.length - 1;
+      for (int nameId = 0; nameId < numNames; nameId++) {
+         int hash = 0;
+         for (int index = nameStarts[nameId]; index < nameStarts[nameId + 1]; index++) {
+            hash = 31 * hash + namePool[index];
+         }
+         int slot = (hash ^ (hash >>> 16)) & mask;
+         while (nameTable[slot] != 0) {
+            slot = (slot + 1) & mask;
+         }
+         nameTable[slot] = nameId + 1;
+      }
+   }
+}
@@ -0,0 +1,116 @@
+/* File name : PassengerTrace.java */
+package elevator;
+
+import java.io.IOException;
+
+/**
+ * This program holds every passenger of an input read once into memory, in a
+ * form that does not change afterwards. Any number of SimulationEngines can
+ * run a trace at the same time, on as many threads: each engine keeps its own
+ * links, states, temporary exits and boarding times, while names, floors and
+ * arrival times are shared rather than copied.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public final class PassengerTrace {
+
+   private final PassengerStore store; // Passengers, never changed once read
+   private final int highestFloor; // Highest floor no. anyone uses
+   private final boolean isTimed; // Whether anyone arrives after time 0
+
+   /**
+    * Class constructor.
+    *
+    * @param store Passengers no one changes afterwards.
+    * @param highestFloor Highest floor no. where anyone waits or exits.
+    * @param isTimed Whether anyone arrives after time 0.
+    */
+   private PassengerTrace(PassengerStore store, int highestFloor,
+      boolean isTimed) {
+
+      this.store = store;
+      this.highestFloor = highestFloor;
+      this.isTimed = isTimed;
+   }
+
+   /**
+    * Reads every passenger of a source.
+    *
+    * @param source Passengers in the order they start waiting.
+    * @return Trace of the passengers.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   public static PassengerTrace load(PassengerSource source)
+      throws IOException, PassengerDataException {
+
+      PassengerStore store = new PassengerStore();
+      store.ensureCapacity(source.sizeHint());
+      while (source.nextIndex(store) >= 0) {
+         // Each call adds a passenger to the store
+      }
+
+      return of(store);
+   }
+
+   /**
+    * Creates a trace of the passengers of a store, which no one may change
+    * afterwards.
+    *
+    * @param store Passengers in the order they start waiting.
+    * @return Trace of the passengers.
+    */
+   static PassengerTrace of(PassengerStore store) {
+      int highestFloor = 1;
+      boolean isTimed = false;
+      for (int passenger = 0; passenger < store.getSize(); passenger++) {
+         highestFloor = Math.max(highestFloor, Math.max(
+            store.getFloorEntered(passenger), store.getFloorExited(passenger)));
+         if (store.getArrivalTime(passenger) > 0) {
+            isTimed = true;
+         }
+      }
+
+      return new PassengerTrace(store, highestFloor, isTimed);
+   }
+
+   /**
+    * Gets the number of passengers.
+    *
+    * @return No. of passengers.
+    */
+   public int getSize() {
+      return store.getSize();
+   }
+
+   /**
+    * Gets the highest floor no. where a passenger waits or exits, so the
+    * trace can only be run in buildings with at least as many floors.
+    *
+    * @return Highest floor no.
+    */
+   public int getHighestFloor() {
+      return this.highestFloor;
+   }
+
+   /**
+    * Indicates whether any passenger arrives after time 0.
+    *
+    * @return Boolean indicating if the trace has arrival times.
+    */
+   public boolean isTimed() {
+      return this.isTimed;
+   }
+
+   /**
+    * Gets the passengers, which must not be changed.
+    *
+    * @return Store holding the passengers.
+    */
+   PassengerStore getStore() {
+      return this.store;
+   }
+}
@@ -0,0 +1,112 @@
+/* File name : PassengerView.java */
+package elevator;
+
+import java.io.PrintWriter;
+
+/**
+ * This program presents a passenger kept in a PassengerStore through the
+ * Passenger API. The view holds no data of its own: every getter reads the
+ * store and every change is written to it. The elevators and the simulation
+ * engine reuse one view for all the passengers they report, pointing it at
+ * each passenger in turn, so a listener must not keep the view after the
+ * call it was given to; a view of its own is available from the store.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+class PassengerView extends Passenger {
+
+   private final PassengerStore store; // Data of the passenger
+   private int index; // Index of the passenger in the store
+
+   /**
+    * Class constructor.
+    *
+    * @param store Store holding the passenger.
+    * @param index Index of the passenger.
+    */
+   public PassengerView(PassengerStore store, int index) {
+      super(null, 0, 0);
+
+      this.store = store;
+      this.index = index;
+   }
+
+   /**
+    * Gets the index of the passenger in the store.
+    *
+    * @return Index of the passenger.
+    */
+   public int getIndex() {
+      return this.index;
+   }
+
+   /**
+    * Gets the number of the passenger in the order passengers were added to
+    * the store.
+    *
+    * @return Passenger no., starting at 0.
+    */
+   public long getNumber() {
+      return store.getNumber(index);
+   }
+
+   /**
+    * Points the view at another passenger of the same store.
+    *
+    * @param index Index of the passenger.
+    */
+   void setIndex(int index) {
+      this.index = index;
+   }
+
+   /**
+    * Writes the passenger's first name without creating a string.
+    *
+    * @param output Writer receiving the name.
+    */
+   public void printName(PrintWriter output) {
+      store.printName(index, output);
+   }
+
+   @Override
+   public String getName() {
+      return store.getName(index);
+   }
+
+   @Override
+   public int getFloorEntered() {
+      return store.getFloorEntered(index);
+   }
+
+   @Override
+   public int getFloorExited() {
+      return store.getFloorExited(index);
+   }
+
+   @Override
+   public long getArrivalTime() {
+      return store.getArrivalTime(index);
+   }
+
+   @Override
+   public long getBoardTime() {
+      return store.getBoardTime(index);
+   }
+
+   @Override
+   public void setBoardTime(long boardTime) {
+      store.setBoardTime(index, boardTime);
+   }
+
+   @Override
+   public int getNumOfTempExits() {
+      return store.getTempExits(index);
+   }
+
+   @Override
+   public void incrementTempExits() {
+      store.incrementTempExits(index);
+   }
+}
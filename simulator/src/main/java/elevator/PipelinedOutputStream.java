@@ -0,0 +1,185 @@
+/* File name : PipelinedOutputStream.java */
+package elevator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This program writes bytes to another stream on a thread of its own, so the
+ * thread producing them does not wait for them to be written to the disk. It
+ * is the byte counterpart of PipelinedWriter, used for the event logs: bytes
+ * are collected in blocks and full blocks are handed to the writing thread
+ * through a SpscRing; written blocks come back through a second ring to be
+ * filled again. The producing thread waits whenever every block is full, so
+ * bytes never pile up in memory.
+ *
+ * The bytes reach the other stream in the order they were written. An error
+ * of the other stream, or anything else that stops the writing thread, is
+ * thrown by the next write, flush or close once the writing thread finds
+ * it; whatever follows is discarded.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PipelinedOutputStream extends OutputStream {
+
+   private static final int NUM_BLOCKS = 8; // Blocks filled or written at once
+
+   private final OutputStream out; // Stream used by the writing thread
+   private final SpscRing<ByteBuffer> fullBlocks; // Blocks to be written
+   private final SpscRing<ByteBuffer> freeBlocks; // Blocks to be filled
+   private final Thread writer; // Thread writing the blocks
+   private final AtomicLong numWritten; // Blocks written by the thread
+   private long numPublished; // Blocks handed to the thread
+   private ByteBuffer block; // Block being filled
+   private volatile Throwable error; // Error found while writing, or null
+   private boolean isClosed; // Whether the stream was closed
+
+   /**
+    * Class constructor.
+    *
+    * @param out Stream receiving the bytes, used by one thread only from now
+    * on.
+    * @param blockSize Bytes handed over at once.
+    */
+   public PipelinedOutputStream(OutputStream out, int blockSize) {
+      this.out = out;
+      this.fullBlocks = new SpscRing<>(NUM_BLOCKS);
+      this.freeBlocks = new SpscRing<>(NUM_BLOCKS);
+      for (int count = 1; count < NUM_BLOCKS; count++) {
+         freeBlocks.offer(ByteBuffer.allocate(blockSize));
+      }
+      this.numWritten = new AtomicLong();
+      this.numPublished = 0;
+      this.block = ByteBuffer.allocate(blockSize);
+      this.error = null;
+      this.isClosed = false;
+      this.writer = new Thread(this::drain, "report-writer");
+      this.writer.setDaemon(true);
+      this.writer.start();
+   }
+
+   @Override
+   public void write(byte[] data, int offset, int length) throws IOException {
+      while (length > 0) {
+         if (!block.hasRemaining()) {
+            publish();
+         }
+         int count = Math.min(length, block.remaining());
+         block.put(data, offset, count);
+         offset += count;
+         length -= count;
+      }
+   }
+
+   @Override
+   public void write(int value) throws IOException {
+      if (!block.hasRemaining()) {
+         publish();
+      }
+      block.put((byte) value);
+   }
+
+   /**
+    * Hands the block being filled to the writing thread and takes a free
+    * block, waiting for one if every block is full.
+    *
+    * @throws IOException If the stream was closed or the other stream
+    * failed.
+    */
+   private void publish() throws IOException {
+      if (isClosed) {
+         throw new IOException("Stream is closed");
+      }
+      throwError();
+      block.flip();
+      fullBlocks.put(block);
+      numPublished++;
+      block = freeBlocks.take();
+      block.clear();
+   }
+
+   /**
+    * Writes full blocks to the other stream and returns them to be filled
+    * again, until the stream is closed.
+    */
+   private void drain() {
+      ByteBuffer full;
+      while ((full = fullBlocks.take()) != null) {
+         // After an error the bytes are discarded, so the producer never waits
+         if (error == null) {
+            try {
+               out.write(full.array(), 0, full.limit());
+            } catch (Throwable e) {
+               // Blocks keep being counted and recycled, so the producer
+               // finds the error instead of waiting forever
+               error = e;
+            }
+         }
+         numWritten.incrementAndGet();
+         freeBlocks.put(full);
+      }
+   }
+
+   /**
+    * Throws the error found by the writing thread, if any. Errors other than
+    * an IOException are thrown wrapped in one.
+    */
+   private void throwError() throws IOException {
+      Throwable found = error;
+      if (found instanceof IOException) {
+         throw (IOException) found;
+      }
+      if (found != null) {
+         throw new IOException("Report could not be written", found);
+      }
+   }
+
+   /**
+    * Hands over the bytes written so far, waits until the writing thread has
+    * written them and flushes the other stream.
+    *
+    * @throws IOException If the stream was closed or the other stream
+    * failed.
+    */
+   @Override
+   public void flush() throws IOException {
+      if (block.position() > 0) {
+         publish();
+      }
+      int tries = 0;
+      while (numWritten.get() < numPublished) {
+         tries = SpscRing.backOff(tries);
+      }
+      throwError();
+      out.flush();
+   }
+
+   /**
+    * Writes whatever is left, stops the writing thread and closes the other
+    * stream.
+    *
+    * @throws IOException If the other stream failed.
+    */
+   @Override
+   public void close() throws IOException {
+      if (isClosed) {
+         return;
+      }
+      try {
+         flush();
+      } finally {
+         isClosed = true;
+         fullBlocks.close();
+         try {
+            writer.join();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         out.close();
+      }
+   }
+}
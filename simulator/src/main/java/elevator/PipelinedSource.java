@@ -0,0 +1,198 @@
+/* File name : PipelinedSource.java */
+package elevator;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * This program reads the passengers of another source on a thread of its
+ * own, ahead of the simulation taking them. The reading thread fills blocks
+ * of passengers, each a small PassengerStore, and hands full blocks to the
+ * simulation through a SpscRing; emptied blocks come back through a second
+ * ring to be filled again, so no objects are created once the blocks exist.
+ * Handing over a block rather than a passenger keeps the cost of passing
+ * data between threads small, and the reading thread waits whenever every
+ * block is full, so it never runs far ahead.
+ *
+ * Passengers come out in the same order as from the source. An error found
+ * by the reading thread, including an Error that stops it, is thrown when
+ * the simulation reaches the row that caused it, as if the source had been
+ * read on the simulation's thread.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PipelinedSource implements PassengerSource, Closeable {
+
+   private static final int NUM_BLOCKS = 8; // Blocks read or taken at once
+   private static final PassengerStore END = new PassengerStore(); // Last block
+
+   private final PassengerSource source; // Source read by the thread
+   private final int blockSize; // Passengers per block
+   private final SpscRing<PassengerStore> fullBlocks; // Blocks to be taken
+   private final SpscRing<PassengerStore> freeBlocks; // Blocks to be filled
+   private Thread reader; // Thread reading the source, null until started
+   private volatile Throwable error; // Error found while reading, or null
+   private PassengerStore block; // Block being taken, null if none
+   private int nextInBlock; // Next passenger of the block to take
+   private boolean isDone; // Whether every passenger was taken
+
+   /**
+    * Class constructor. The source is read once the first passenger is
+    * taken.
+    *
+    * @param source Passengers in the order they start waiting, read by one
+    * thread only from then on.
+    * @param blockSize Passengers handed over at once.
+    */
+   public PipelinedSource(PassengerSource source, int blockSize) {
+      this.source = source;
+      this.blockSize = blockSize;
+      this.fullBlocks = new SpscRing<>(NUM_BLOCKS);
+      this.freeBlocks = new SpscRing<>(NUM_BLOCKS);
+      for (int count = 0; count < NUM_BLOCKS; count++) {
+         PassengerStore free = new PassengerStore();
+         free.ensureCapacity(blockSize);
+         freeBlocks.offer(free);
+      }
+      this.reader = null;
+      this.error = null;
+      this.block = null;
+      this.nextInBlock = 0;
+      this.isDone = false;
+   }
+
+   /**
+    * Gets the number of passengers the source expects, as long as no
+    * passenger was taken yet; the source is read by another thread
+    * afterwards.
+    *
+    * @return Expected no. of passengers, 0 if unknown.
+    * @throws IOException If the source can not be read.
+    */
+   @Override
+   public int sizeHint() throws IOException {
+      return (reader == null) ? source.sizeHint() : 0;
+   }
+
+   @Override
+   public Passenger next() throws IOException, PassengerDataException {
+      if (!nextBlock()) {
+         return null;
+      }
+      int passenger = nextInBlock++;
+      return new Passenger(block.getName(passenger),
+         block.getFloorEntered(passenger), block.getFloorExited(passenger),
+         block.getArrivalTime(passenger));
+   }
+
+   @Override
+   public int nextIndex(PassengerStore store)
+      throws IOException, PassengerDataException {
+
+      if (!nextBlock()) {
+         return -1;
+      }
+      return store.add(block, nextInBlock++);
+   }
+
+   /**
+    * Makes sure the block being taken has a passenger left, taking the next
+    * full block when it does not.
+    *
+    * @return Boolean indicating if a passenger is left, false once every
+    * passenger was taken.
+    * @throws IOException If the source could not be read.
+    * @throws PassengerDataException If the source held a value that can not
+    * be processed.
+    */
+   private boolean nextBlock() throws IOException, PassengerDataException {
+      if (block != null && nextInBlock < block.getSize()) {
+         return true;
+      }
+      if (isDone) {
+         return false;
+      }
+      if (reader == null) {
+         reader = new Thread(this::read, "passenger-reader");
+         reader.setDaemon(true);
+         reader.start();
+      }
+
+      if (block != null) {
+         freeBlocks.put(block);
+      }
+      block = fullBlocks.take();
+      nextInBlock = 0;
+      if (block == END || block == null) {
+         block = null;
+         isDone = true;
+         throwError();
+         return false;
+      }
+      return true;
+   }
+
+   /**
+    * Throws the error found by the reading thread, if any.
+    */
+   private void throwError() throws IOException, PassengerDataException {
+      // The error was set before the last block was put in the ring
+      Throwable found = error;
+      if (found instanceof IOException) {
+         throw (IOException) found;
+      } else if (found instanceof PassengerDataException) {
+         throw (PassengerDataException) found;
+      } else if (found instanceof Error) {
+         throw (Error) found;
+      } else if (found != null) {
+         throw new IllegalStateException(found);
+      }
+   }
+
+   /**
+    * Fills free blocks with passengers of the source and hands them over,
+    * until the source ends, fails or the pipeline is closed.
+    */
+   private void read() {
+      boolean isEnd = false;
+      PassengerStore free;
+      while (!isEnd && (free = freeBlocks.take()) != null) {
+         free.clear();
+         try {
+            while (free.getSize() < blockSize && source.nextIndex(free) >= 0) {
+               // Each call adds a passenger to the block
+            }
+            isEnd = (free.getSize() < blockSize);
+         } catch (Throwable e) {
+            // The last block is still handed over, so the simulation does
+            // not wait forever for a thread that stopped
+            error = e;
+            isEnd = true;
+         }
+         // Passengers read before an error are still taken before it
+         if (free.getSize() > 0 && !fullBlocks.put(free)) {
+            return;
+         }
+      }
+      fullBlocks.put(END);
+   }
+
+   /**
+    * Stops the reading thread and waits for it, leaving the source to be
+    * closed by its owner.
+    */
+   @Override
+   public void close() {
+      freeBlocks.close();
+      fullBlocks.close();
+      if (reader != null) {
+         try {
+            reader.join();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+      }
+   }
+}
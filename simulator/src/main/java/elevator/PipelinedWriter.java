@@ -0,0 +1,199 @@
+/* File name : PipelinedWriter.java */
+package elevator;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This program writes text to another writer on a thread of its own, so the
+ * thread producing the text does not wait for it to be encoded and written
+ * to the disk. Text is collected in blocks of characters and full blocks are
+ * handed to the writing thread through a SpscRing; written blocks come back
+ * through a second ring to be filled again. The producing thread waits
+ * whenever every block is full, so text never piles up in memory.
+ *
+ * The text reaches the other writer in the order it was written. An error
+ * of the other writer, or anything else that stops the writing thread, is
+ * thrown by the next write, flush or close once the writing thread finds
+ * it; whatever follows is discarded.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PipelinedWriter extends Writer {
+
+   private static final int NUM_BLOCKS = 8; // Blocks filled or written at once
+
+   private final Writer out; // Writer used by the writing thread
+   private final SpscRing<CharBuffer> fullBlocks; // Blocks to be written
+   private final SpscRing<CharBuffer> freeBlocks; // Blocks to be filled
+   private final Thread writer; // Thread writing the blocks
+   private final AtomicLong numWritten; // Blocks written by the thread
+   private long numPublished; // Blocks handed to the thread
+   private CharBuffer block; // Block being filled
+   private volatile Throwable error; // Error found while writing, or null
+   private boolean isClosed; // Whether the writer was closed
+
+   /**
+    * Class constructor.
+    *
+    * @param out Writer receiving the text, used by one thread only from now
+    * on.
+    * @param blockSize Characters handed over at once.
+    */
+   public PipelinedWriter(Writer out, int blockSize) {
+      this.out = out;
+      this.fullBlocks = new SpscRing<>(NUM_BLOCKS);
+      this.freeBlocks = new SpscRing<>(NUM_BLOCKS);
+      for (int count = 1; count < NUM_BLOCKS; count++) {
+         freeBlocks.offer(CharBuffer.allocate(blockSize));
+      }
+      this.numWritten = new AtomicLong();
+      this.numPublished = 0;
+      this.block = CharBuffer.allocate(blockSize);
+      this.error = null;
+      this.isClosed = false;
+      this.writer = new Thread(this::drain, "report-writer");
+      this.writer.setDaemon(true);
+      this.writer.start();
+   }
+
+   @Override
+   public void write(char[] chars, int offset, int length) throws IOException {
+      while (length > 0) {
+         if (!block.hasRemaining()) {
+            publish();
+         }
+         int count = Math.min(length, block.remaining());
+         block.put(chars, offset, count);
+         offset += count;
+         length -= count;
+      }
+   }
+
+   @Override
+   public void write(String text, int offset, int length) throws IOException {
+      while (length > 0) {
+         if (!block.hasRemaining()) {
+            publish();
+         }
+         int count = Math.min(length, block.remaining());
+         int position = block.position();
+         text.getChars(offset, offset + count, block.array(), position);
+         block.position(position + count);
+         offset += count;
+         length -= count;
+      }
+   }
+
+   @Override
+   public void write(int character) throws IOException {
+      if (!block.hasRemaining()) {
+         publish();
+      }
+      block.put((char) character);
+   }
+
+   /**
+    * Hands the block being filled to the writing thread and takes a free
+    * block, waiting for one if every block is full.
+    *
+    * @throws IOException If the writer was closed or the other writer
+    * failed.
+    */
+   private void publish() throws IOException {
+      if (isClosed) {
+         throw new IOException("Writer is closed");
+      }
+      throwError();
+      block.flip();
+      fullBlocks.put(block);
+      numPublished++;
+      block = freeBlocks.take();
+      block.clear();
+   }
+
+   /**
+    * Writes full blocks to the other writer and returns them to be filled
+    * again, until the writer is closed.
+    */
+   private void drain() {
+      CharBuffer full;
+      while ((full = fullBlocks.take()) != null) {
+         // After an error the text is discarded, so the producer never waits
+         if (error == null) {
+            try {
+               out.write(full.array(), 0, full.limit());
+            } catch (Throwable e) {
+               // Blocks keep being counted and recycled, so the producer
+               // finds the error instead of waiting forever
+               error = e;
+            }
+         }
+         numWritten.incrementAndGet();
+         freeBlocks.put(full);
+      }
+   }
+
+   /**
+    * Throws the error found by the writing thread, if any. Errors other than
+    * an IOException are thrown wrapped in one.
+    */
+   private void throwError() throws IOException {
+      Throwable found = error;
+      if (found instanceof IOException) {
+         throw (IOException) found;
+      }
+      if (found != null) {
+         throw new IOException("Report could not be written", found);
+      }
+   }
+
+   /**
+    * Hands over the text written so far, waits until the writing thread has
+    * written it and flushes the other writer.
+    *
+    * @throws IOException If the writer was closed or the other writer
+    * failed.
+    */
+   @Override
+   public void flush() throws IOException {
+      if (block.position() > 0) {
+         publish();
+      }
+      int tries = 0;
+      while (numWritten.get() < numPublished) {
+         tries = SpscRing.backOff(tries);
+      }
+      throwError();
+      out.flush();
+   }
+
+   /**
+    * Writes whatever is left, stops the writing thread and closes the other
+    * writer.
+    *
+    * @throws IOException If the other writer failed.
+    */
+   @Override
+   public void close() throws IOException {
+      if (isClosed) {
+         return;
+      }
+      try {
+         flush();
+      } finally {
+         isClosed = true;
+         fullBlocks.close();
+         try {
+            writer.join();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+         }
+         out.close();
+      }
+   }
+}
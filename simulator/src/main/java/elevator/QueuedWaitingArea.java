@@ -0,0 +1,86 @@
+/* File name : QueuedWaitingArea.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program keeps everyone waiting for the elevator in a single line, in
+ * the order they appear in the passenger data. Only the people at the front
+ * of the line can get in, so someone waiting behind a person on another floor
+ * has to wait until the elevator reaches that floor.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class QueuedWaitingArea implements WaitingArea {
+
+   private final PassengerStore store; // Data of the people waiting
+   private final IndexQueue waitingQueue; // Everyone waiting, in order
+
+   /**
+    * Class constructor.
+    *
+    * @param store Store holding the people waiting.
+    */
+   public QueuedWaitingArea(PassengerStore store) {
+      this.store = store;
+      this.waitingQueue = new IndexQueue(store);
+   }
+
+   @Override
+   public void add(int passenger) {
+      waitingQueue.enqueue(passenger);
+   }
+
+   @Override
+   public void clear() {
+      waitingQueue.clear();
+   }
+
+   @Override
+   public boolean hasWaiting(int floorNum) {
+      return !waitingQueue.isEmpty()
+         && store.getFloorEntered(waitingQueue.peek()) == floorNum;
+   }
+
+   @Override
+   public int board(int floorNum) {
+      return hasWaiting(floorNum) ? waitingQueue.dequeue() : -1;
+   }
+
+   @Override
+   public int nextWaitingFloor(int floorNum, boolean isAscending) {
+      // Only the person at the front of the line can get in next
+      if (waitingQueue.isEmpty()) {
+         return -1;
+      }
+      int waitingFloor = store.getFloorEntered(waitingQueue.peek());
+
+      return ((isAscending) ? waitingFloor > floorNum : waitingFloor < floorNum)
+         ? waitingFloor
+         : -1;
+   }
+
+   @Override
+   public int getSize() {
+      return waitingQueue.getSize();
+   }
+
+   @Override
+   public boolean isEmpty() {
+      return waitingQueue.isEmpty();
+   }
+
+   @Override
+   public void writeState(DataOutput output) throws IOException {
+      waitingQueue.writeState(output);
+   }
+
+   @Override
+   public void readState(DataInput input) throws IOException {
+      waitingQueue.readState(input);
+   }
+}
@@ -0,0 +1,160 @@
+/* File name : ReportWriter.java */
+package elevator;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This program is the base of the writers that stream the events of a run to
+ * its report in one of the report formats:
+ *
+ *    text     the human readable report (see TextReportWriter)
+ *    csv      an event log with a row per passenger event (see
+ *             EventLogWriter)
+ *    binary   the same event log in fixed-width binary records
+ *    summary  the aggregate data of the run only (see SummaryReportWriter)
+ *
+ * A report can also be continued from a given length of its file, as when a
+ * run resumes from a checkpoint that recorded how much was written.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public abstract class ReportWriter implements SimulationListener, Closeable {
+
+   private final FileChannel channel; // File of the report, null if unknown
+
+   /**
+    * Class constructor.
+    *
+    * @param channel File the report is written to, or null.
+    */
+   protected ReportWriter(FileChannel channel) {
+      this.channel = channel;
+   }
+
+   /**
+    * Creates a report writer in the given format for the specified file.
+    *
+    * @param format One of SimulationOptions.REPORT_TEXT, REPORT_CSV,
+    * REPORT_BINARY or REPORT_SUMMARY.
+    * @param fileName File name on which the report will be written.
+    * @return Report writer streaming to the file.
+    * @throws IOException If the file can not be opened for writing.
+    */
+   public static ReportWriter open(String format, String fileName)
+      throws IOException {
+
+      return of(format, new FileOutputStream(fileName), null, false);
+   }
+
+   /**
+    * Creates a report writer in the given format continuing the report of
+    * the specified file after its first bytes. Whatever follows them in the
+    * file is discarded.
+    *
+    * @param format One of SimulationOptions.REPORT_TEXT, REPORT_CSV,
+    * REPORT_BINARY or REPORT_SUMMARY.
+    * @param fileName File name on which the report will be written.
+    * @param length No. of bytes of the report to keep, 0 for a new report.
+    * @return Report writer streaming to the file.
+    * @throws IOException If the file can not be opened for writing or is
+    * shorter than the given length.
+    */
+   public static ReportWriter open(String format, String fileName, long length)
+      throws IOException {
+
+      FileChannel channel = openChannel(fileName, length);
+      return of(format, Channels.newOutputStream(channel), channel, length > 0);
+   }
+
+   /**
+    * Creates a report writer in the given format for a stream.
+    *
+    * @param format One of SimulationOptions.REPORT_TEXT, REPORT_CSV,
+    * REPORT_BINARY or REPORT_SUMMARY.
+    * @param output Stream on which the report will be written.
+    * @return Report writer streaming to the stream.
+    */
+   public static ReportWriter of(String format, OutputStream output) {
+      return of(format, output, null, false);
+   }
+
+   /**
+    * Creates a report writer in the given format.
+    *
+    * @param format Report format.
+    * @param output Stream on which the report will be written.
+    * @param channel File the stream writes to, or null.
+    * @param isContinued Whether the stream continues a report.
+    * @return Report writer streaming to the stream.
+    */
+   private static ReportWriter of(String format, OutputStream output,
+      FileChannel channel, boolean isContinued) {
+
+      switch (format) {
+         case SimulationOptions.REPORT_CSV:
+            return new EventLogWriter(new BufferedOutputStream(output),
+               channel, false, isContinued);
+         case SimulationOptions.REPORT_BINARY:
+            return new EventLogWriter(new BufferedOutputStream(output),
+               channel, true, isContinued);
+         case SimulationOptions.REPORT_SUMMARY:
+            return new SummaryReportWriter(new BufferedWriter(
+               new OutputStreamWriter(output)), channel);
+         default:
+            return new TextReportWriter(new BufferedWriter(
+               new OutputStreamWriter(output)), channel);
+      }
+   }
+
+   /**
+    * Opens the file of a report to be continued after its first bytes,
+    * discarding whatever follows them.
+    *
+    * @param fileName File name of the report.
+    * @param length No. of bytes of the report to keep.
+    * @return File positioned at the given length.
+    * @throws IOException If the file can not be opened for writing or is
+    * shorter than the given length.
+    */
+   static FileChannel openChannel(String fileName, long length)
+      throws IOException {
+
+      FileChannel channel = FileChannel.open(Paths.get(fileName),
+         StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      if (channel.size() < length) {
+         channel.close();
+         throw new IOException("Report " + fileName
+            + " is shorter than its checkpoint");
+      }
+      channel.truncate(length);
+      channel.position(length);
+      return channel;
+   }
+
+   /**
+    * Writes the buffered part of the report to the file.
+    */
+   public abstract void flush();
+
+   /**
+    * Writes the buffered part of the report to the file and gets the length
+    * of the report written so far.
+    *
+    * @return No. of bytes in the file.
+    * @throws IOException If the length can not be read or was not opened
+    * with a length to continue from.
+    */
+   public long getLength() throws IOException {
+      if (channel == null) {
+         throw new IOException("Length of the report is not known");
+      }
+      flush();
+      return channel.position();
+   }
+}
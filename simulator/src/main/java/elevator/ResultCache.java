@@ -0,0 +1,285 @@
+/* File name : ResultCache.java */
+package elevator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This program keeps the reports and aggregate data of finished runs on disk,
+ * so simulating the same passengers with the same settings again serves the
+ * stored report instead. An entry is keyed by a SHA-256 hash of the input
+ * file's bytes, or of the settings creating synthetic passengers, together
+ * with every setting that changes the report.
+ *
+ * The cache holds at most a given number of bytes. Serving an entry marks it
+ * as recently used, and once an entry is stored the least recently used ones
+ * are removed until the cache fits. Entries are written to temporary files
+ * and moved into place, so processes and threads sharing a cache never see
+ * a partial entry.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class ResultCache {
+
+   private static final int VERSION = 2; // Changes when reports change
+   private static final String REPORT_SUFFIX = ".report";
+   private static final String STATS_SUFFIX = ".stats";
+
+   private final Path directory; // Folder holding the entries
+   private final long maxBytes; // Most bytes the entries may take
+   private final String settings; // Settings that change the report
+
+   /**
+    * Class constructor.
+    *
+    * @param directory Folder holding the entries, created if it does not
+    * exist.
+    * @param maxBytes Most bytes the entries may take.
+    * @param options Settings of the runs whose results are cached.
+    * @throws IOException If the folder can not be created.
+    */
+   public ResultCache(String directory, long maxBytes, SimulationOptions options)
+      throws IOException {
+
+      this.directory = Files.createDirectories(Paths.get(directory));
+      this.maxBytes = maxBytes;
+      this.settings = "v" + VERSION + " " + options.describeSimulation();
+   }
+
+   /**
+    * Creates the cache asked for by the settings.
+    *
+    * @param options Settings of the run.
+    * @return Cache of the results, null if results are not cached.
+    * @throws IOException If the cache folder can not be created.
+    */
+   public static ResultCache of(SimulationOptions options) throws IOException {
+      if (!options.isCaching()) {
+         return null;
+      }
+      return new ResultCache(options.getCacheDirectory(),
+         options.getCacheSize() * 1024L * 1024L, options);
+   }
+
+   /**
+    * Computes the key of the entry for the passengers of an input file.
+    *
+    * @param inFileName Name of file containing passenger data.
+    * @return Key of the entry.
+    * @throws FileNotFoundException If the input file does not exist.
+    * @throws IOException If the input file can not be read.
+    */
+   public String keyOf(String inFileName) throws IOException {
+      MessageDigest digest = newDigest();
+      digest.update(settings.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 0);
+
+      try (FileInputStream input = new FileInputStream(inFileName)) {
+         FileChannel channel = input.getChannel();
+         ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+         while (channel.read(buffer) >= 0) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+         }
+      }
+      return toHex(digest.digest());
+   }
+
+   /**
+    * Computes the key of the entry for passengers created from a
+    * description, such as the settings of a workload generator.
+    *
+    * @param source Description that always creates the same passengers.
+    * @return Key of the entry.
+    */
+   public String keyOfSource(String source) {
+      MessageDigest digest = newDigest();
+      digest.update(settings.getBytes(StandardCharsets.UTF_8));
+      digest.update((byte) 1);
+      digest.update(source.getBytes(StandardCharsets.UTF_8));
+      return toHex(digest.digest());
+   }
+
+   /**
+    * Copies the stored report of an entry to the output file and marks the
+    * entry as recently used.
+    *
+    * @param key Key of the entry.
+    * @param outFileName Name of file on which the report is written.
+    * @return Aggregate data of the run, null if the entry is not stored.
+    * @throws IOException If the report can not be written.
+    */
+   public SimulationStats serve(String key, String outFileName)
+      throws IOException {
+
+      Path report = directory.resolve(key + REPORT_SUFFIX);
+      Path stats = directory.resolve(key + STATS_SUFFIX);
+      SimulationStats result;
+
+      // An entry removed by another process is a miss
+      try (DataInputStream input = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(stats)))) {
+         result = SimulationStats.readFrom(input);
+         Files.copy(report, Paths.get(outFileName),
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (NoSuchFileException | EOFException e) {
+         return null;
+      }
+
+      FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+      try {
+         Files.setLastModifiedTime(stats, now);
+      } catch (NoSuchFileException e) {
+         // Removed after it was served, which does not matter
+      }
+      return result;
+   }
+
+   /**
+    * Stores the report and aggregate data of a run, then removes the least
+    * recently used entries until the cache fits. A report larger than the
+    * whole cache is not stored, so it does not push out every other entry.
+    *
+    * @param key Key of the entry.
+    * @param outFileName Name of file holding the report.
+    * @param stats Aggregate data of the run.
+    * @throws IOException If the entry can not be written.
+    */
+   public void store(String key, String outFileName, SimulationStats stats)
+      throws IOException {
+
+      if (Files.size(Paths.get(outFileName)) > maxBytes) {
+         return;
+      }
+
+      Path report = directory.resolve(key + REPORT_SUFFIX);
+      Path statsFile = directory.resolve(key + STATS_SUFFIX);
+      Path reportTemp = Files.createTempFile(directory, key, ".tmp");
+      Path statsTemp = Files.createTempFile(directory, key, ".tmp");
+      try {
+         Files.copy(Paths.get(outFileName), reportTemp,
+            StandardCopyOption.REPLACE_EXISTING);
+         try (DataOutputStream output = new DataOutputStream(
+               new BufferedOutputStream(Files.newOutputStream(statsTemp)))) {
+            stats.writeTo(output);
+         }
+
+         // The data is moved last, so an entry with data has its report
+         move(reportTemp, report);
+         move(statsTemp, statsFile);
+      } finally {
+         Files.deleteIfExists(reportTemp);
+         Files.deleteIfExists(statsTemp);
+      }
+      evict();
+   }
+
+   /**
+    * Removes the least recently used entries until the cache fits.
+    *
+    * @throws IOException If the folder can not be listed.
+    */
+   public synchronized void evict() throws IOException {
+      List<Path> entries = new ArrayList<>();
+      long totalBytes = 0;
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+            "*" + STATS_SUFFIX)) {
+         for (Path stats : files) {
+            entries.add(stats);
+            totalBytes += sizeOf(stats) + sizeOf(reportOf(stats));
+         }
+      }
+      if (totalBytes <= maxBytes) {
+         return;
+      }
+
+      entries.sort((first, second) ->
+         Long.compare(modifiedTime(first), modifiedTime(second)));
+      for (Path stats : entries) {
+         if (totalBytes <= maxBytes) {
+            break;
+         }
+         totalBytes -= sizeOf(stats) + sizeOf(reportOf(stats));
+         Files.deleteIfExists(stats);
+         Files.deleteIfExists(reportOf(stats));
+      }
+   }
+
+   /**
+    * Gets the report file of the entry with the given data file.
+    */
+   private static Path reportOf(Path stats) {
+      String name = stats.getFileName().toString();
+      return stats.resolveSibling(
+         name.substring(0, name.length() - STATS_SUFFIX.length()) + REPORT_SUFFIX);
+   }
+
+   /**
+    * Gets the size of a file, 0 if it no longer exists.
+    */
+   private static long sizeOf(Path file) {
+      try {
+         return Files.size(file);
+      } catch (IOException e) {
+         return 0;
+      }
+   }
+
+   /**
+    * Gets the time a file was last used, 0 if it no longer exists.
+    */
+   private static long modifiedTime(Path file) {
+      try {
+         return Files.getLastModifiedTime(file).toMillis();
+      } catch (IOException e) {
+         return 0;
+      }
+   }
+
+   /**
+    * Moves a file into place, replacing any file already there.
+    */
+   private static void move(Path source, Path target) throws IOException {
+      try {
+         Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+         Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+   }
+
+   /**
+    * Creates the digest hashing the keys.
+    */
+   private static MessageDigest newDigest() {
+      try {
+         return MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+         // Every Java platform is required to support SHA-256
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Writes the bytes as lower case hexadecimal digits.
+    */
+   private static String toHex(byte[] bytes) {
+      StringBuilder hex = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+         hex.append(Character.forDigit((b >> 4) & 0xf, 16));
+         hex.append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+   }
+}
@@ -0,0 +1,819 @@
+/* File name : SimulationEngine.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program simulates a bank of operating elevators, going up and down,
+ * stopping at floors where people are waiting or exiting, until no one is
+ * waiting or riding. Passengers are taken from a PassengerSource and every
+ * event is sent to a SimulationListener. A Dispatcher decides which car stops
+ * for the people waiting on a floor. An engine can be used for any number of
+ * runs: the passenger store, elevators and waiting lines are created once and
+ * emptied between runs, and no objects are created while the elevators move
+ * between floors.
+ *
+ * Time is simulated with discrete events: the arrival of a car at its next
+ * stop and the arrival of passengers who start waiting later than the others.
+ * Events are taken from an EventQueue in order of time, so the simulation
+ * jumps from one event to the next instead of counting every unit of time. A
+ * stop lasts the door time plus the boarding time of each passenger getting
+ * out or in, and a car travels each floor in the travel time. The time each
+ * passenger waits and rides is recorded.
+ *
+ * An engine created with metrics enabled also updates a SimulationMetrics at
+ * every stop, departure and arrival; otherwise those updates are skipped.
+ *
+ * A run is either performed at once with run, or one event at a time by
+ * calling start followed by step until it returns false. Passengers come
+ * either from a source or from a PassengerTrace shared with other engines.
+ *
+ * By default every passenger is taken from the source when a run starts. A
+ * streaming engine instead takes passengers from the source only as they
+ * arrive, and lets at most a window of them wait at once: the others are
+ * taken as people get in, so memory holds only the people waiting and
+ * riding, and a run can go on while its source is still being written. With
+ * a single waiting line the report is the same either way. When everyone
+ * waits on their own floor, people beyond the window are not seen by the
+ * cars until there is room for them.
+ *
+ * The state of a run between two events can be written to a checkpoint and
+ * a later run resumed from it. A streaming engine holds only the people
+ * waiting and riding, so its checkpoints stay small however long the run.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationEngine {
+
+   private final ElevatorBank bank; // Elevators reused by every run
+   private final WaitingArea waitingArea; // Waiting lines reused by every run
+   private final Dispatcher dispatcher; // Assigns hall calls to the cars
+   private final String motion; // When a car reverses
+   private final boolean isTravelReported; // Whether floors are reported
+   private final EventQueue events; // Car and passenger arrivals by time
+   private final LatencyRecorder recorder; // Records wait and ride times
+   private final long[] carSeqs; // Order of each car's event, -1 if none
+   private final long[] carTimes; // Time of each car's scheduled event
+   private final int doorTime; // Time to open and close the doors
+   private final int boardTime; // Time for a passenger to get in or out
+   private final boolean hasTimeOptions; // Whether time options were given
+   private final PassengerStore store; // Every passenger of the run
+   private final PassengerView view; // Reused to report passengers
+   private final SimulationMetrics metrics; // Run metrics, null if disabled
+   private final boolean isStreaming; // Whether passengers are taken lazily
+   private final int streamWindow; // Max. people waiting when streaming
+   private PassengerSource source; // Passengers of the run
+   private int pending; // Passenger taken from a stream but not arrived
+   private boolean isSourceDone; // Whether the stream has no passengers left
+   private int nextArrival; // First passenger who has not arrived yet
+   private SimulationListener listener; // Receives the events of the run
+   private boolean isRunning; // Whether the run has not finished yet
+   private boolean isTimed; // Whether latencies are reported
+   private boolean hasArrivalEvent; // Whether passenger arrival is scheduled
+   private long floorStops; // Counts stops where people exited or waited
+   private long now; // Time of the event being simulated
+
+   private static final int ARRIVAL = -1; // Event of passengers arriving
+
+   /**
+    * Class constructor.
+    *
+    * @param options Settings of the building, elevators and policies.
+    */
+   public SimulationEngine(SimulationOptions options) {
+      int numFloors = options.getNumFloors();
+
+      // Each elevator also tracks the number of people inside that will exit
+      // at each floor. Passengers either ride in the order they got in or
+      // are grouped by their destination.
+      this.store = new PassengerStore();
+      this.view = new PassengerView(store, -1);
+      ElevatorCar[] cars = new ElevatorCar[options.getNumCars()];
+      for (int car = 0; car < cars.length; car++) {
+         cars[car] = options.getCarModel().equals(SimulationOptions.CAR_FAST)
+            ? new BucketedElevator(options.getCapacity(), numFloors, store)
+            : new Elevator(options.getCapacity(), numFloors, store);
+      }
+      this.bank = new ElevatorBank(cars, options.getTravelTime());
+
+      // People either wait in a single line or in a line on each floor
+      this.waitingArea =
+         options.getBoarding().equals(SimulationOptions.BOARDING_FLOOR)
+         ? new FloorWaitingArea(numFloors, store)
+         : new QueuedWaitingArea(store);
+
+      switch (options.getDispatch()) {
+         case SimulationOptions.DISPATCH_NEAREST:
+            this.dispatcher = new NearestCarDispatcher();
+            break;
+         case SimulationOptions.DISPATCH_ZONED:
+            this.dispatcher = new ZonedDispatcher();
+            break;
+         default:
+            this.dispatcher = new SweepDispatcher();
+            break;
+      }
+      this.motion = options.getMotion();
+      this.isTravelReported = options.isTravelReported();
+      this.events = new EventQueue();
+      this.recorder = new LatencyRecorder();
+      this.carSeqs = new long[cars.length];
+      this.carTimes = new long[cars.length];
+      this.doorTime = options.getDoorTime();
+      this.boardTime = options.getBoardTime();
+      this.hasTimeOptions = options.isTimed();
+      this.metrics = options.hasMetrics() ? new SimulationMetrics(numFloors) : null;
+      this.isStreaming = options.isStreaming();
+      this.streamWindow = options.getStreamWindow();
+      this.pending = -1;
+      this.nextArrival = 0;
+      this.isRunning = false;
+   }
+
+   /**
+    * Simulates the elevators until every passenger from the source has been
+    * served or skipped.
+    *
+    * @param source Passengers in the order they start waiting.
+    * @param listener Listener notified of every event.
+    * @return Aggregate data of the run.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   public SimulationStats run(PassengerSource source, SimulationListener listener)
+      throws IOException, PassengerDataException {
+
+      start(source, listener);
+      long startNanos = (metrics != null) ? System.nanoTime() : 0;
+      while (step()) {
+         // Every step is an event
+      }
+      if (metrics != null) {
+         metrics.addSimulateNanos(System.nanoTime() - startNanos);
+      }
+
+      return getStats();
+   }
+
+   /**
+    * Simulates the elevators until every passenger of the trace has been
+    * served or skipped. The trace is not changed, so other engines can run
+    * it at the same time.
+    *
+    * @param trace Passengers in the order they start waiting.
+    * @param listener Listener notified of every event.
+    * @return Aggregate data of the run.
+    * @throws IllegalStateException If the engine is streaming.
+    */
+   public SimulationStats run(PassengerTrace trace, SimulationListener listener) {
+      start(trace, listener);
+      long startNanos = (metrics != null) ? System.nanoTime() : 0;
+      try {
+         while (step()) {
+            // Every step is an event
+         }
+      } catch (IOException | PassengerDataException e) {
+         // Only a source is read while the run goes
+         throw new IllegalStateException(e);
+      }
+      if (metrics != null) {
+         metrics.addSimulateNanos(System.nanoTime() - startNanos);
+      }
+
+      return getStats();
+   }
+
+   /**
+    * Prepares a run: empties the elevators and takes everyone from the source.
+    * People arriving at time 0 start waiting at once and the others arrive
+    * as the run goes. Every car starts ascending from the first floor.
+    *
+    * @param source Passengers in the order they start waiting.
+    * @param listener Listener notified of every event.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   public void start(PassengerSource source, SimulationListener listener)
+      throws IOException, PassengerDataException {
+
+      store.clear();
+      store.setRecycling(isStreaming);
+      reset(listener);
+      this.source = source;
+      long startNanos = (metrics != null) ? System.nanoTime() : 0;
+
+      // Passengers come in order of arrival time, so the ones who have not
+      // arrived yet always follow the ones who have
+      if (!isStreaming) {
+         store.ensureCapacity(source.sizeHint());
+         int passenger;
+         while ((passenger = source.nextIndex(store)) >= 0) {
+            if (store.getArrivalTime(passenger) > 0) {
+               isTimed = true;
+            }
+         }
+         this.isSourceDone = true;
+      }
+      if (metrics != null) {
+         metrics.addParseNanos(System.nanoTime() - startNanos);
+      }
+
+      launch();
+   }
+
+   /**
+    * Prepares a run over the passengers of a trace, which are shared rather
+    * than copied.
+    *
+    * @param trace Passengers in the order they start waiting.
+    * @param listener Listener notified of every event.
+    * @throws IllegalStateException If the engine is streaming.
+    */
+   public void start(PassengerTrace trace, SimulationListener listener) {
+      if (isStreaming) {
+         throw new IllegalStateException("A streaming engine needs a source");
+      }
+
+      store.share(trace.getStore());
+      reset(listener);
+      this.isTimed = hasTimeOptions || trace.isTimed();
+      this.isSourceDone = true;
+      try {
+         launch();
+      } catch (IOException | PassengerDataException e) {
+         // Only a source is read while the run goes
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Empties the elevators, waiting lines and events for a new run.
+    *
+    * @param listener Listener notified of every event of the run.
+    */
+   private void reset(SimulationListener listener) {
+      bank.reset();
+      waitingArea.clear();
+      events.clear();
+      recorder.reset(listener);
+      this.nextArrival = 0;
+      this.listener = recorder;
+      this.floorStops = 0;
+      this.now = 0;
+      this.isRunning = false;
+      this.isTimed = hasTimeOptions;
+      this.hasArrivalEvent = false;
+      this.source = null;
+      this.pending = -1;
+      this.isSourceDone = false;
+      if (metrics != null) {
+         metrics.runStarted();
+      }
+   }
+
+   /**
+    * Tells the listener the run started, sends the cars on their way and
+    * lets the people arriving at time 0 start waiting.
+    *
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   private void launch() throws IOException, PassengerDataException {
+      this.listener.simulationStarted(bank.getNumFloors(), bank.getNumCars());
+      for (int car = 0; car < bank.getNumCars(); car++) {
+         carSeqs[car] = -1;
+         schedule(car);
+      }
+      dispatchHallCalls();
+      admitArrivals();
+      this.isRunning = true;
+   }
+
+   /**
+    * Writes the state of the run between two events: the time, the cars and
+    * their riders, the people waiting, the scheduled events, the latencies
+    * recorded so far and the passenger taken from the source who has not
+    * arrived yet. The position of the source is left to the caller.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   public void writeState(DataOutput output) throws IOException {
+      if (!isRunning) {
+         throw new IllegalStateException("No run to write");
+      }
+
+      output.writeLong(now);
+      output.writeLong(floorStops);
+      output.writeBoolean(isTimed);
+      output.writeBoolean(hasArrivalEvent);
+      output.writeInt(nextArrival);
+      output.writeInt(pending);
+      output.writeBoolean(isSourceDone);
+      for (int car = 0; car < carSeqs.length; car++) {
+         output.writeLong(carSeqs[car]);
+         output.writeLong(carTimes[car]);
+      }
+      store.writeState(output);
+      bank.writeState(output);
+      waitingArea.writeState(output);
+      events.writeState(output);
+      recorder.writeState(output);
+   }
+
+   /**
+    * Prepares a run that goes on from the state written by writeState, with
+    * the source already at the passenger following the ones taken before
+    * the state was written. The listener is told the simulation started and
+    * then receives the events after the checkpoint, so a report continued
+    * from the checkpoint ends as if the run had not stopped.
+    *
+    * @param source Passengers not taken from the source before.
+    * @param listener Listener notified of every event.
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   public void resume(PassengerSource source, SimulationListener listener,
+      DataInput input) throws IOException {
+
+      this.now = input.readLong();
+      this.floorStops = input.readLong();
+      this.isTimed = input.readBoolean();
+      this.hasArrivalEvent = input.readBoolean();
+      this.nextArrival = input.readInt();
+      this.pending = input.readInt();
+      this.isSourceDone = input.readBoolean();
+      for (int car = 0; car < carSeqs.length; car++) {
+         carSeqs[car] = input.readLong();
+         carTimes[car] = input.readLong();
+      }
+      store.readState(input);
+      bank.readState(input);
+      waitingArea.readState(input);
+      events.readState(input);
+      recorder.readState(listener, input);
+      this.listener = recorder;
+      this.source = source;
+
+      // Metrics count the people waiting at the checkpoint again
+      if (metrics != null) {
+         metrics.runStarted();
+         for (int passenger = 0; passenger < store.getSize(); passenger++) {
+            if (store.getState(passenger) == PassengerStore.WAITING
+               && passenger != pending
+               && (isStreaming || passenger < nextArrival)) {
+               metrics.passengerArrived(store.getFloorEntered(passenger));
+            }
+         }
+      }
+
+      this.listener.simulationStarted(bank.getNumFloors(), bank.getNumCars());
+      this.isRunning = true;
+   }
+
+   /**
+    * Simulates the next event: either a car reaching its next stop, where
+    * people get off and on before it moves on, or passengers arriving. When
+    * no one is left to arrive, wait or ride the listener is told the
+    * simulation ended.
+    *
+    * @return Boolean indicating if the run continues.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   public boolean step() throws IOException, PassengerDataException {
+      if (!isRunning) {
+         return false;
+      }
+      if (peekArrival() < 0 && waitingArea.isEmpty() && bank.isEmpty()) {
+         isRunning = false;
+         listener.simulationEnded(getStats());
+         return false;
+      }
+
+      // Events of cars sent elsewhere since they were scheduled are skipped
+      while (!events.isEmpty()) {
+         int event = events.peek();
+         long time = events.peekTime();
+         long seq = events.peekSeq();
+         events.remove();
+
+         if (event == ARRIVAL) {
+            now = time;
+            hasArrivalEvent = false;
+            admitArrivals();
+            return true;
+         } else if (carSeqs[event] == seq) {
+            now = time;
+            carSeqs[event] = -1;
+            visit(event);
+            return true;
+         }
+      }
+
+      throw new IllegalStateException("Every car is parked while people wait");
+   }
+
+   /**
+    * Gets the aggregate data of the current or last run, summed over every
+    * car of the bank.
+    *
+    * @return Aggregate data.
+    */
+   public SimulationStats getStats() {
+      int totalServed = 0;
+      int totalSkipped = 0;
+      int totalEmpty = 0;
+      long floorsTravelled = 0;
+      for (int car = 0; car < bank.getNumCars(); car++) {
+         ElevatorCar elevator = bank.getCar(car);
+         totalServed += elevator.getTotalServiced();
+         totalSkipped += elevator.getTotalSkipped();
+         totalEmpty += elevator.getEmptyOccasions();
+         floorsTravelled += bank.getFloorsTravelled(car);
+      }
+
+      return new SimulationStats(totalServed, totalSkipped, totalEmpty,
+         floorStops, recorder.getWaitTimes().copy(),
+         recorder.getRideTimes().copy(), isTimed, floorsTravelled,
+         isTravelReported);
+   }
+
+   /**
+    * Gets the aggregate data of one car in the current or last run.
+    *
+    * @param car Index of the car, starting at 0.
+    * @return Aggregate data of the car.
+    */
+   public SimulationStats getCarStats(int car) {
+      return bank.getCar(car).getStats();
+   }
+
+   /**
+    * Estimates the memory the engine keeps for the passengers of its next
+    * run, which grows with the largest run so far.
+    *
+    * @return Approximate no. of bytes held by the engine's store.
+    */
+   public long getRetainedBytes() {
+      return store.getRetainedBytes();
+   }
+
+   /**
+    * Gets the elevator bank used by the runs.
+    *
+    * @return The engine's elevators.
+    */
+   public ElevatorBank getBank() {
+      return this.bank;
+   }
+
+   /**
+    * Gets the metrics collected over every run of the engine.
+    *
+    * @return Metrics, null if the engine was created without them.
+    */
+   public SimulationMetrics getMetrics() {
+      return this.metrics;
+   }
+
+   /**
+    * Lets people off and on at the car's current stop and sends the car to
+    * its next stop, or parks it if it has nothing left to do.
+    *
+    * @param car Index of the car.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   private void visit(int car) throws IOException, PassengerDataException {
+      ElevatorCar elevator = bank.getCar(car);
+      int floorNum = bank.getFloor(car);
+      boolean isAscending = bank.isAscending(car);
+      boolean isActive = false;
+      boolean hasStopped = false;
+      boolean hasLoaded = false;
+      int numExited = 0;
+      int numBoarded = 0;
+      int numLeftWaiting = 0;
+      long tempExits = elevator.getTotalTempExits();
+
+      bank.arrive(car);
+
+      // People arriving now are in time to get in
+      admitArrivals();
+      recorder.setTime(now);
+
+      if (floorNum == elevator.getNumFloors()) {
+         isAscending = false;
+      } else if (floorNum == 1) {
+         isAscending = true;
+      }
+      bank.setAscending(car, isAscending);
+
+      // Remove people scheduled to get off on current floor
+      if (elevator.getExitRequests(floorNum) > 0) {
+         isActive = !isActive;
+         hasStopped = true;
+         if (isActive) {
+            listener.floorStopped(car + 1, floorNum);
+         }
+
+         int numRiders = elevator.getSize();
+         elevator.unload(floorNum, listener);
+         numExited = numRiders - elevator.getSize();
+
+         // Elevator is empty
+         if (elevator.isEmpty()) {
+            elevator.incrementEmptyOccasions();
+            listener.elevatorEmptied();
+         }
+      }
+
+      // Load people waiting to get in
+      if (waitingArea.hasWaiting(floorNum)) {
+         isActive = !isActive;
+         hasStopped = true;
+         hasLoaded = true;
+         if (isActive) {
+            listener.floorStopped(car + 1, floorNum);
+         }
+
+         do {
+            int passenger = waitingArea.board(floorNum);
+            numLeftWaiting++;
+            // Person does not ride elevator if current floor is destination
+            if (store.getFloorExited(passenger) == floorNum) {
+               store.setState(passenger, PassengerStore.STAYED);
+               listener.passengerStayed(report(passenger));
+            }
+            // Person rides the elevator if it is not full
+            else if (!elevator.isFull()) {
+               elevator.board(passenger);
+               elevator.incrementTotalServiced();
+               numBoarded++;
+               listener.passengerEntered(report(passenger));
+            } else {
+               store.setState(passenger, PassengerStore.SKIPPED);
+               elevator.incrementTotalSkipped();
+               listener.passengerSkipped(report(passenger));
+            }
+
+            // Someone behind the people who left may be waiting here too
+            if (isStreaming) {
+               admitArrivals(false);
+            }
+         } while (waitingArea.hasWaiting(floorNum));
+
+         // Elevator is full
+         if (elevator.isFull()) {
+            listener.elevatorFilled();
+         }
+      }
+      if (hasStopped) {
+         floorStops++;
+         if (metrics != null) {
+            metrics.stopMade(floorNum, numExited,
+               elevator.getTotalTempExits() - tempExits, numBoarded,
+               numLeftWaiting);
+         }
+      }
+
+      // No one is left waiting here, and people who started waiting behind
+      // the ones who got in may need a car
+      bank.clearHallCall(floorNum);
+      dispatchHallCalls();
+
+      // Move to the next floor where people are exiting or waiting, or
+      // to the last floor in the direction of travel if there is none
+      long departTime = hasStopped
+         ? now + doorTime + (long) boardTime * (numExited + numBoarded) : now;
+      if (bank.isIdle(car)) {
+         bank.park(car, departTime);
+      } else {
+         isAscending = turn(car);
+         bank.depart(car, nextFloor(car), departTime);
+         schedule(car);
+         if (metrics != null) {
+            metrics.carDeparted(elevator.getSize(), bank.getArrivalTime(car) - now);
+         }
+      }
+
+      // Direction of elevator, once it is known where the car heads
+      if (isActive || hasLoaded) {
+         listener.directionReported(isAscending);
+      }
+   }
+
+   /**
+    * Assigns every floor where people wait and no car is coming to a car.
+    */
+   private void dispatchHallCalls() {
+      for (int floorNum = waitingArea.nextWaitingFloor(0, true); floorNum > 0;
+         floorNum = waitingArea.nextWaitingFloor(floorNum, true)) {
+         if (bank.getHallCallCar(floorNum) < 0) {
+            int car = dispatcher.assign(floorNum, bank);
+            bank.assignHallCall(floorNum, car, now);
+            schedule(car);
+         }
+      }
+   }
+
+   /**
+    * Moves the passengers arriving by now to the waiting lines and calls
+    * cars for them, then schedules the arrival of the next passenger.
+    *
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   private void admitArrivals() throws IOException, PassengerDataException {
+      admitArrivals(true);
+   }
+
+   /**
+    * Moves the passengers arriving by now to the waiting lines, as many as
+    * there is room for, then schedules the arrival of the next passenger.
+    *
+    * @param isDispatching Whether cars are called for the passengers.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   private void admitArrivals(boolean isDispatching)
+      throws IOException, PassengerDataException {
+
+      int passenger = peekArrival();
+      if (passenger < 0) {
+         return;
+      }
+
+      boolean hasArrived = false;
+      while (passenger >= 0 && store.getArrivalTime(passenger) <= now
+         && (!isStreaming || waitingArea.getSize() < streamWindow)) {
+         if (metrics != null) {
+            metrics.passengerArrived(store.getFloorEntered(passenger));
+         }
+         waitingArea.add(passenger);
+         takeArrival();
+         hasArrived = true;
+         passenger = peekArrival();
+      }
+      if (hasArrived && isDispatching) {
+         dispatchHallCalls();
+      }
+      // People who have arrived but have no room are taken as others leave
+      if (passenger >= 0 && !hasArrivalEvent
+         && store.getArrivalTime(passenger) > now) {
+         events.add(store.getArrivalTime(passenger), ARRIVAL);
+         hasArrivalEvent = true;
+      }
+   }
+
+   /**
+    * Gets the first passenger who has not arrived yet, taking them from the
+    * source if the engine is streaming.
+    *
+    * @return Index of the passenger, -1 if everyone has arrived.
+    * @throws IOException If the passenger data can not be read.
+    * @throws PassengerDataException If the passenger data holds a value that
+    * can not be processed.
+    */
+   private int peekArrival() throws IOException, PassengerDataException {
+      if (!isStreaming) {
+         return (nextArrival < store.getSize()) ? nextArrival : -1;
+      }
+      if (pending < 0 && !isSourceDone) {
+         long startNanos = (metrics != null) ? System.nanoTime() : 0;
+         pending = source.nextIndex(store);
+         if (metrics != null) {
+            metrics.addParseNanos(System.nanoTime() - startNanos);
+         }
+         if (pending < 0) {
+            isSourceDone = true;
+         } else if (store.getArrivalTime(pending) > 0) {
+            isTimed = true;
+         }
+      }
+      return pending;
+   }
+
+   /**
+    * Marks the first passenger who has not arrived yet as arrived.
+    */
+   private void takeArrival() {
+      if (isStreaming) {
+         pending = -1;
+      } else {
+         nextArrival++;
+      }
+   }
+
+   /**
+    * Points the reused view at the passenger so it can be reported.
+    *
+    * @param passenger Index of the passenger.
+    * @return View of the passenger, valid until the next report.
+    */
+   private Passenger report(int passenger) {
+      view.setIndex(passenger);
+      return view;
+   }
+
+   /**
+    * Schedules the arrival of the car at its next stop, unless it is parked
+    * or the arrival is already scheduled.
+    *
+    * @param car Index of the car.
+    */
+   private void schedule(int car) {
+      if (bank.isParked(car)) {
+         return;
+      }
+      long time = bank.getArrivalTime(car);
+      if (carSeqs[car] < 0 || carTimes[car] != time) {
+         carSeqs[car] = events.add(time, car);
+         carTimes[car] = time;
+      }
+   }
+
+   /**
+    * Sets the direction the car leaves its stop in. With the scan motion the
+    * car only reverses at the top and bottom floors. With the look motion it
+    * reverses as soon as no one riding exits and no hall call for it waits
+    * further along. With the nearest motion it heads for the closest floor
+    * where someone riding exits or a hall call for it waits, keeping its
+    * direction on a tie.
+    *
+    * @param car Index of the car, which has someone riding or a hall call.
+    * @return Whether the car travels up.
+    */
+   private boolean turn(int car) {
+      int floorNum = bank.getFloor(car);
+      boolean isAscending = bank.isAscending(car);
+      switch (motion) {
+         case SimulationOptions.MOTION_LOOK:
+            if (nextDemand(car, floorNum, isAscending) < 0
+               && nextDemand(car, floorNum, !isAscending) > 0) {
+               isAscending = !isAscending;
+            }
+            break;
+         case SimulationOptions.MOTION_NEAREST:
+            int ahead = nextDemand(car, floorNum, isAscending);
+            int behind = nextDemand(car, floorNum, !isAscending);
+            if (behind > 0 && (ahead < 0
+               || Math.abs(behind - floorNum) < Math.abs(ahead - floorNum))) {
+               isAscending = !isAscending;
+            }
+            break;
+         default:
+            break;
+      }
+      bank.setAscending(car, isAscending);
+      return isAscending;
+   }
+
+   /**
+    * Finds the closest floor past the given one, in the given direction,
+    * where someone riding the car exits or a hall call for it waits.
+    *
+    * @param car Index of the car.
+    * @param floorNum Floor no. to search from, excluded from the search.
+    * @param isAscending Whether to search the floors above or below.
+    * @return Floor no. with demand, -1 if there is none.
+    */
+   private int nextDemand(int car, int floorNum, boolean isAscending) {
+      int callFloor = bank.nextHallCall(car, floorNum, isAscending);
+      int exitFloor = bank.getCar(car).nextExitFloor(floorNum, isAscending);
+      if (callFloor < 0 || exitFloor < 0) {
+         return Math.max(callFloor, exitFloor);
+      }
+      return isAscending
+         ? Math.min(callFloor, exitFloor) : Math.max(callFloor, exitFloor);
+   }
+
+   /**
+    * Returns the floor no. of the car's next stop. Floors with no one exiting
+    * and no hall call for the car are skipped; if there is no such floor in
+    * the direction of travel, the car travels to the top or bottom floor.
+    *
+    * @param car Index of the car.
+    * @return Floor no. of the next stop.
+    */
+   private int nextFloor(int car) {
+      boolean isAscending = bank.isAscending(car);
+      int next = nextDemand(car, bank.getFloor(car), isAscending);
+      if (next > 0) {
+         return next;
+      }
+      return isAscending ? bank.getNumFloors() : 1;
+   }
+}
@@ -0,0 +1,95 @@
+/* File name : SimulationListener.java */
+package elevator;
+
+/**
+ * The SimulationListener interface receives the events produced by the
+ * elevator simulation as they happen. Implementations decide how each event is
+ * rendered, e.g. streamed to a report file, so the simulation never has to
+ * hold its output in memory.
+ *
+ * Passengers are given as views of the simulation's PassengerStore that are
+ * reused for the next event, so a listener must read what it needs during
+ * the call rather than keep the passenger.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public interface SimulationListener {
+
+   /**
+    * The simulation started.
+    *
+    * @param numFloors Number of floors in the building.
+    * @param numCars Number of cars in the elevator bank.
+    */
+   void simulationStarted(int numFloors, int numCars);
+
+   /**
+    * A car stopped at a floor where people are exiting or waiting. The events
+    * that follow, up to the direction report, happen in that car.
+    *
+    * @param carNum Car no., starting at 1.
+    * @param floorNum Floor no. where the elevator stopped.
+    */
+   void floorStopped(int carNum, int floorNum);
+
+   /**
+    * A passenger reached their destination and left the elevator.
+    *
+    * @param passenger Passenger leaving the elevator.
+    */
+   void passengerExited(Passenger passenger);
+
+   /**
+    * A passenger left the elevator temporarily to let others out.
+    *
+    * @param passenger Passenger temporarily leaving the elevator.
+    */
+   void passengerTempExited(Passenger passenger);
+
+   /**
+    * The elevator became empty after people got off.
+    */
+   void elevatorEmptied();
+
+   /**
+    * A passenger entered the elevator.
+    *
+    * @param passenger Passenger entering the elevator.
+    */
+   void passengerEntered(Passenger passenger);
+
+   /**
+    * A passenger did not ride because the current floor is their destination.
+    *
+    * @param passenger Passenger who stayed on the floor.
+    */
+   void passengerStayed(Passenger passenger);
+
+   /**
+    * A passenger could not ride because the elevator was full.
+    *
+    * @param passenger Passenger who was skipped.
+    */
+   void passengerSkipped(Passenger passenger);
+
+   /**
+    * The elevator is full after people got in.
+    */
+   void elevatorFilled();
+
+   /**
+    * The elevator reports the direction it is travelling in.
+    *
+    * @param isAscending Whether the elevator is ascending.
+    */
+   void directionReported(boolean isAscending);
+
+   /**
+    * The simulation finished; no one is waiting or riding.
+    *
+    * @param stats Aggregate data of the run, summed over every car.
+    */
+   void simulationEnded(SimulationStats stats);
+}
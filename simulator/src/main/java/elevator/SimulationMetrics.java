@@ -0,0 +1,290 @@
+/* File name : SimulationMetrics.java */
+package elevator;
+
+import java.util.Arrays;
+
+/**
+ * This program collects metrics on how a SimulationEngine spends a run and
+ * how its cars behave: stops per floor, riders getting off, on and
+ * temporarily off at each stop, car occupancy, the number of people waiting
+ * on each floor and the time taken by each phase of a run. Updating a metric
+ * is a plain field or array update, and an engine without metrics skips the
+ * updates altogether.
+ *
+ * The metrics are written by the thread running the simulation only. Other
+ * threads, such as an exporter, read them without locking, so values read
+ * while a run goes may lag behind by a few events.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationMetrics {
+
+   private final int numFloors; // Floors of the building, numbered from 1
+   private final long[] stopsPerFloor; // Stops made at each floor
+   private final long[] queueDepths; // People waiting on each floor now
+   private final long[] maxQueueDepths; // Most people waiting on each floor
+   private final LatencyHistogram exitedPerStop; // Riders getting off
+   private final LatencyHistogram boardedPerStop; // Riders getting in
+   private final LatencyHistogram tempExitsPerStop; // Riders stepping out
+   private final LatencyHistogram occupancy; // Riders as each car leaves
+   private long runs; // Runs started
+   private long stops; // Stops where people exited or waited
+   private long occupancyTime; // Riders multiplied by the time they rode
+   private long carTime; // Time cars spent between stops
+   private long parseNanos; // Time spent reading passengers
+   private long simulateNanos; // Time spent simulating, writing included
+   private long writeNanos; // Time spent flushing reports
+
+   /**
+    * Class constructor.
+    *
+    * @param numFloors Number of floors in the building.
+    */
+   public SimulationMetrics(int numFloors) {
+      this.numFloors = numFloors;
+      this.stopsPerFloor = new long[numFloors];
+      this.queueDepths = new long[numFloors];
+      this.maxQueueDepths = new long[numFloors];
+      this.exitedPerStop = new LatencyHistogram();
+      this.boardedPerStop = new LatencyHistogram();
+      this.tempExitsPerStop = new LatencyHistogram();
+      this.occupancy = new LatencyHistogram();
+   }
+
+   /**
+    * Records the start of a run. People still counted as waiting from an
+    * earlier run that did not finish are forgotten.
+    */
+   void runStarted() {
+      runs++;
+      Arrays.fill(queueDepths, 0);
+   }
+
+   /**
+    * Records that a person started waiting on a floor.
+    *
+    * @param floorNum Floor no. where the person waits.
+    */
+   void passengerArrived(int floorNum) {
+      long depth = ++queueDepths[floorNum - 1];
+      if (depth > maxQueueDepths[floorNum - 1]) {
+         maxQueueDepths[floorNum - 1] = depth;
+      }
+   }
+
+   /**
+    * Records a stop where people exited or waited.
+    *
+    * @param floorNum Floor no. of the stop.
+    * @param numExited Riders who got off at their destination.
+    * @param numTempExits Riders who got off temporarily.
+    * @param numBoarded Riders who got in.
+    * @param numLeftWaiting People who stopped waiting on the floor, whether
+    * they got in or not.
+    */
+   void stopMade(int floorNum, int numExited, long numTempExits,
+      int numBoarded, int numLeftWaiting) {
+
+      stops++;
+      stopsPerFloor[floorNum - 1]++;
+      exitedPerStop.record(numExited);
+      tempExitsPerStop.record(numTempExits);
+      boardedPerStop.record(numBoarded);
+      queueDepths[floorNum - 1] -= numLeftWaiting;
+   }
+
+   /**
+    * Records the riders of a car leaving a floor and the time until it
+    * reaches its next stop.
+    *
+    * @param numRiders Riders in the car.
+    * @param travelTime Time until the next stop, stop time included.
+    */
+   void carDeparted(int numRiders, long travelTime) {
+      occupancy.record(numRiders);
+      occupancyTime += numRiders * travelTime;
+      carTime += travelTime;
+   }
+
+   /**
+    * Adds time spent reading passengers.
+    *
+    * @param nanos Elapsed time in nanoseconds.
+    */
+   void addParseNanos(long nanos) {
+      parseNanos += nanos;
+   }
+
+   /**
+    * Adds time spent simulating, including writing events to the report.
+    *
+    * @param nanos Elapsed time in nanoseconds.
+    */
+   void addSimulateNanos(long nanos) {
+      simulateNanos += nanos;
+   }
+
+   /**
+    * Adds time spent flushing the report once the simulation ended.
+    *
+    * @param nanos Elapsed time in nanoseconds.
+    */
+   public void addWriteNanos(long nanos) {
+      writeNanos += nanos;
+   }
+
+   /**
+    * Adds the metrics of another engine serving as many floors.
+    *
+    * @param other Metrics to add.
+    */
+   public void add(SimulationMetrics other) {
+      for (int floor = 0; floor < Math.min(numFloors, other.numFloors); floor++) {
+         stopsPerFloor[floor] += other.stopsPerFloor[floor];
+         queueDepths[floor] += other.queueDepths[floor];
+         maxQueueDepths[floor] = Math.max(maxQueueDepths[floor],
+            other.maxQueueDepths[floor]);
+      }
+      exitedPerStop.add(other.exitedPerStop);
+      boardedPerStop.add(other.boardedPerStop);
+      tempExitsPerStop.add(other.tempExitsPerStop);
+      occupancy.add(other.occupancy);
+      runs += other.runs;
+      stops += other.stops;
+      occupancyTime += other.occupancyTime;
+      carTime += other.carTime;
+      parseNanos += other.parseNanos;
+      simulateNanos += other.simulateNanos;
+      writeNanos += other.writeNanos;
+   }
+
+   /**
+    * Gets the number of floors in the building.
+    *
+    * @return Highest floor no.
+    */
+   public int getNumFloors() {
+      return this.numFloors;
+   }
+
+   /**
+    * Gets the number of runs started.
+    *
+    * @return Runs.
+    */
+   public long getRuns() {
+      return this.runs;
+   }
+
+   /**
+    * Gets the number of stops where people exited or waited.
+    *
+    * @return Stops.
+    */
+   public long getStops() {
+      return this.stops;
+   }
+
+   /**
+    * Gets the number of stops made at each floor.
+    *
+    * @return Stops, the first floor at index 0.
+    */
+   public long[] getStopsPerFloor() {
+      return this.stopsPerFloor.clone();
+   }
+
+   /**
+    * Gets the number of people waiting on each floor.
+    *
+    * @return People waiting, the first floor at index 0.
+    */
+   public long[] getQueueDepths() {
+      return this.queueDepths.clone();
+   }
+
+   /**
+    * Gets the most people that waited on each floor at once.
+    *
+    * @return Max. people waiting, the first floor at index 0.
+    */
+   public long[] getMaxQueueDepths() {
+      return this.maxQueueDepths.clone();
+   }
+
+   /**
+    * Gets the riders getting off at their destination at each stop.
+    *
+    * @return Exits per stop.
+    */
+   public LatencyHistogram getExitedPerStop() {
+      return this.exitedPerStop;
+   }
+
+   /**
+    * Gets the riders getting in at each stop.
+    *
+    * @return Boardings per stop.
+    */
+   public LatencyHistogram getBoardedPerStop() {
+      return this.boardedPerStop;
+   }
+
+   /**
+    * Gets the riders getting off temporarily at each stop.
+    *
+    * @return Temporary exits per stop.
+    */
+   public LatencyHistogram getTempExitsPerStop() {
+      return this.tempExitsPerStop;
+   }
+
+   /**
+    * Gets the riders of each car as it leaves a floor.
+    *
+    * @return Occupancy per departure.
+    */
+   public LatencyHistogram getOccupancy() {
+      return this.occupancy;
+   }
+
+   /**
+    * Gets the average number of riders in a car, weighted by the time they
+    * rode.
+    *
+    * @return Mean occupancy over time.
+    */
+   public double getMeanOccupancy() {
+      return (carTime == 0) ? 0 : (double) occupancyTime / carTime;
+   }
+
+   /**
+    * Gets the time spent reading passengers.
+    *
+    * @return Elapsed time in nanoseconds.
+    */
+   public long getParseNanos() {
+      return this.parseNanos;
+   }
+
+   /**
+    * Gets the time spent simulating, including writing events to the report
+    * as they happen.
+    *
+    * @return Elapsed time in nanoseconds.
+    */
+   public long getSimulateNanos() {
+      return this.simulateNanos;
+   }
+
+   /**
+    * Gets the time spent flushing reports once the simulation ended.
+    *
+    * @return Elapsed time in nanoseconds.
+    */
+   public long getWriteNanos() {
+      return this.writeNanos;
+   }
+}
@@ -0,0 +1,1308 @@
+/* File name : SimulationOptions.java */
+package elevator;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This program holds the settings of a simulation run as given on the command
+ * line. Options come before the input and output file names:
+ *
+ *    --floors N      Number of floors in the building (default 5)
+ *    --capacity N    Number of passengers the elevator can hold (default 5)
+ *    --boarding B    Who can get in at a stop: "queue" for the people at the
+ *                    front of the line in file order (default), "floor" for
+ *                    everyone waiting on the floor
+ *    --car C         How passengers ride: "stack" where the last ones in
+ *                    temporarily exit to let others out (default), "fast"
+ *                    where passengers are grouped by destination
+ *    --cars N        Number of cars in the elevator bank (default 1)
+ *    --dispatch D    Which car stops for people waiting on a floor: "sweep"
+ *                    for the first car sweeping past it (default), "nearest"
+ *                    for the closest car, "zoned" for the car of the floor's
+ *                    zone
+ *    --motion M      When a car reverses: "scan" at the top and bottom
+ *                    floors (default), "look" as soon as no one rides or
+ *                    waits further along, "nearest" whenever the closest
+ *                    floor where someone exits or waits is behind it. Given
+ *                    at all, the report ends with the floors travelled
+ *    --travel-time N Time for a car to travel one floor (default 1)
+ *    --door-time N   Time to open and close the doors at a stop (default 0)
+ *    --board-time N  Time for one passenger to get in or out (default 0)
+ *
+ *    --report-format F
+ *                    What the report holds: "text" for the human readable
+ *                    report (default), "csv" or "binary" for an event log
+ *                    with a record per passenger entering, exiting,
+ *                    temporarily exiting, being skipped or staying (see
+ *                    EventLogWriter), "summary" for the aggregate data of
+ *                    the run only
+ *
+ *    --batch         Simulate many files: the input is a directory or a
+ *                    manifest of input and output file names and the output
+ *                    is a directory (see BatchRunner)
+ *    --campus        Simulate a campus of buildings: the input is a
+ *                    directory with a file per building or a campus file
+ *                    whose first column names the building, and the output
+ *                    is a directory receiving a report per building and the
+ *                    campus report (see CampusRunner)
+ *    --jobs N        Number of files or buildings simulated at the same time,
+ *                    or of worker threads of a service (default: number of
+ *                    processors)
+ *
+ *    --metrics FILE  Dump metrics of the run to the file periodically and at
+ *                    the end, as JSON if the name ends with .json and as
+ *                    Prometheus text otherwise (see MetricsExporter)
+ *    --metrics-interval N
+ *                    Seconds between metrics dumps (default 10)
+ *    --jmx           Publish the metrics as an MBean while the program runs
+ *
+ *    --stream        Take passengers from the input as they arrive instead of
+ *                    reading it all first, so memory holds only the people
+ *                    waiting and riding (see SimulationEngine)
+ *    --stream-window N
+ *                    Most people waiting at once when streaming (default
+ *                    4096)
+ *    --follow N      Stream an input file that is still being written,
+ *                    waiting for new rows until none came for N seconds
+ *
+ *    --checkpoint FILE
+ *                    Stream the input file and save the state of the run to
+ *                    the file periodically (see Checkpointer)
+ *    --checkpoint-interval N
+ *                    Seconds between checkpoints (default 60)
+ *    --resume        Continue the run from the checkpoint file, if there is
+ *                    one, instead of starting over
+ *
+ *    --pipeline      Read the input and write the report on threads of
+ *                    their own while the simulation runs, which streams
+ *                    the input as --stream does (see PipelinedSource,
+ *                    PipelinedWriter and PipelinedOutputStream)
+ *    --pipeline-batch N
+ *                    Passengers handed between the threads at once
+ *                    (default 1024)
+ *
+ *    --sweep NAME=V1,V2,...
+ *                    Simulate the input once for each value of the option
+ *                    NAME, which is floors, capacity, boarding, car, cars,
+ *                    dispatch, motion, travel-time, door-time or
+ *                    board-time. Given for several options, every
+ *                    combination of their values is simulated, and the
+ *                    output file receives a table comparing the results (see
+ *                    ParameterSweep)
+ *
+ *    --serve PORT    Answer simulation requests over HTTP on the local
+ *                    port, 0 for any free port, instead of simulating a
+ *                    file, in which case no file names are given (see
+ *                    SimulationService)
+ *    --serve-queue N Most requests waiting for a worker (default 64)
+ *    --serve-batch N Most waiting requests a worker takes at once (default
+ *                    16)
+ *    --serve-memory N
+ *                    Most megabytes of passenger data and reports held by
+ *                    the requests not answered yet (default 256)
+ *
+ *    --no-cache      Simulate even if the report of the same passengers and
+ *                    settings is cached (see ResultCache)
+ *    --cache-dir DIR Folder of the result cache (default: elevator-cache in
+ *                    the temporary folder)
+ *    --cache-size N  Most megabytes the result cache may take (default 512)
+ *
+ *    --generate N    Simulate N synthetic passengers instead of reading an
+ *                    input file, in which case only the output file name is
+ *                    given (see WorkloadGenerator)
+ *    --pattern P     Traffic of the synthetic passengers: "uniform"
+ *                    (default), "up-peak", "interfloor" or "down-peak"
+ *    --seed N        Seed of the synthetic passengers (default 20201006)
+ *    --arrival-interval N
+ *                    Mean time between synthetic arrivals, 0 for everyone to
+ *                    arrive at once (default 0)
+ *
+ * Times are in the same units as the optional arrival times of the input
+ * file. Giving any time option, or an input file with arrival times, adds
+ * the wait and ride time percentiles to the report.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationOptions implements Cloneable {
+
+   public static final String BOARDING_QUEUE = "queue";
+   public static final String BOARDING_FLOOR = "floor";
+   public static final String CAR_STACK = "stack";
+   public static final String CAR_FAST = "fast";
+   public static final String DISPATCH_SWEEP = "sweep";
+   public static final String DISPATCH_NEAREST = "nearest";
+   public static final String DISPATCH_ZONED = "zoned";
+   public static final String MOTION_SCAN = "scan";
+   public static final String MOTION_LOOK = "look";
+   public static final String MOTION_NEAREST = "nearest";
+   public static final String REPORT_TEXT = "text";
+   public static final String REPORT_CSV = "csv";
+   public static final String REPORT_BINARY = "binary";
+   public static final String REPORT_SUMMARY = "summary";
+
+   // Options that can be swept, named without their leading "--"
+   private static final List<String> SWEEPABLE = Arrays.asList("floors",
+      "capacity", "boarding", "car", "cars", "dispatch", "motion",
+      "travel-time", "door-time", "board-time");
+
+   private int numFloors; // No. of floors in the building
+   private int capacity; // Max. no. of passengers in the elevator
+   private String boarding; // Who can get in when the elevator stops
+   private String carModel; // How passengers ride the elevator
+   private int numCars; // No. of cars in the elevator bank
+   private String dispatch; // Which car stops for people waiting
+   private String motion; // When a car reverses
+   private boolean isTravelReported; // Whether a motion option was given
+   private int travelTime; // Time to travel one floor
+   private int doorTime; // Time to open and close the doors at a stop
+   private int boardTime; // Time for one passenger to get in or out
+   private boolean isTimed; // Whether a time option was given
+   private String reportFormat; // What the report holds
+   private boolean isBatch; // Whether many files are simulated
+   private boolean isCampus; // Whether many buildings are simulated
+   private int numJobs; // No. of files simulated at the same time
+   private String metricsFileName; // File receiving metrics, null if none
+   private int metricsInterval; // Seconds between metrics dumps
+   private boolean isJmx; // Whether metrics are published over JMX
+   private boolean isStreaming; // Whether passengers are taken lazily
+   private int streamWindow; // Max. people waiting when streaming
+   private int followSeconds; // Seconds to wait for new rows, 0 if none
+   private String checkpointFileName; // Checkpoint file, null if none
+   private int checkpointInterval; // Seconds between checkpoints
+   private boolean isResuming; // Whether a run resumes from its checkpoint
+   private Map<String, List<String>> sweeps; // Values of each swept option
+   private boolean isPipelined; // Whether reading and writing run apart
+   private int pipelineBatch; // Passengers handed between threads at once
+   private int servePort; // Port of the service, -1 if not serving
+   private int serveQueue; // Most requests waiting for a worker
+   private int serveBatch; // Most requests a worker takes at once
+   private int serveMemory; // Most megabytes held by unanswered requests
+   private boolean isCaching; // Whether results are cached
+   private String cacheDirectory; // Folder of the result cache
+   private int cacheSize; // Most megabytes the result cache may take
+   private long numGenerated; // No. of synthetic passengers, 0 if none
+   private String pattern; // Traffic of the synthetic passengers
+   private long seed; // Seed of the synthetic passengers
+   private int arrivalInterval; // Mean time between synthetic arrivals
+   private String inFileName; // Name of file containing passenger data
+   private String outFileName; // Name of file on which results are written
+
+   /**
+    * Class constructor with the default settings.
+    */
+   public SimulationOptions() {
+      this.numFloors = Elevator.DEFAULT_NUM_FLOORS;
+      this.capacity = Elevator.DEFAULT_CAPACITY;
+      this.boarding = BOARDING_QUEUE;
+      this.carModel = CAR_STACK;
+      this.numCars = 1;
+      this.dispatch = DISPATCH_SWEEP;
+      this.motion = MOTION_SCAN;
+      this.isTravelReported = false;
+      this.travelTime = 1;
+      this.doorTime = 0;
+      this.boardTime = 0;
+      this.isTimed = false;
+      this.reportFormat = REPORT_TEXT;
+      this.isBatch = false;
+      this.isCampus = false;
+      this.numJobs = Runtime.getRuntime().availableProcessors();
+      this.metricsFileName = null;
+      this.metricsInterval = 10;
+      this.isJmx = false;
+      this.isStreaming = false;
+      this.streamWindow = 4096;
+      this.followSeconds = 0;
+      this.checkpointFileName = null;
+      this.checkpointInterval = 60;
+      this.isResuming = false;
+      this.sweeps = new LinkedHashMap<>();
+      this.isPipelined = false;
+      this.pipelineBatch = 1024;
+      this.servePort = -1;
+      this.serveQueue = 64;
+      this.serveBatch = 16;
+      this.serveMemory = 256;
+      this.isCaching = true;
+      this.cacheDirectory = new File(System.getProperty("java.io.tmpdir"),
+         "elevator-cache").getPath();
+      this.cacheSize = 512;
+      this.numGenerated = 0;
+      this.pattern = WorkloadGenerator.PATTERN_UNIFORM;
+      this.seed = 20201006L;
+      this.arrivalInterval = 0;
+      this.inFileName = null;
+      this.outFileName = null;
+   }
+
+   /**
+    * Reads the settings from the command line arguments.
+    *
+    * @param args Command line arguments.
+    * @return Settings of the simulation run.
+    * @throws IllegalArgumentException If an option is unknown or its value is
+    * not valid, or the file names are missing.
+    */
+   public static SimulationOptions parse(String[] args) {
+      SimulationOptions options = new SimulationOptions();
+      int index = 0;
+
+      while (index < args.length && args[index].startsWith("--")) {
+         String option = args[index++];
+         if (option.equals("--batch")) {
+            options.isBatch = true;
+            continue;
+         }
+         if (option.equals("--campus")) {
+            options.isCampus = true;
+            continue;
+         }
+         if (option.equals("--jmx")) {
+            options.isJmx = true;
+            continue;
+         }
+         if (option.equals("--stream")) {
+            options.isStreaming = true;
+            continue;
+         }
+         if (option.equals("--resume")) {
+            options.isResuming = true;
+            continue;
+         }
+         if (option.equals("--pipeline")) {
+            // Passengers are taken as the simulation needs them, so reading
+            // overlaps the simulation
+            options.isPipelined = true;
+            options.isStreaming = true;
+            continue;
+         }
+         if (option.equals("--no-cache")) {
+            options.isCaching = false;
+            continue;
+         }
+         if (index == args.length) {
+            throw new IllegalArgumentException("Missing value for " + option);
+         }
+         String value = args[index++];
+
+         options.apply(option, value);
+      }
+
+      if (options.isCampus && (options.isBatch || options.isStreaming
+         || options.followSeconds > 0 || !options.sweeps.isEmpty()
+         || options.isPipelined || options.numGenerated > 0)) {
+         throw new IllegalArgumentException("--campus can not be used with "
+            + "--batch, --stream, --follow, --checkpoint, --sweep, --pipeline "
+            + "or --generate");
+      }
+      if (options.isPipelined && (options.isBatch || options.followSeconds > 0
+         || options.checkpointFileName != null || !options.sweeps.isEmpty()
+         || options.numGenerated > 0)) {
+         throw new IllegalArgumentException("--pipeline can not be used with "
+            + "--batch, --follow, --checkpoint, --sweep or --generate");
+      }
+
+      // Sweeps share one trace of passengers, which streaming engines can
+      // not run
+      if (!options.sweeps.isEmpty() && (options.isBatch || options.isStreaming
+         || options.followSeconds > 0 || options.checkpointFileName != null)) {
+         throw new IllegalArgumentException("--sweep can not be used with "
+            + "--batch, --stream, --follow or --checkpoint");
+      }
+      if (!options.sweeps.isEmpty()
+         && !options.reportFormat.equals(REPORT_TEXT)) {
+         throw new IllegalArgumentException(
+            "--report-format can not be used with --sweep");
+      }
+      if (options.isResuming && options.checkpointFileName == null) {
+         throw new IllegalArgumentException("--resume needs --checkpoint");
+      }
+      if (options.checkpointFileName != null
+         && (options.isBatch || options.numGenerated > 0)) {
+         throw new IllegalArgumentException(
+            "--checkpoint can not be used with --batch or --generate");
+      }
+
+      if (options.servePort >= 0 && (options.isBatch || options.isCampus
+         || options.isStreaming || !options.sweeps.isEmpty()
+         || options.isPipelined || options.numGenerated > 0
+         || options.hasMetrics())) {
+         throw new IllegalArgumentException("--serve can not be used with "
+            + "--batch, --campus, --stream, --follow, --checkpoint, --sweep, "
+            + "--pipeline, --generate, --metrics or --jmx");
+      }
+
+      // Requests bring the passengers of a service
+      if (options.servePort >= 0) {
+         if (args.length != index) {
+            throw new IllegalArgumentException(
+               "No file names are expected with --serve");
+         }
+         return options;
+      }
+      // Synthetic passengers take the place of the input file
+      if (options.numGenerated > 0) {
+         if (options.isBatch) {
+            throw new IllegalArgumentException(
+               "--generate can not be used with --batch");
+         }
+         if (args.length - index != 1) {
+            throw new IllegalArgumentException("Expected an output file name");
+         }
+         options.outFileName = args[index];
+         return options;
+      }
+      if (args.length - index != 2) {
+         throw new IllegalArgumentException(
+            "Expected an input and an output file name");
+      }
+      options.inFileName = args[index];
+      options.outFileName = args[index + 1];
+
+      return options;
+   }
+
+   /**
+    * Sets an option that takes a value.
+    *
+    * @param option Name of the option, starting with "--".
+    * @param value Value of the option.
+    * @throws IllegalArgumentException If the option is unknown or its value
+    * is not valid.
+    */
+   private void apply(String option, String value) {
+      switch (option) {
+         case "--floors":
+            this.numFloors = parsePositive(option, value);
+            break;
+         case "--capacity":
+            this.capacity = parsePositive(option, value);
+            break;
+         case "--boarding":
+            this.boarding = parseChoice(option, value,
+               BOARDING_QUEUE, BOARDING_FLOOR);
+            break;
+         case "--car":
+            this.carModel = parseChoice(option, value, CAR_STACK, CAR_FAST);
+            break;
+         case "--cars":
+            this.numCars = parsePositive(option, value);
+            break;
+         case "--dispatch":
+            this.dispatch = parseChoice(option, value,
+               DISPATCH_SWEEP, DISPATCH_NEAREST, DISPATCH_ZONED);
+            break;
+         case "--motion":
+            this.motion = parseChoice(option, value,
+               MOTION_SCAN, MOTION_LOOK, MOTION_NEAREST);
+            this.isTravelReported = true;
+            break;
+         case "--travel-time":
+            this.travelTime = parsePositive(option, value);
+            this.isTimed = true;
+            break;
+         case "--door-time":
+            this.doorTime = parseNonNegative(option, value);
+            this.isTimed = true;
+            break;
+         case "--board-time":
+            this.boardTime = parseNonNegative(option, value);
+            this.isTimed = true;
+            break;
+         case "--jobs":
+            this.numJobs = parsePositive(option, value);
+            break;
+         case "--metrics":
+            this.metricsFileName = value;
+            break;
+         case "--metrics-interval":
+            this.metricsInterval = parsePositive(option, value);
+            break;
+         case "--stream-window":
+            this.streamWindow = parsePositive(option, value);
+            break;
+         case "--follow":
+            this.followSeconds = parsePositive(option, value);
+            this.isStreaming = true;
+            break;
+         case "--checkpoint":
+            this.checkpointFileName = value;
+            this.isStreaming = true;
+            break;
+         case "--checkpoint-interval":
+            this.checkpointInterval = parsePositive(option, value);
+            break;
+         case "--report-format":
+            this.reportFormat = parseChoice(option, value,
+               REPORT_TEXT, REPORT_CSV, REPORT_BINARY, REPORT_SUMMARY);
+            break;
+         case "--pipeline-batch":
+            this.pipelineBatch = parsePositive(option, value);
+            break;
+         case "--serve":
+            this.servePort = parseNonNegative(option, value);
+            if (this.servePort > 65535) {
+               throw new IllegalArgumentException(
+                  "Value of " + option + " must be a port number: " + value);
+            }
+            break;
+         case "--serve-queue":
+            this.serveQueue = parsePositive(option, value);
+            break;
+         case "--serve-batch":
+            this.serveBatch = parsePositive(option, value);
+            break;
+         case "--serve-memory":
+            this.serveMemory = parsePositive(option, value);
+            break;
+         case "--cache-dir":
+            this.cacheDirectory = value;
+            break;
+         case "--cache-size":
+            this.cacheSize = parsePositive(option, value);
+            break;
+         case "--generate":
+            this.numGenerated = parsePositiveLong(option, value);
+            break;
+         case "--pattern":
+            this.pattern = parseChoice(option, value,
+               WorkloadGenerator.PATTERN_UNIFORM,
+               WorkloadGenerator.PATTERN_UP_PEAK,
+               WorkloadGenerator.PATTERN_INTERFLOOR,
+               WorkloadGenerator.PATTERN_DOWN_PEAK);
+            break;
+         case "--seed":
+            try {
+               this.seed = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+               throw new IllegalArgumentException(
+                  "Value of " + option + " must be an integer: " + value);
+            }
+            break;
+         case "--arrival-interval":
+            this.arrivalInterval = parseNonNegative(option, value);
+            break;
+         case "--sweep":
+            addSweep(value);
+            break;
+         default:
+            throw new IllegalArgumentException("Unknown option " + option);
+      }
+   }
+
+   /**
+    * Reads the option and values of a sweep, checking every value.
+    *
+    * @param sweep Option name without "--", "=" and values separated by
+    * commas.
+    * @throws IllegalArgumentException If the option can not be swept or a
+    * value is not valid for it.
+    */
+   private void addSweep(String sweep) {
+      int equals = sweep.indexOf('=');
+      String name = (equals < 0) ? sweep : sweep.substring(0, equals);
+      if (!SWEEPABLE.contains(name)) {
+         throw new IllegalArgumentException("Value of --sweep must start with "
+            + "one of " + String.join(", ", SWEEPABLE) + ": " + sweep);
+      }
+
+      List<String> values = new ArrayList<>();
+      for (String value : sweep.substring(equals + 1).split(",")) {
+         with("--" + name, value.trim());
+         values.add(value.trim());
+      }
+      sweeps.put(name, Collections.unmodifiableList(values));
+   }
+
+   /**
+    * Indicates whether an option only changes how the passengers are
+    * simulated, so it can be swept or given with a request to a service.
+    *
+    * @param name Name of the option, without "--".
+    * @return Boolean indicating if the option is a simulation setting.
+    */
+   public static boolean isSimulationOption(String name) {
+      return SWEEPABLE.contains(name);
+   }
+
+   /**
+    * Copies the settings, changing one option.
+    *
+    * @param option Name of an option that takes a value, starting with "--".
+    * @param value Value of the option.
+    * @return New settings.
+    * @throws IllegalArgumentException If the option is unknown or its value
+    * is not valid.
+    */
+   public SimulationOptions with(String option, String value) {
+      SimulationOptions copy;
+      try {
+         copy = (SimulationOptions) clone();
+      } catch (CloneNotSupportedException e) {
+         throw new AssertionError(e);
+      }
+      copy.sweeps = new LinkedHashMap<>();
+      copy.apply(option, value);
+      return copy;
+   }
+
+   /**
+    * Sets the number of floors in the building.
+    *
+    * @param numFloors No. of floors, at least 1.
+    * @return These settings.
+    */
+   public SimulationOptions setNumFloors(int numFloors) {
+      this.numFloors = requirePositive("--floors", numFloors);
+      return this;
+   }
+
+   /**
+    * Sets the number of passengers the elevator can hold.
+    *
+    * @param capacity Elevator capacity, at least 1.
+    * @return These settings.
+    */
+   public SimulationOptions setCapacity(int capacity) {
+      this.capacity = requirePositive("--capacity", capacity);
+      return this;
+   }
+
+   /**
+    * Sets who can get in when the elevator stops.
+    *
+    * @param boarding Either BOARDING_QUEUE or BOARDING_FLOOR.
+    * @return These settings.
+    */
+   public SimulationOptions setBoarding(String boarding) {
+      this.boarding = parseChoice("--boarding", boarding,
+         BOARDING_QUEUE, BOARDING_FLOOR);
+      return this;
+   }
+
+   /**
+    * Sets how passengers ride the elevator.
+    *
+    * @param carModel Either CAR_STACK or CAR_FAST.
+    * @return These settings.
+    */
+   public SimulationOptions setCarModel(String carModel) {
+      this.carModel = parseChoice("--car", carModel, CAR_STACK, CAR_FAST);
+      return this;
+   }
+
+   /**
+    * Sets the number of cars in the elevator bank.
+    *
+    * @param numCars No. of cars, at least 1.
+    * @return These settings.
+    */
+   public SimulationOptions setNumCars(int numCars) {
+      this.numCars = requirePositive("--cars", numCars);
+      return this;
+   }
+
+   /**
+    * Sets which car stops for people waiting on a floor.
+    *
+    * @param dispatch Either DISPATCH_SWEEP, DISPATCH_NEAREST or
+    * DISPATCH_ZONED.
+    * @return These settings.
+    */
+   public SimulationOptions setDispatch(String dispatch) {
+      this.dispatch = parseChoice("--dispatch", dispatch,
+         DISPATCH_SWEEP, DISPATCH_NEAREST, DISPATCH_ZONED);
+      return this;
+   }
+
+   /**
+    * Sets when a car reverses, and has the floors travelled reported.
+    *
+    * @param motion Either MOTION_SCAN, MOTION_LOOK or MOTION_NEAREST.
+    * @return These settings.
+    */
+   public SimulationOptions setMotion(String motion) {
+      this.motion = parseChoice("--motion", motion,
+         MOTION_SCAN, MOTION_LOOK, MOTION_NEAREST);
+      this.isTravelReported = true;
+      return this;
+   }
+
+   /**
+    * Sets the time for a car to travel one floor.
+    *
+    * @param travelTime Travel time, at least 1.
+    * @return These settings.
+    */
+   public SimulationOptions setTravelTime(int travelTime) {
+      this.travelTime = requirePositive("--travel-time", travelTime);
+      this.isTimed = true;
+      return this;
+   }
+
+   /**
+    * Sets the time to open and close the doors at a stop.
+    *
+    * @param doorTime Door time, at least 0.
+    * @return These settings.
+    */
+   public SimulationOptions setDoorTime(int doorTime) {
+      this.doorTime = requireNonNegative("--door-time", doorTime);
+      this.isTimed = true;
+      return this;
+   }
+
+   /**
+    * Sets the time for one passenger to get in or out.
+    *
+    * @param boardTime Boarding time, at least 0.
+    * @return These settings.
+    */
+   public SimulationOptions setBoardTime(int boardTime) {
+      this.boardTime = requireNonNegative("--board-time", boardTime);
+      this.isTimed = true;
+      return this;
+   }
+
+   /**
+    * Gets the usage message listing the command line options.
+    *
+    * @return Usage message.
+    */
+   public static String usage() {
+      return "Usage:  java ElevatorSimulation [options] [input file pathname]"
+         + " [output file pathname]\n"
+         + "        java ElevatorSimulation [options] --batch [input directory or"
+         + " manifest] [output directory]\n"
+         + "        java ElevatorSimulation [options] --campus [input directory or"
+         + " campus file] [output directory]\n"
+         + "        java ElevatorSimulation [options] --generate N"
+         + " [output file pathname]\n"
+         + "        java ElevatorSimulation [options] --serve PORT\n"
+         + "Options:\n"
+         + "   --floors N      Number of floors in the building (default "
+         + Elevator.DEFAULT_NUM_FLOORS + ")\n"
+         + "   --capacity N    Number of passengers the elevator can hold "
+         + "(default " + Elevator.DEFAULT_CAPACITY + ")\n"
+         + "   --boarding B    Who can get in at a stop: queue (front of the "
+         + "line, default) or floor (everyone on the floor)\n"
+         + "   --car C         How passengers ride: stack (last in exit "
+         + "temporarily, default) or fast (grouped by destination)\n"
+         + "   --cars N        Number of cars in the elevator bank (default 1)\n"
+         + "   --dispatch D    Which car stops for people waiting: sweep "
+         + "(default), nearest or zoned\n"
+         + "   --motion M      When a car reverses: scan (at the end floors, "
+         + "default), look (when no one is further along) or nearest (towards "
+         + "the closest demand); reports the floors travelled\n"
+         + "   --travel-time N Time for a car to travel one floor (default 1)\n"
+         + "   --door-time N   Time to open and close the doors at a stop "
+         + "(default 0)\n"
+         + "   --board-time N  Time for one passenger to get in or out "
+         + "(default 0)\n"
+         + "   --report-format F\n"
+         + "                   What the report holds: text (default), csv or "
+         + "binary (a record per passenger event) or summary (the totals "
+         + "only)\n"
+         + "   --batch         Input is a directory or manifest of files and "
+         + "output is a directory\n"
+         + "   --campus        Input is a directory with a file per building or "
+         + "a file whose first column names the building, and output is a "
+         + "directory\n"
+         + "   --jobs N        Files, buildings or service requests "
+         + "simulated at the same time (default: processors)\n"
+         + "   --metrics FILE  Dump metrics to FILE, as JSON if it ends with "
+         + ".json and Prometheus text otherwise\n"
+         + "   --metrics-interval N\n"
+         + "                   Seconds between metrics dumps (default 10)\n"
+         + "   --jmx           Publish metrics as an MBean while running\n"
+         + "   --stream        Take passengers as they arrive instead of "
+         + "reading the whole input first\n"
+         + "   --stream-window N\n"
+         + "                   Most people waiting at once when streaming "
+         + "(default 4096)\n"
+         + "   --follow N      Stream an input that is still written, until "
+         + "no row came for N seconds\n"
+         + "   --checkpoint FILE\n"
+         + "                   Stream the input and save the state of the run "
+         + "to FILE periodically\n"
+         + "   --checkpoint-interval N\n"
+         + "                   Seconds between checkpoints (default 60)\n"
+         + "   --resume        Continue from the checkpoint file instead of "
+         + "starting over\n"
+         + "   --pipeline      Read the input and write the report on threads "
+         + "of their own, streaming the input\n"
+         + "   --pipeline-batch N\n"
+         + "                   Passengers handed between threads at once "
+         + "(default 1024)\n"
+         + "   --sweep NAME=V1,V2,...\n"
+         + "                   Simulate every value of the option (floors, "
+         + "capacity, boarding, car, cars, dispatch, motion, travel-time, "
+         + "door-time, board-time) and write a table comparing the results\n"
+         + "   --serve PORT    Answer simulation requests over HTTP on the "
+         + "local port (0: any free port)\n"
+         + "   --serve-queue N Most requests waiting for a worker (default 64)\n"
+         + "   --serve-batch N Most waiting requests a worker takes at once "
+         + "(default 16)\n"
+         + "   --serve-memory N\n"
+         + "                   Most megabytes of passenger data and reports "
+         + "held by unanswered requests (default 256)\n"
+         + "   --no-cache      Simulate even if the result is cached\n"
+         + "   --cache-dir DIR Folder of the result cache (default: "
+         + "elevator-cache in the temporary folder)\n"
+         + "   --cache-size N  Most megabytes the result cache may take "
+         + "(default 512)\n"
+         + "   --generate N    Simulate N synthetic passengers instead of an "
+         + "input file\n"
+         + "   --pattern P     Synthetic traffic: uniform (default), up-peak, "
+         + "interfloor or down-peak\n"
+         + "   --seed N        Seed of the synthetic passengers (default "
+         + "20201006)\n"
+         + "   --arrival-interval N\n"
+         + "                   Mean time between synthetic arrivals (default 0:"
+         + " all at once)";
+   }
+
+   /**
+    * Gets the number of floors in the building.
+    *
+    * @return No. of floors.
+    */
+   public int getNumFloors() {
+      return this.numFloors;
+   }
+
+   /**
+    * Gets the number of passengers the elevator can hold.
+    *
+    * @return Elevator capacity.
+    */
+   public int getCapacity() {
+      return this.capacity;
+   }
+
+   /**
+    * Gets who can get in when the elevator stops, either BOARDING_QUEUE or
+    * BOARDING_FLOOR.
+    *
+    * @return Boarding policy.
+    */
+   public String getBoarding() {
+      return this.boarding;
+   }
+
+   /**
+    * Gets how passengers ride the elevator, either CAR_STACK or CAR_FAST.
+    *
+    * @return Car model.
+    */
+   public String getCarModel() {
+      return this.carModel;
+   }
+
+   /**
+    * Gets the number of cars in the elevator bank.
+    *
+    * @return No. of cars.
+    */
+   public int getNumCars() {
+      return this.numCars;
+   }
+
+   /**
+    * Gets which car stops for people waiting on a floor, either
+    * DISPATCH_SWEEP, DISPATCH_NEAREST or DISPATCH_ZONED.
+    *
+    * @return Dispatch policy.
+    */
+   public String getDispatch() {
+      return this.dispatch;
+   }
+
+   /**
+    * Gets when a car reverses, either MOTION_SCAN, MOTION_LOOK or
+    * MOTION_NEAREST.
+    *
+    * @return Motion policy.
+    */
+   public String getMotion() {
+      return this.motion;
+   }
+
+   /**
+    * Indicates whether a motion option was given, so the floors travelled
+    * are reported.
+    *
+    * @return Boolean indicating if the floors travelled are reported.
+    */
+   public boolean isTravelReported() {
+      return this.isTravelReported;
+   }
+
+   /**
+    * Gets the time for a car to travel one floor.
+    *
+    * @return Travel time.
+    */
+   public int getTravelTime() {
+      return this.travelTime;
+   }
+
+   /**
+    * Gets the time to open and close the doors at a stop.
+    *
+    * @return Door time.
+    */
+   public int getDoorTime() {
+      return this.doorTime;
+   }
+
+   /**
+    * Gets the time for one passenger to get in or out.
+    *
+    * @return Boarding time.
+    */
+   public int getBoardTime() {
+      return this.boardTime;
+   }
+
+   /**
+    * Indicates whether a time option was given, so latencies are reported.
+    *
+    * @return Boolean indicating if the run is timed.
+    */
+   public boolean isTimed() {
+      return this.isTimed;
+   }
+
+   /**
+    * Gets what the report holds, either REPORT_TEXT, REPORT_CSV,
+    * REPORT_BINARY or REPORT_SUMMARY.
+    *
+    * @return Report format.
+    */
+   public String getReportFormat() {
+      return this.reportFormat;
+   }
+
+   /**
+    * Indicates whether many files are simulated, in which case the input is a
+    * directory or a manifest and the output is a directory.
+    *
+    * @return Boolean indicating if this is a batch run.
+    */
+   public boolean isBatch() {
+      return this.isBatch;
+   }
+
+   /**
+    * Indicates whether a campus of buildings is simulated, in which case the
+    * input is a directory or a campus file and the output is a directory.
+    *
+    * @return Boolean indicating if this is a campus run.
+    */
+   public boolean isCampus() {
+      return this.isCampus;
+   }
+
+   /**
+    * Gets the number of files simulated at the same time in a batch, or of
+    * buildings in a campus.
+    *
+    * @return No. of worker threads.
+    */
+   public int getNumJobs() {
+      return this.numJobs;
+   }
+
+   /**
+    * Gets the name of the file receiving the metrics dumps.
+    *
+    * @return Metrics file name, null if metrics are not dumped.
+    */
+   public String getMetricsFileName() {
+      return this.metricsFileName;
+   }
+
+   /**
+    * Gets the time between metrics dumps.
+    *
+    * @return Interval in seconds.
+    */
+   public int getMetricsInterval() {
+      return this.metricsInterval;
+   }
+
+   /**
+    * Indicates whether the metrics are published over JMX.
+    *
+    * @return Boolean indicating if an MBean is registered.
+    */
+   public boolean isJmx() {
+      return this.isJmx;
+   }
+
+   /**
+    * Indicates whether the engines collect metrics, which they do only when
+    * the metrics are dumped or published.
+    *
+    * @return Boolean indicating if metrics are collected.
+    */
+   public boolean hasMetrics() {
+      return metricsFileName != null || isJmx;
+   }
+
+   /**
+    * Sets whether passengers are taken from the source only as they arrive.
+    *
+    * @param isStreaming Boolean indicating if passengers are streamed.
+    * @return These settings.
+    */
+   public SimulationOptions setStreaming(boolean isStreaming) {
+      this.isStreaming = isStreaming;
+      return this;
+   }
+
+   /**
+    * Sets the most people waiting at once when streaming.
+    *
+    * @param streamWindow Window size, at least 1.
+    * @return These settings.
+    */
+   public SimulationOptions setStreamWindow(int streamWindow) {
+      this.streamWindow = requirePositive("--stream-window", streamWindow);
+      return this;
+   }
+
+   /**
+    * Indicates whether passengers are taken from the source only as they
+    * arrive.
+    *
+    * @return Boolean indicating if passengers are streamed.
+    */
+   public boolean isStreaming() {
+      return this.isStreaming;
+   }
+
+   /**
+    * Gets the most people waiting at once when streaming.
+    *
+    * @return Window size.
+    */
+   public int getStreamWindow() {
+      return this.streamWindow;
+   }
+
+   /**
+    * Gets the time to wait for new rows of an input file still being
+    * written.
+    *
+    * @return Idle timeout in seconds, 0 if the input file is complete.
+    */
+   public int getFollowSeconds() {
+      return this.followSeconds;
+   }
+
+   /**
+    * Gets the file to which the state of the run is saved periodically.
+    *
+    * @return Checkpoint file name, null if no checkpoints are saved.
+    */
+   public String getCheckpointFileName() {
+      return this.checkpointFileName;
+   }
+
+   /**
+    * Gets the time between checkpoints.
+    *
+    * @return Interval in seconds.
+    */
+   public int getCheckpointInterval() {
+      return this.checkpointInterval;
+   }
+
+   /**
+    * Indicates whether the run continues from its checkpoint file, if there
+    * is one.
+    *
+    * @return Boolean indicating if the run resumes.
+    */
+   public boolean isResuming() {
+      return this.isResuming;
+   }
+
+   /**
+    * Indicates whether the input is read and the report written on threads
+    * apart from the simulation.
+    *
+    * @return Boolean indicating if the run is pipelined.
+    */
+   public boolean isPipelined() {
+      return this.isPipelined;
+   }
+
+   /**
+    * Gets the number of passengers handed between the threads of a pipelined
+    * run at once.
+    *
+    * @return No. of passengers per block.
+    */
+   public int getPipelineBatch() {
+      return this.pipelineBatch;
+   }
+
+   /**
+    * Gets the options swept and their values, in the order given.
+    *
+    * @return Values of each swept option named without "--", empty if the
+    * run is not a sweep.
+    */
+   public Map<String, List<String>> getSweeps() {
+      return Collections.unmodifiableMap(this.sweeps);
+   }
+
+   /**
+    * Indicates whether simulation requests are answered by a service instead
+    * of simulating a file.
+    *
+    * @return Boolean indicating if this is a service run.
+    */
+   public boolean isServing() {
+      return this.servePort >= 0;
+   }
+
+   /**
+    * Gets the local port on which the service takes requests.
+    *
+    * @return Port no., 0 for any free port.
+    */
+   public int getServePort() {
+      return this.servePort;
+   }
+
+   /**
+    * Gets the most requests of a service waiting for a worker at once.
+    *
+    * @return Capacity of the request queue.
+    */
+   public int getServeQueue() {
+      return this.serveQueue;
+   }
+
+   /**
+    * Gets the most waiting requests a worker of a service takes at once.
+    *
+    * @return No. of requests per batch.
+    */
+   public int getServeBatch() {
+      return this.serveBatch;
+   }
+
+   /**
+    * Gets the most passenger data and reports held by the requests of a
+    * service that were not answered yet.
+    *
+    * @return No. of megabytes.
+    */
+   public int getServeMemory() {
+      return this.serveMemory;
+   }
+
+   /**
+    * Sets whether reports are served from the result cache.
+    *
+    * @param isCaching Boolean indicating if results are cached.
+    * @return These settings.
+    */
+   public SimulationOptions setCaching(boolean isCaching) {
+      this.isCaching = isCaching;
+      return this;
+   }
+
+   /**
+    * Indicates whether reports are served from and stored in the result
+    * cache. Input files still being written and runs saving checkpoints are
+    * never cached.
+    *
+    * @return Boolean indicating if results are cached.
+    */
+   public boolean isCaching() {
+      return this.isCaching && this.followSeconds == 0
+         && this.checkpointFileName == null;
+   }
+
+   /**
+    * Gets the folder of the result cache.
+    *
+    * @return Cache folder name.
+    */
+   public String getCacheDirectory() {
+      return this.cacheDirectory;
+   }
+
+   /**
+    * Gets the most space the result cache may take.
+    *
+    * @return Cache size in megabytes.
+    */
+   public int getCacheSize() {
+      return this.cacheSize;
+   }
+
+   /**
+    * Gets the number of synthetic passengers simulated instead of reading an
+    * input file.
+    *
+    * @return No. of passengers, 0 if the input file is read.
+    */
+   public long getNumGenerated() {
+      return this.numGenerated;
+   }
+
+   /**
+    * Gets the traffic pattern of the synthetic passengers.
+    *
+    * @return One of the WorkloadGenerator patterns.
+    */
+   public String getPattern() {
+      return this.pattern;
+   }
+
+   /**
+    * Gets the seed of the synthetic passengers.
+    *
+    * @return Seed of the random number generator.
+    */
+   public long getSeed() {
+      return this.seed;
+   }
+
+   /**
+    * Gets the mean time between the arrivals of synthetic passengers.
+    *
+    * @return Mean interval, 0 if everyone arrives at once.
+    */
+   public int getArrivalInterval() {
+      return this.arrivalInterval;
+   }
+
+   /**
+    * Describes every setting that changes the report of a run, so two runs
+    * of the same passengers with equal descriptions give the same report.
+    *
+    * @return Description of the settings.
+    */
+   public String describeSimulation() {
+      return "floors=" + numFloors + " capacity=" + capacity
+         + " boarding=" + boarding + " car=" + carModel + " cars=" + numCars
+         + " dispatch=" + dispatch + " motion=" + motion
+         + (isTravelReported ? "+travelled" : "") + " travel=" + travelTime
+         + " door=" + doorTime + " board=" + boardTime + " timed=" + isTimed
+         + " stream=" + (isStreaming ? streamWindow : 0)
+         + (reportFormat.equals(REPORT_TEXT) ? "" : " report=" + reportFormat);
+   }
+
+   /**
+    * Gets the name of the file containing passenger data.
+    *
+    * @return Input file name, null if synthetic passengers are simulated.
+    */
+   public String getInFileName() {
+      return this.inFileName;
+   }
+
+   /**
+    * Gets the name of the file on which results are written.
+    *
+    * @return Output file name.
+    */
+   public String getOutFileName() {
+      return this.outFileName;
+   }
+
+   /**
+    * Parses the value of an option that must be a positive integer.
+    */
+   private static int parsePositive(String option, String value) {
+      try {
+         return requirePositive(option, Integer.parseInt(value));
+      } catch (NumberFormatException e) {
+         throw new IllegalArgumentException(
+            "Value of " + option + " must be a positive integer: " + value);
+      }
+   }
+
+   /**
+    * Checks the value of an option that must be a positive integer.
+    */
+   private static int requirePositive(String option, int value) {
+      if (value < 1) {
+         throw new IllegalArgumentException(
+            "Value of " + option + " must be a positive integer: " + value);
+      }
+      return value;
+   }
+
+   /**
+    * Parses the value of an option that must be a positive long integer.
+    */
+   private static long parsePositiveLong(String option, String value) {
+      try {
+         long number = Long.parseLong(value);
+         if (number >= 1) {
+            return number;
+         }
+      } catch (NumberFormatException e) {
+         // Reported below along with values that are too small
+      }
+      throw new IllegalArgumentException(
+         "Value of " + option + " must be a positive integer: " + value);
+   }
+
+   /**
+    * Parses the value of an option that must be an integer of at least 0.
+    */
+   private static int parseNonNegative(String option, String value) {
+      try {
+         return requireNonNegative(option, Integer.parseInt(value));
+      } catch (NumberFormatException e) {
+         throw new IllegalArgumentException(
+            "Value of " + option + " must be a non-negative integer: "
+            + value);
+      }
+   }
+
+   /**
+    * Checks the value of an option that must be an integer of at least 0.
+    */
+   private static int requireNonNegative(String option, int value) {
+      if (value < 0) {
+         throw new IllegalArgumentException(
+            "Value of " + option + " must be a non-negative integer: "
+            + value);
+      }
+      return value;
+   }
+
+   /**
+    * Parses the value of an option that must be one of the given choices.
+    */
+   private static String parseChoice(String option, String value,
+      String... choices) {
+
+      for (String choice : choices) {
+         if (choice.equals(value)) {
+            return choice;
+         }
+      }
+      throw new IllegalArgumentException("Value of " + option + " must be one of "
+         + String.join(", ", choices) + ": " + value);
+   }
+}
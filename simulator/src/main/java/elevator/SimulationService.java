@@ -0,0 +1,1142 @@
+/* File name : SimulationService.java */
+package elevator;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This program answers simulation requests over HTTP on the local machine,
+ * so that what-if questions are answered by a program that is already
+ * running, with its classes loaded and its code compiled, rather than by a
+ * new one each time. It takes three kinds of requests:
+ *
+ *    POST /simulate?floors=9&amp;capacity=8
+ *                    Simulates the rows of passenger data in the body
+ *    GET  /simulate?input=PATH&amp;motion=look
+ *                    Simulates the passengers of an input file, text or
+ *                    binary trace
+ *    GET  /stats     Gets the counts and latencies of the requests as JSON
+ *
+ * Any option that can be swept, or report-format, may be given as a query
+ * parameter, named without "--", and changes the settings of the service for
+ * that request only. The body of the response is the report of the run, the
+ * same as the output file of a single file run, with a content type that
+ * matches its format, and its aggregate data is repeated in
+ * X-Elevator-* headers. A row that can not be processed is answered with
+ * status 422 and the row and column of the faulty value.
+ *
+ * Requests wait in a bounded queue for a pool of worker threads. A worker
+ * takes every waiting request, up to a batch, at once, and the requests of
+ * a batch asking the same question, the same passengers with the same
+ * settings, are answered by a single run. Every worker keeps a
+ * SimulationEngine for each of the settings it was asked for, and the
+ * passenger data those engines keep between runs is held in the memory
+ * budget, up to half of it: a worker whose engines would take more drops
+ * them. A request is
+ * turned away at once with status 503 when the queue is full or when the
+ * passenger data held by the requests not answered yet would go over the
+ * memory budget, so an overloaded service answers fewer requests instead of
+ * running out of memory. Reports are kept in memory until they are sent and
+ * are held in the same budget as they grow: a report that does not fit is
+ * answered with status 503, or 413 if it would not fit even in an idle
+ * service. A run that fails in any other way is answered with status 500
+ * and does not stop its worker.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationService implements Closeable {
+
+   private static final int MAX_ENGINES = 16; // Engines kept by each worker
+   private static final int MAX_BODY = Integer.MAX_VALUE - 8; // Largest array
+   private static final int WARM_UP_PASSENGERS = 50_000; // Per warm-up run
+   private static final int WARM_UP_RUNS = 5; // Runs before taking requests
+   private static final String STATS_HEADER = "X-Elevator-"; // Prefix of data
+   private static final int FIRST_CHUNK = 1 << 16; // Bytes of a report first held
+   private static final int LARGEST_CHUNK = 1 << 22; // Most bytes held at once
+
+   private final SimulationOptions options; // Settings unless a request changes them
+   private final HttpServer server; // Server taking the requests
+   private final ExecutorService receivers; // Threads reading the requests
+   private final BlockingQueue<Request> queue; // Requests waiting for a worker
+   private final Thread[] workers; // Threads simulating the requests
+   private final int batchSize; // Most requests a worker takes at once
+   private final long memoryBytes; // Most bytes held by unanswered requests
+   private long heldBytes; // Bytes held by the requests not answered yet
+   private long engineBytes; // Bytes of the budget held by idle engines
+   private long numReceived; // Requests to simulate received
+   private long numAnswered; // Requests answered with a report
+   private long numFailed; // Requests that could not be simulated
+   private long numRejected; // Requests turned away by an overload
+   private long numBatches; // Batches taken by the workers
+   private long numShared; // Requests answered by another request's run
+   private final LatencyHistogram latencies; // Time to answer, microseconds
+   private final LatencyHistogram queueLatencies; // Time waiting, microseconds
+   private final LatencyHistogram runLatencies; // Time simulating, microseconds
+   private volatile boolean isClosed; // Whether the service was stopped
+
+   /**
+    * Class constructor. The service takes no request until it is started.
+    *
+    * @param options Settings of the service and default settings of the
+    * requests.
+    * @throws IOException If the port can not be bound.
+    */
+   private SimulationService(SimulationOptions options) throws IOException {
+      this.options = options;
+      this.server = HttpServer.create(new InetSocketAddress(
+         InetAddress.getLoopbackAddress(), options.getServePort()), 0);
+      this.receivers = Executors.newFixedThreadPool(
+         Math.max(2, options.getNumJobs()), runnable -> {
+            Thread thread = new Thread(runnable, "service-receiver");
+            thread.setDaemon(true);
+            return thread;
+         });
+      this.queue = new ArrayBlockingQueue<>(options.getServeQueue());
+      this.workers = new Thread[options.getNumJobs()];
+      this.batchSize = options.getServeBatch();
+      this.memoryBytes = options.getServeMemory() * (1L << 20);
+      this.heldBytes = 0;
+      this.engineBytes = 0;
+      this.latencies = new LatencyHistogram();
+      this.queueLatencies = new LatencyHistogram();
+      this.runLatencies = new LatencyHistogram();
+      this.isClosed = false;
+
+      server.setExecutor(receivers);
+      server.createContext("/simulate", this::receive);
+      server.createContext("/stats", this::sendStats);
+   }
+
+   /**
+    * Warms up the simulation and starts taking requests.
+    *
+    * @param options Settings of the service and default settings of the
+    * requests.
+    * @return Running service.
+    * @throws IOException If the port can not be bound.
+    */
+   public static SimulationService start(SimulationOptions options)
+      throws IOException {
+
+      SimulationService service = new SimulationService(options);
+      service.warmUp();
+      for (int index = 0; index < service.workers.length; index++) {
+         service.workers[index] = new Thread(service::work,
+            "service-worker-" + (index + 1));
+         service.workers[index].start();
+      }
+      service.server.start();
+      return service;
+   }
+
+   /**
+    * Gets the port on which the service takes requests.
+    *
+    * @return Local port no.
+    */
+   public int getPort() {
+      return server.getAddress().getPort();
+   }
+
+   /**
+    * Simulates synthetic passengers a few times, the same way as a request,
+    * so the first requests do not wait for the code to be compiled.
+    */
+   private void warmUp() {
+      WorkloadGenerator generator = new WorkloadGenerator(
+         options.getNumFloors(), WARM_UP_PASSENGERS,
+         WorkloadGenerator.PATTERN_UNIFORM, options.getSeed(), 1);
+      ByteArrayOutputStream trace = new ByteArrayOutputStream();
+      try {
+         generator.write(trace);
+      } catch (IOException e) {
+         throw new UncheckedIOException(e);
+      }
+      Request request = new Request(null, options, null, trace.toByteArray(),
+         0, System.nanoTime());
+      SimulationEngine engine = new SimulationEngine(options);
+      for (int run = 0; run < WARM_UP_RUNS; run++) {
+         simulate(request, engine).release();
+      }
+   }
+
+   /**
+    * Reads a simulation request and puts it in the queue, or answers it at
+    * once if it is not valid or the service is overloaded.
+    *
+    * @param exchange Request and its response.
+    */
+   private void receive(HttpExchange exchange) throws IOException {
+      long receivedNanos = System.nanoTime();
+      synchronized (this) {
+         numReceived++;
+      }
+      try {
+         Request request = read(exchange, receivedNanos);
+         if (request == null) {
+            return;
+         }
+         // Taken by a worker, the request is answered from its thread
+         if (isClosed || !queue.offer(request)) {
+            release(request.numBytes);
+            reject(exchange, 503, "Service Overloaded\n");
+         }
+      } catch (RuntimeException | IOException e) {
+         exchange.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Reads the settings and passengers of a simulation request, holding
+    * room in the memory budget for its passenger data.
+    *
+    * @param exchange Request and its response.
+    * @param receivedNanos Time the request was received.
+    * @return Request read, null if it was answered at once.
+    * @throws IOException If the request can not be read or answered.
+    */
+   private Request read(HttpExchange exchange, long receivedNanos)
+      throws IOException {
+
+      String method = exchange.getRequestMethod();
+      if (!method.equals("GET") && !method.equals("POST")) {
+         exchange.getResponseHeaders().set("Allow", "GET, POST");
+         fail(exchange, 405, "Method must be GET or POST\n");
+         return null;
+      }
+      // A full queue turns the request away before its body is read
+      if (queue.remainingCapacity() == 0) {
+         reject(exchange, 503, "Service Overloaded\n");
+         return null;
+      }
+
+      SimulationOptions settings = options;
+      String inFileName = null;
+      try {
+         for (String[] parameter : parseQuery(exchange.getRequestURI()
+               .getRawQuery())) {
+            if (parameter[0].equals("input")) {
+               inFileName = parameter[1];
+            } else if (SimulationOptions.isSimulationOption(parameter[0])
+               || parameter[0].equals("report-format")) {
+               settings = settings.with("--" + parameter[0], parameter[1]);
+            } else {
+               throw new IllegalArgumentException("Unknown parameter "
+                  + parameter[0]);
+            }
+         }
+      } catch (IllegalArgumentException | UnsupportedEncodingException e) {
+         fail(exchange, 400, e.getMessage() + "\n");
+         return null;
+      }
+
+      if (inFileName != null) {
+         File input = new File(inFileName);
+         if (!input.isFile()) {
+            fail(exchange, 404, "File Not Found " + inFileName + "\n");
+            return null;
+         }
+         if (!hold(exchange, input.length())) {
+            return null;
+         }
+         return new Request(exchange, settings, inFileName, null,
+            input.length(), receivedNanos);
+      }
+
+      String length = exchange.getRequestHeaders().getFirst("Content-Length");
+      if (!method.equals("POST") || length == null) {
+         fail(exchange, 411, "Send the passenger data as a POST body with "
+            + "its Content-Length, or give an input file\n");
+         return null;
+      }
+      long numBytes;
+      try {
+         numBytes = Long.parseLong(length.trim());
+      } catch (NumberFormatException e) {
+         fail(exchange, 400, "Invalid Content-Length " + length + "\n");
+         return null;
+      }
+      // The body is read into a single array
+      if (numBytes > MAX_BODY) {
+         synchronized (this) {
+            numRejected++;
+         }
+         answer(exchange, 413, "Passenger data is larger than the largest "
+            + "body of " + MAX_BODY + " bytes\n");
+         return null;
+      }
+      if (numBytes < 0 || !hold(exchange, numBytes)) {
+         return null;
+      }
+      try {
+         byte[] data = readBody(exchange.getRequestBody(), (int) numBytes);
+         return new Request(exchange, settings, null, data, numBytes,
+            receivedNanos);
+      } catch (IOException | RuntimeException e) {
+         release(numBytes);
+         throw e;
+      }
+   }
+
+   /**
+    * Holds room in the memory budget for the passenger data of a request,
+    * answering the request if there is not enough.
+    *
+    * @param exchange Request and its response.
+    * @param numBytes Size of the passenger data.
+    * @return Boolean indicating if room was held.
+    * @throws IOException If the request can not be answered.
+    */
+   private boolean hold(HttpExchange exchange, long numBytes)
+      throws IOException {
+
+      if (numBytes > memoryBytes) {
+         synchronized (this) {
+            numRejected++;
+         }
+         answer(exchange, 413, "Passenger data is larger than the memory "
+            + "budget of " + options.getServeMemory() + " MB\n");
+         return false;
+      }
+      synchronized (this) {
+         if (heldBytes + numBytes <= memoryBytes) {
+            heldBytes += numBytes;
+            return true;
+         }
+      }
+      reject(exchange, 503, "Service Overloaded\n");
+      return false;
+   }
+
+   /**
+    * Gives back the room held by the passenger data of a request.
+    */
+   private synchronized void release(long numBytes) {
+      heldBytes -= numBytes;
+   }
+
+   /**
+    * Holds room in the memory budget for a part of a report.
+    *
+    * @param numBytes Size of the part.
+    * @return Boolean indicating if room was held.
+    */
+   private synchronized boolean holdReport(long numBytes) {
+      if (heldBytes + numBytes > memoryBytes) {
+         return false;
+      }
+      heldBytes += numBytes;
+      return true;
+   }
+
+   /**
+    * Holds room in the memory budget for the passenger data kept by the
+    * engines of a worker. Engines may hold at most half of the budget, so
+    * requests are never turned away for the room held by idle engines
+    * alone.
+    *
+    * @param numBytes Size of the data.
+    * @return Boolean indicating if room was held.
+    */
+   private synchronized boolean holdEngines(long numBytes) {
+      if (engineBytes + numBytes > memoryBytes / 2
+         || heldBytes + numBytes > memoryBytes) {
+         return false;
+      }
+      engineBytes += numBytes;
+      heldBytes += numBytes;
+      return true;
+   }
+
+   /**
+    * Gives back the room held by the passenger data of a worker's engines.
+    */
+   private synchronized void releaseEngines(long numBytes) {
+      engineBytes -= numBytes;
+      heldBytes -= numBytes;
+   }
+
+   /**
+    * Takes batches of requests from the queue and answers them until the
+    * service is stopped.
+    */
+   private void work() {
+      EngineCache engines = new EngineCache();
+      List<Request> batch = new ArrayList<>(batchSize);
+      while (!isClosed) {
+         try {
+            batch.add(queue.take());
+         } catch (InterruptedException e) {
+            break;
+         }
+         queue.drainTo(batch, batchSize - 1);
+         long takenNanos = System.nanoTime();
+         synchronized (this) {
+            numBatches++;
+         }
+
+         // Requests asking the same question as an earlier one share its run
+         boolean[] isAnswered = new boolean[batch.size()];
+         try {
+            for (int first = 0; first < batch.size(); first++) {
+               if (!isAnswered[first]) {
+                  answer(batch, first, isAnswered,
+                     engines.get(batch.get(first).settings), takenNanos);
+                  engines.hold();
+               }
+            }
+         } catch (Throwable e) {
+            // A run that failed badly must not leave the batch unanswered
+            engines.clear();
+            Answer failure = new Answer(500, ("An Error Occurred " + e
+               + "\n").getBytes(), null, System.nanoTime() - takenNanos);
+            for (int index = 0; index < batch.size(); index++) {
+               if (!isAnswered[index]) {
+                  isAnswered[index] = true;
+                  send(batch.get(index), failure, takenNanos, batch.size(),
+                     false);
+               }
+            }
+         }
+         batch.clear();
+      }
+      engines.clear();
+   }
+
+   /**
+    * Simulates a request of a batch and answers it along with the requests
+    * after it that ask the same question, then gives back the room held by
+    * the report.
+    *
+    * @param batch Requests taken at once.
+    * @param first Index of the request to simulate.
+    * @param isAnswered Whether each request of the batch was answered.
+    * @param engine Engine of the request's settings.
+    * @param takenNanos Time the batch was taken.
+    */
+   private void answer(List<Request> batch, int first, boolean[] isAnswered,
+      SimulationEngine engine, long takenNanos) {
+
+      Request request = batch.get(first);
+      Answer answer = simulate(request, engine);
+      try {
+         for (int index = first; index < batch.size(); index++) {
+            if (!isAnswered[index] && request.isSameAs(batch.get(index))) {
+               isAnswered[index] = true;
+               send(batch.get(index), answer, takenNanos, batch.size(),
+                  index != first);
+            }
+         }
+      } finally {
+         answer.release();
+      }
+   }
+
+   /**
+    * Simulates the passengers of a request and keeps its report in memory,
+    * held in the memory budget. The caller gives the room back by
+    * releasing the answer once it is sent.
+    *
+    * @param request Request to simulate.
+    * @param engine Engine of the request's settings.
+    * @return Answer to the request.
+    */
+   private Answer simulate(Request request, SimulationEngine engine) {
+      long start = System.nanoTime();
+      ReportBuffer body = new ReportBuffer(memoryBytes - request.numBytes);
+      try {
+         SimulationStats stats = simulate(request, engine, body);
+         // Writers keep going after a failed write, so the budget is
+         // checked once the run is over
+         if (body.isOverBudget()) {
+            body.release();
+            return body.isTooLarge()
+               ? new Answer(413, ("Report is larger than the memory budget "
+                  + "of " + options.getServeMemory() + " MB\n").getBytes(),
+                  null, System.nanoTime() - start)
+               : new Answer(503, "Service Overloaded\n".getBytes(), null,
+                  System.nanoTime() - start);
+         }
+         return new Answer(body, stats, System.nanoTime() - start);
+      } catch (PassengerDataException e) {
+         body.release();
+         return new Answer(422, e.getReport().getBytes(),
+            null, System.nanoTime() - start);
+      } catch (FileNotFoundException e) {
+         body.release();
+         return new Answer(404, ("File Not Found " + e + "\n").getBytes(),
+            null, System.nanoTime() - start);
+      } catch (IOException | RuntimeException e) {
+         body.release();
+         return new Answer(500, ("An Error Occurred " + e + "\n").getBytes(),
+            null, System.nanoTime() - start);
+      } catch (Error e) {
+         body.release();
+         throw e;
+      }
+   }
+
+   /**
+    * Simulates the passengers of a request, from its body or its input
+    * file, text or binary trace, and writes the report to the stream.
+    */
+   private static SimulationStats simulate(Request request,
+      SimulationEngine engine, OutputStream body)
+      throws IOException, PassengerDataException {
+
+      int numFloors = request.settings.getNumFloors();
+      if (request.inFileName == null) {
+         return simulate(engine, new PassengerParser(request.data, numFloors),
+            request.settings, body);
+      }
+      if (BinaryTraceReader.isTrace(request.inFileName)) {
+         try (BinaryTraceReader trace = new BinaryTraceReader(
+               request.inFileName, numFloors)) {
+            return simulate(engine, trace, request.settings, body);
+         }
+      }
+      try (PassengerParser parser = new PassengerParser(request.inFileName,
+            numFloors)) {
+         return simulate(engine, parser, request.settings, body);
+      }
+   }
+
+   /**
+    * Simulates the passengers of a source and writes the report to the
+    * stream, in the report format of the settings.
+    */
+   private static SimulationStats simulate(SimulationEngine engine,
+      PassengerSource source, SimulationOptions settings, OutputStream body)
+      throws IOException, PassengerDataException {
+
+      ReportWriter report = ReportWriter.of(settings.getReportFormat(), body);
+      SimulationStats stats = engine.run(source, report);
+      report.flush();
+      return stats;
+   }
+
+   /**
+    * Sends the answer to a request, with the aggregate data of its run and
+    * the time it took in headers, and records the latencies of the request.
+    *
+    * @param request Request answered.
+    * @param answer Answer of the run that simulated the request.
+    * @param takenNanos Time the request was taken by a worker.
+    * @param numBatched No. of requests taken along with it.
+    * @param isShared Whether the run was made for another request.
+    */
+   private void send(Request request, Answer answer, long takenNanos,
+      int numBatched, boolean isShared) {
+
+      Headers headers = request.exchange.getResponseHeaders();
+      SimulationStats stats = answer.stats;
+      if (stats != null) {
+         headers.set(STATS_HEADER + "Served",
+            Long.toString(stats.getTotalServed()));
+         headers.set(STATS_HEADER + "Skipped",
+            Long.toString(stats.getTotalSkipped()));
+         headers.set(STATS_HEADER + "Empty",
+            Long.toString(stats.getEmptyOccasions()));
+         headers.set(STATS_HEADER + "Stops",
+            Long.toString(stats.getFloorStops()));
+         if (stats.isTravelReported()) {
+            headers.set(STATS_HEADER + "Travelled",
+               Long.toString(stats.getFloorsTravelled()));
+         }
+         if (stats.isTimed()) {
+            headers.set(STATS_HEADER + "Wait", percentiles(stats.getWaitTimes()));
+            headers.set(STATS_HEADER + "Ride", percentiles(stats.getRideTimes()));
+         }
+      }
+      headers.set(STATS_HEADER + "Queue-Micros",
+         Long.toString((takenNanos - request.receivedNanos) / 1000));
+      headers.set(STATS_HEADER + "Run-Micros",
+         Long.toString(answer.runNanos / 1000));
+      headers.set(STATS_HEADER + "Batch", Integer.toString(numBatched));
+      headers.set(STATS_HEADER + "Shared", Boolean.toString(isShared));
+      if (answer.status == 503) {
+         headers.set("Retry-After", "1");
+      }
+      if (answer.status == 200) {
+         String format = request.settings.getReportFormat();
+         if (format.equals(SimulationOptions.REPORT_CSV)) {
+            headers.set("Content-Type", "text/csv; charset=US-ASCII");
+         } else if (format.equals(SimulationOptions.REPORT_BINARY)) {
+            headers.set("Content-Type", "application/octet-stream");
+         }
+      }
+
+      try {
+         if (answer.report != null) {
+            answer(request.exchange, answer.status, answer.report);
+         } else {
+            answer(request.exchange, answer.status, answer.body);
+         }
+      } catch (IOException e) {
+         // The client went away, nothing is left to answer
+      } finally {
+         release(request.numBytes);
+      }
+
+      long now = System.nanoTime();
+      synchronized (this) {
+         if (answer.status == 200) {
+            numAnswered++;
+         } else if (answer.status == 503 || answer.status == 413) {
+            numRejected++;
+         } else {
+            numFailed++;
+         }
+         if (isShared) {
+            numShared++;
+         }
+         latencies.record((now - request.receivedNanos) / 1000);
+         queueLatencies.record((takenNanos - request.receivedNanos) / 1000);
+         runLatencies.record(answer.runNanos / 1000);
+      }
+   }
+
+   /**
+    * Sends the counts and latencies of the requests as JSON.
+    *
+    * @param exchange Request and its response.
+    */
+   private void sendStats(HttpExchange exchange) throws IOException {
+      StringWriter text = new StringWriter();
+      try (PrintWriter output = new PrintWriter(text)) {
+         synchronized (this) {
+            output.print("{\n");
+            output.printf(Locale.ROOT, "  \"received\": %d,%n", numReceived);
+            output.printf(Locale.ROOT, "  \"answered\": %d,%n", numAnswered);
+            output.printf(Locale.ROOT, "  \"failed\": %d,%n", numFailed);
+            output.printf(Locale.ROOT, "  \"rejected\": %d,%n", numRejected);
+            output.printf(Locale.ROOT, "  \"batches\": %d,%n", numBatches);
+            output.printf(Locale.ROOT, "  \"shared\": %d,%n", numShared);
+            output.printf(Locale.ROOT, "  \"queued\": %d,%n", queue.size());
+            output.printf(Locale.ROOT, "  \"queueCapacity\": %d,%n",
+               options.getServeQueue());
+            output.printf(Locale.ROOT, "  \"heldBytes\": %d,%n", heldBytes);
+            output.printf(Locale.ROOT, "  \"engineBytes\": %d,%n",
+               engineBytes);
+            output.printf(Locale.ROOT, "  \"memoryBytes\": %d,%n", memoryBytes);
+            writeJsonHistogram("latencyMicros", latencies, output, ",");
+            writeJsonHistogram("queueMicros", queueLatencies, output, ",");
+            writeJsonHistogram("runMicros", runLatencies, output, "");
+            output.print("}\n");
+         }
+      }
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      answer(exchange, 200, text.toString().getBytes("UTF-8"));
+   }
+
+   /**
+    * Writes the count, mean, percentiles and maximum of a histogram as a
+    * JSON member.
+    */
+   private static void writeJsonHistogram(String name,
+      LatencyHistogram histogram, PrintWriter output, String separator) {
+
+      output.printf(Locale.ROOT, "  \"%s\": {\"count\": %d, \"mean\": %.3f, "
+         + "\"p50\": %d, \"p95\": %d, \"p99\": %d, \"max\": %d}%s%n", name,
+         histogram.getCount(), histogram.getMean(),
+         histogram.getPercentile(50), histogram.getPercentile(95),
+         histogram.getPercentile(99), histogram.getMax(), separator);
+   }
+
+   /**
+    * Answers a request that can not be simulated as it was sent.
+    */
+   private void fail(HttpExchange exchange, int status, String text)
+      throws IOException {
+
+      synchronized (this) {
+         numFailed++;
+      }
+      answer(exchange, status, text);
+   }
+
+   /**
+    * Turns a request away because the service is overloaded, telling the
+    * client to try again a second later.
+    */
+   private void reject(HttpExchange exchange, int status, String text)
+      throws IOException {
+
+      synchronized (this) {
+         numRejected++;
+      }
+      exchange.getResponseHeaders().set("Retry-After", "1");
+      answer(exchange, status, text);
+   }
+
+   /**
+    * Sends a text response and ends the exchange.
+    */
+   private static void answer(HttpExchange exchange, int status, String text)
+      throws IOException {
+
+      answer(exchange, status, text.getBytes());
+   }
+
+   /**
+    * Sends a response and ends the exchange.
+    */
+   private static void answer(HttpExchange exchange, int status, byte[] body)
+      throws IOException {
+
+      Headers headers = exchange.getResponseHeaders();
+      if (!headers.containsKey("Content-Type")) {
+         headers.set("Content-Type", "text/plain; charset="
+            + Charset.defaultCharset().name());
+      }
+      try {
+         exchange.sendResponseHeaders(status, (body.length > 0) ? body.length : -1);
+         if (body.length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+               output.write(body);
+            }
+         }
+      } finally {
+         exchange.close();
+      }
+   }
+
+   /**
+    * Sends a report kept in memory and ends the exchange.
+    */
+   private static void answer(HttpExchange exchange, int status,
+      ReportBuffer report) throws IOException {
+
+      Headers headers = exchange.getResponseHeaders();
+      if (!headers.containsKey("Content-Type")) {
+         headers.set("Content-Type", "text/plain; charset="
+            + Charset.defaultCharset().name());
+      }
+      try {
+         long length = report.getSize();
+         exchange.sendResponseHeaders(status, (length > 0) ? length : -1);
+         if (length > 0) {
+            try (OutputStream output = exchange.getResponseBody()) {
+               report.writeTo(output);
+            }
+         }
+      } finally {
+         exchange.close();
+      }
+   }
+
+   /**
+    * Reads the body of a request.
+    */
+   private static byte[] readBody(InputStream input, int length)
+      throws IOException {
+
+      byte[] data = new byte[length];
+      int offset = 0;
+      while (offset < length) {
+         int count = input.read(data, offset, length - offset);
+         if (count < 0) {
+            throw new EOFException("Request body is shorter than its length");
+         }
+         offset += count;
+      }
+      return data;
+   }
+
+   /**
+    * Splits a query into the names and decoded values of its parameters.
+    *
+    * @throws IllegalArgumentException If a parameter has no value.
+    */
+   private static List<String[]> parseQuery(String query)
+      throws UnsupportedEncodingException {
+
+      List<String[]> parameters = new ArrayList<>();
+      if (query == null || query.isEmpty()) {
+         return parameters;
+      }
+      for (String parameter : query.split("&")) {
+         int equals = parameter.indexOf('=');
+         if (equals < 0) {
+            throw new IllegalArgumentException("Missing value for parameter "
+               + URLDecoder.decode(parameter, "UTF-8"));
+         }
+         parameters.add(new String[] {
+            URLDecoder.decode(parameter.substring(0, equals), "UTF-8"),
+            URLDecoder.decode(parameter.substring(equals + 1), "UTF-8")});
+      }
+      return parameters;
+   }
+
+   /**
+    * Formats the 50th, 95th and 99th percentiles of the latencies.
+    */
+   private static String percentiles(LatencyHistogram latencies) {
+      return (latencies.getPercentile(50) + "/" + latencies.getPercentile(95)
+         + "/" + latencies.getPercentile(99));
+   }
+
+   /**
+    * Stops taking requests, turns away the ones still waiting and stops the
+    * workers once they answered the ones they took.
+    */
+   @Override
+   public void close() {
+      isClosed = true;
+      server.stop(0);
+      for (Thread worker : workers) {
+         if (worker != null) {
+            worker.interrupt();
+         }
+      }
+      Request request;
+      while ((request = queue.poll()) != null) {
+         release(request.numBytes);
+         try {
+            reject(request.exchange, 503, "Service Stopped\n");
+         } catch (IOException e) {
+            // The client went away, nothing is left to answer
+         }
+      }
+      for (Thread worker : workers) {
+         try {
+            if (worker != null) {
+               worker.join(TimeUnit.SECONDS.toMillis(10));
+            }
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+         }
+      }
+      receivers.shutdown();
+   }
+
+   /**
+    * This class keeps the engines of a worker, one for each of the settings
+    * it was asked for, and holds room in the memory budget for the passenger
+    * data they keep from one run to the next. Once a worker has too many
+    * engines, or their data does not fit in the budget, they are dropped and
+    * created again as needed.
+    */
+   private final class EngineCache {
+
+      private final Map<String, SimulationEngine> engines; // Engine of each setting
+      private long numHeld; // Bytes held in the memory budget
+
+      /**
+       * Class constructor for a worker without engines.
+       */
+      EngineCache() {
+         this.engines = new HashMap<>();
+         this.numHeld = 0;
+      }
+
+      /**
+       * Gets the engine for the settings, creating it the first time they
+       * are asked for.
+       *
+       * @param settings Settings of a request.
+       * @return Engine of the settings.
+       */
+      SimulationEngine get(SimulationOptions settings) {
+         String description = settings.describeSimulation();
+         SimulationEngine engine = engines.get(description);
+         if (engine == null) {
+            if (engines.size() == MAX_ENGINES) {
+               clear();
+            }
+            engine = new SimulationEngine(settings);
+            engines.put(description, engine);
+         }
+         return engine;
+      }
+
+      /**
+       * Holds room for the passenger data the engines kept after a run,
+       * dropping every engine if there is not enough.
+       */
+      void hold() {
+         long numBytes = 0;
+         for (SimulationEngine engine : engines.values()) {
+            numBytes += engine.getRetainedBytes();
+         }
+         if (numBytes <= numHeld) {
+            releaseEngines(numHeld - numBytes);
+            numHeld = numBytes;
+         } else if (holdEngines(numBytes - numHeld)) {
+            numHeld = numBytes;
+         } else {
+            clear();
+         }
+      }
+
+      /**
+       * Drops every engine and gives back the room held by their data.
+       */
+      void clear() {
+         engines.clear();
+         releaseEngines(numHeld);
+         numHeld = 0;
+      }
+   }
+
+   /**
+    * This class holds a simulation request until it is answered.
+    */
+   private static final class Request {
+
+      private final HttpExchange exchange; // Request and its response
+      private final SimulationOptions settings; // Settings of the run
+      private final String description; // Description of the settings
+      private final String inFileName; // Input file, null if data is sent
+      private final byte[] data; // Rows sent, null if an input file is named
+      private final long numBytes; // Room held in the memory budget
+      private final long receivedNanos; // Time the request was received
+
+      /**
+       * Class constructor.
+       *
+       * @param exchange Request and its response.
+       * @param settings Settings of the run.
+       * @param inFileName Name of the input file, or null.
+       * @param data Rows of passenger data, or null.
+       * @param numBytes Room held in the memory budget.
+       * @param receivedNanos Time the request was received.
+       */
+      Request(HttpExchange exchange, SimulationOptions settings,
+         String inFileName, byte[] data, long numBytes, long receivedNanos) {
+
+         this.exchange = exchange;
+         this.settings = settings;
+         this.description = settings.describeSimulation();
+         this.inFileName = inFileName;
+         this.data = data;
+         this.numBytes = numBytes;
+         this.receivedNanos = receivedNanos;
+      }
+
+      /**
+       * Indicates whether the other request asks the same question, so the
+       * same run answers both.
+       *
+       * @param other Request taken in the same batch.
+       * @return Boolean indicating if the requests get the same report.
+       */
+      boolean isSameAs(Request other) {
+         return (description.equals(other.description)
+            && Objects.equals(inFileName, other.inFileName)
+            && Arrays.equals(data, other.data));
+      }
+   }
+
+   /**
+    * This class holds the answer of a run, shared by every request it
+    * answers.
+    */
+   private static final class Answer {
+
+      private final int status; // HTTP status of the response
+      private final ReportBuffer report; // Report of the run, null if failed
+      private final byte[] body; // Why the run failed, null if it did not
+      private final SimulationStats stats; // Data of the run, null if failed
+      private final long runNanos; // Time taken by the run
+
+      /**
+       * Class constructor for a run that could not be simulated.
+       *
+       * @param status HTTP status of the response.
+       * @param body Body of the response.
+       * @param stats Aggregate data of the run, or null.
+       * @param runNanos Time taken by the run.
+       */
+      Answer(int status, byte[] body, SimulationStats stats, long runNanos) {
+         this.status = status;
+         this.report = null;
+         this.body = body;
+         this.stats = stats;
+         this.runNanos = runNanos;
+      }
+
+      /**
+       * Class constructor for a simulated run.
+       *
+       * @param report Report of the run.
+       * @param stats Aggregate data of the run.
+       * @param runNanos Time taken by the run.
+       */
+      Answer(ReportBuffer report, SimulationStats stats, long runNanos) {
+         this.status = 200;
+         this.report = report;
+         this.body = null;
+         this.stats = stats;
+         this.runNanos = runNanos;
+      }
+
+      /**
+       * Gives back the room held by the report in the memory budget.
+       */
+      void release() {
+         if (report != null) {
+            report.release();
+         }
+      }
+   }
+
+   /**
+    * This stream keeps a report in memory in chunks, each held in the
+    * memory budget before it is filled, so the reports waiting to be sent
+    * count against the budget along with the passenger data. Chunks double
+    * in size up to a limit, and are never copied as the report grows. A
+    * write that would go over the budget fails, and so do the ones after
+    * it.
+    */
+   private final class ReportBuffer extends OutputStream {
+
+      private final long limit; // Most bytes the report may hold
+      private final List<byte[]> chunks; // Parts of the report, in order
+      private byte[] chunk; // Part being filled, null before the first
+      private int position; // Bytes filled in the last chunk
+      private long size; // Bytes of the report
+      private long numHeld; // Bytes held in the memory budget
+      private boolean isOverBudget; // Whether a write went over the budget
+      private boolean isTooLarge; // Whether the report is over the limit
+
+      /**
+       * Class constructor.
+       *
+       * @param limit Most bytes the report may hold, the budget left with
+       * no other request held.
+       */
+      ReportBuffer(long limit) {
+         this.limit = limit;
+         this.chunks = new ArrayList<>();
+         this.chunk = null;
+         this.position = 0;
+         this.size = 0;
+         this.numHeld = 0;
+         this.isOverBudget = false;
+         this.isTooLarge = false;
+      }
+
+      @Override
+      public void write(int value) throws IOException {
+         if (chunk == null || position == chunk.length) {
+            grow();
+         }
+         chunk[position++] = (byte) value;
+         size++;
+      }
+
+      @Override
+      public void write(byte[] data, int offset, int length)
+         throws IOException {
+
+         while (length > 0) {
+            if (chunk == null || position == chunk.length) {
+               grow();
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(data, offset, chunk, position, count);
+            position += count;
+            offset += count;
+            length -= count;
+            size += count;
+         }
+      }
+
+      /**
+       * Adds a chunk once room for it is held in the memory budget.
+       *
+       * @throws IOException If the budget has no room for the chunk.
+       */
+      private void grow() throws IOException {
+         int length = (chunk == null)
+            ? FIRST_CHUNK : Math.min(LARGEST_CHUNK, chunk.length * 2);
+         if (isOverBudget || numHeld + length > limit
+            || !holdReport(length)) {
+            isOverBudget = true;
+            isTooLarge |= (numHeld + length > limit);
+            throw new IOException("Report is over the memory budget");
+         }
+         numHeld += length;
+         chunk = new byte[length];
+         chunks.add(chunk);
+         position = 0;
+      }
+
+      /**
+       * Indicates whether a write went over the memory budget, so the report
+       * is not complete.
+       *
+       * @return Boolean indicating if the report is over the budget.
+       */
+      boolean isOverBudget() {
+         return isOverBudget;
+      }
+
+      /**
+       * Indicates whether the report would not fit in the memory budget even
+       * with no other request held.
+       *
+       * @return Boolean indicating if the report is too large.
+       */
+      boolean isTooLarge() {
+         return isTooLarge;
+      }
+
+      /**
+       * Gets the size of the report.
+       *
+       * @return No. of bytes written.
+       */
+      long getSize() {
+         return size;
+      }
+
+      /**
+       * Writes the report to a stream.
+       *
+       * @param output Stream receiving the report.
+       * @throws IOException If the stream can not be written.
+       */
+      void writeTo(OutputStream output) throws IOException {
+         for (byte[] part : chunks) {
+            output.write(part, 0, (part == chunk) ? position : part.length);
+         }
+      }
+
+      /**
+       * Drops the report and gives back the room it held in the memory
+       * budget.
+       */
+      void release() {
+         chunks.clear();
+         chunk = null;
+         position = 0;
+         size = 0;
+         SimulationService.this.release(numHeld);
+         numHeld = 0;
+      }
+   }
+}
@@ -0,0 +1,254 @@
+/* File name : SimulationStats.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * This program holds the aggregate data of a finished simulation run: the
+ * number of passengers served and skipped, the occasions when the elevator
+ * was empty and the number of floor stops the elevator made. Runs using the
+ * time model also hold how long passengers waited and rode, and report the
+ * 50th, 95th and 99th percentiles of both. The floors travelled by the cars
+ * are reported when the run chose how the cars reverse.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationStats {
+
+   private final int totalServed; // Passengers who rode the elevator
+   private final int totalSkipped; // Passengers who found it full
+   private final int totalEmpty; // Occasions the elevator was emptied
+   private final long floorStops; // Stops where people exited or waited
+   private final LatencyHistogram waitTimes; // Time from arrival to boarding
+   private final LatencyHistogram rideTimes; // Time from boarding to exit
+   private final boolean isTimed; // Whether latencies are reported
+   private final long floorsTravelled; // Floors travelled by every car
+   private final boolean isTravelReported; // Whether floors are reported
+
+   /**
+    * Class constructor.
+    *
+    * @param totalServed Number of passengers who rode the elevator.
+    * @param totalSkipped Number of passengers who could not ride it.
+    * @param totalEmpty Number of occasions the elevator was emptied.
+    * @param floorStops Number of floor stops.
+    */
+   public SimulationStats(int totalServed, int totalSkipped, int totalEmpty,
+      long floorStops) {
+
+      this(totalServed, totalSkipped, totalEmpty, floorStops,
+         new LatencyHistogram(), new LatencyHistogram(), false);
+   }
+
+   /**
+    * Class constructor for a run with latencies.
+    *
+    * @param totalServed Number of passengers who rode the elevator.
+    * @param totalSkipped Number of passengers who could not ride it.
+    * @param totalEmpty Number of occasions the elevator was emptied.
+    * @param floorStops Number of floor stops.
+    * @param waitTimes Time each passenger waited before getting in.
+    * @param rideTimes Time each passenger rode before exiting.
+    * @param isTimed Whether the run used the time model, so latencies are
+    * reported.
+    */
+   public SimulationStats(int totalServed, int totalSkipped, int totalEmpty,
+      long floorStops, LatencyHistogram waitTimes, LatencyHistogram rideTimes,
+      boolean isTimed) {
+
+      this(totalServed, totalSkipped, totalEmpty, floorStops, waitTimes,
+         rideTimes, isTimed, 0, false);
+   }
+
+   /**
+    * Class constructor for a run with latencies and floors travelled.
+    *
+    * @param totalServed Number of passengers who rode the elevator.
+    * @param totalSkipped Number of passengers who could not ride it.
+    * @param totalEmpty Number of occasions the elevator was emptied.
+    * @param floorStops Number of floor stops.
+    * @param waitTimes Time each passenger waited before getting in.
+    * @param rideTimes Time each passenger rode before exiting.
+    * @param isTimed Whether the run used the time model, so latencies are
+    * reported.
+    * @param floorsTravelled Number of floors travelled by every car.
+    * @param isTravelReported Whether the floors travelled are reported.
+    */
+   public SimulationStats(int totalServed, int totalSkipped, int totalEmpty,
+      long floorStops, LatencyHistogram waitTimes, LatencyHistogram rideTimes,
+      boolean isTimed, long floorsTravelled, boolean isTravelReported) {
+
+      this.totalServed = totalServed;
+      this.totalSkipped = totalSkipped;
+      this.totalEmpty = totalEmpty;
+      this.floorStops = floorStops;
+      this.waitTimes = waitTimes;
+      this.rideTimes = rideTimes;
+      this.isTimed = isTimed;
+      this.floorsTravelled = floorsTravelled;
+      this.isTravelReported = isTravelReported;
+   }
+
+   /**
+    * Reads aggregate data written by writeTo.
+    *
+    * @param input Source of the data.
+    * @return Aggregate data read.
+    * @throws IOException If the data can not be read or is damaged.
+    */
+   public static SimulationStats readFrom(DataInput input) throws IOException {
+      int totalServed = input.readInt();
+      int totalSkipped = input.readInt();
+      int totalEmpty = input.readInt();
+      long floorStops = input.readLong();
+      boolean isTimed = input.readBoolean();
+      LatencyHistogram waitTimes = LatencyHistogram.readFrom(input);
+      LatencyHistogram rideTimes = LatencyHistogram.readFrom(input);
+      long floorsTravelled = input.readLong();
+      boolean isTravelReported = input.readBoolean();
+
+      return new SimulationStats(totalServed, totalSkipped, totalEmpty,
+         floorStops, waitTimes, rideTimes, isTimed, floorsTravelled,
+         isTravelReported);
+   }
+
+   /**
+    * Writes the aggregate data, latencies included.
+    *
+    * @param output Destination of the data.
+    * @throws IOException If the data can not be written.
+    */
+   public void writeTo(DataOutput output) throws IOException {
+      output.writeInt(totalServed);
+      output.writeInt(totalSkipped);
+      output.writeInt(totalEmpty);
+      output.writeLong(floorStops);
+      output.writeBoolean(isTimed);
+      waitTimes.writeTo(output);
+      rideTimes.writeTo(output);
+      output.writeLong(floorsTravelled);
+      output.writeBoolean(isTravelReported);
+   }
+
+   /**
+    * Gets the number of passengers who rode the elevator.
+    *
+    * @return Total served.
+    */
+   public int getTotalServed() {
+      return this.totalServed;
+   }
+
+   /**
+    * Gets the number of passengers who could not ride the elevator because
+    * it was full.
+    *
+    * @return Total skipped.
+    */
+   public int getTotalSkipped() {
+      return this.totalSkipped;
+   }
+
+   /**
+    * Gets the number of occasions the elevator was emptied.
+    *
+    * @return Empty occasions.
+    */
+   public int getEmptyOccasions() {
+      return this.totalEmpty;
+   }
+
+   /**
+    * Gets the number of stops the elevator made at floors where people
+    * exited or waited.
+    *
+    * @return Floor stops.
+    */
+   public long getFloorStops() {
+      return this.floorStops;
+   }
+
+   /**
+    * Gets the time passengers waited for the elevator.
+    *
+    * @return Wait times.
+    */
+   public LatencyHistogram getWaitTimes() {
+      return this.waitTimes;
+   }
+
+   /**
+    * Gets the time passengers rode the elevator.
+    *
+    * @return Ride times.
+    */
+   public LatencyHistogram getRideTimes() {
+      return this.rideTimes;
+   }
+
+   /**
+    * Indicates whether the run used the time model, so latencies are
+    * reported.
+    *
+    * @return Boolean indicating if latencies are reported.
+    */
+   public boolean isTimed() {
+      return this.isTimed;
+   }
+
+   /**
+    * Gets the number of floors travelled by every car, whether or not they
+    * are reported.
+    *
+    * @return Floors travelled.
+    */
+   public long getFloorsTravelled() {
+      return this.floorsTravelled;
+   }
+
+   /**
+    * Indicates whether the floors travelled are reported.
+    *
+    * @return Boolean indicating if the floors travelled are reported.
+    */
+   public boolean isTravelReported() {
+      return this.isTravelReported;
+   }
+
+   /**
+    * Gets the aggregate data in the same format as the elevator's report,
+    * followed by the floors travelled if they are reported and the latency
+    * percentiles if the run used the time model.
+    *
+    * @return The aggregate data as a string.
+    */
+   @Override
+   public String toString() {
+      String totals = "Total served: " + this.totalServed + "\n"
+         + "Total Skipped: " + this.totalSkipped + "\n"
+         + "Empty Occasions: " + this.totalEmpty;
+      if (isTravelReported) {
+         totals += "\nFloors Travelled: " + this.floorsTravelled;
+      }
+      if (!isTimed) {
+         return totals;
+      }
+
+      return (totals + "\n"
+         + "Wait Time p50/p95/p99: " + percentiles(waitTimes) + "\n"
+         + "Ride Time p50/p95/p99: " + percentiles(rideTimes));
+   }
+
+   /**
+    * Formats the 50th, 95th and 99th percentiles of the latencies.
+    */
+   private static String percentiles(LatencyHistogram latencies) {
+      return (latencies.getPercentile(50) + " / "
+         + latencies.getPercentile(95) + " / "
+         + latencies.getPercentile(99));
+   }
+}
@@ -0,0 +1,171 @@
+/* File name : SpscRing.java */
+package elevator;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This program is a bounded ring buffer passing objects from one producer
+ * thread to one consumer thread without locks. Each side owns one counter:
+ * the producer publishes a slot by advancing the tail after filling it, and
+ * the consumer frees a slot by advancing the head after emptying it, so
+ * neither side ever writes what the other writes. Each side also keeps the
+ * last value it read of the other's counter and only reads it again when the
+ * ring looks full or empty.
+ *
+ * A producer putting into a full ring waits until the consumer makes room,
+ * which holds back a stage that runs ahead of the next one. A waiting thread
+ * spins briefly, then yields, then parks for short periods. Closing the ring
+ * releases both sides: puts fail and takes return what is left, then null.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+final class SpscRing<E> {
+
+   private static final int SPINS = 100; // Tries before yielding
+   private static final int YIELDS = 200; // Tries before parking
+   private static final long PARK_NANOS = 50_000; // Time parked per try
+
+   private final Object[] slots; // Objects in the ring, null if free
+   private final int mask; // Capacity minus one, to wrap counters
+   private final AtomicLong head; // Next slot to take, consumer's counter
+   private final AtomicLong tail; // Next slot to put, producer's counter
+   private long knownHead; // Head last read by the producer
+   private long knownTail; // Tail last read by the consumer
+   private volatile boolean isClosed; // Whether puts have been stopped
+
+   /**
+    * Class constructor.
+    *
+    * @param capacity Most objects in the ring, rounded up to a power of 2.
+    */
+   SpscRing(int capacity) {
+      int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+      this.slots = new Object[size];
+      this.mask = size - 1;
+      this.head = new AtomicLong();
+      this.tail = new AtomicLong();
+      this.knownHead = 0;
+      this.knownTail = 0;
+      this.isClosed = false;
+   }
+
+   /**
+    * Puts an object in the ring if there is room. Called by the producer
+    * only.
+    *
+    * @param element Object to put, not null.
+    * @return Boolean indicating if the object was put.
+    */
+   boolean offer(E element) {
+      long next = tail.get();
+      if (next - knownHead == slots.length) {
+         knownHead = head.get();
+         if (next - knownHead == slots.length) {
+            return false;
+         }
+      }
+      slots[(int) next & mask] = element;
+      // The slot is filled before the consumer can see it
+      tail.lazySet(next + 1);
+      return true;
+   }
+
+   /**
+    * Takes the oldest object from the ring if there is one. Called by the
+    * consumer only.
+    *
+    * @return Object taken, null if the ring is empty.
+    */
+   @SuppressWarnings("unchecked")
+   E poll() {
+      long next = head.get();
+      if (next == knownTail) {
+         knownTail = tail.get();
+         if (next == knownTail) {
+            return null;
+         }
+      }
+      int slot = (int) next & mask;
+      E element = (E) slots[slot];
+      slots[slot] = null;
+      // The slot is emptied before the producer can fill it again
+      head.lazySet(next + 1);
+      return element;
+   }
+
+   /**
+    * Puts an object in the ring, waiting for room. Called by the producer
+    * only.
+    *
+    * @param element Object to put, not null.
+    * @return Boolean indicating if the object was put, false if the ring was
+    * closed.
+    */
+   boolean put(E element) {
+      int tries = 0;
+      while (!offer(element)) {
+         if (isClosed) {
+            return false;
+         }
+         tries = backOff(tries);
+      }
+      return true;
+   }
+
+   /**
+    * Takes the oldest object from the ring, waiting for one. Called by the
+    * consumer only.
+    *
+    * @return Object taken, null if the ring is empty and closed.
+    */
+   E take() {
+      int tries = 0;
+      E element;
+      while ((element = poll()) == null) {
+         if (isClosed) {
+            // An object may have been put just before the ring was closed
+            return poll();
+         }
+         tries = backOff(tries);
+      }
+      return element;
+   }
+
+   /**
+    * Indicates whether the ring holds no objects. Called by the consumer
+    * only, or by the producer to see if everything was taken.
+    *
+    * @return Boolean indicating if the ring is empty.
+    */
+   boolean isEmpty() {
+      return head.get() == tail.get();
+   }
+
+   /**
+    * Stops further puts and wakes both sides from waiting.
+    */
+   void close() {
+      isClosed = true;
+   }
+
+   /**
+    * Waits a little longer each time a side finds the ring full or empty, or
+    * a thread waits for the other side in some other way.
+    *
+    * @param tries No. of times the thread waited so far.
+    * @return No. of times the thread waited, this one included.
+    */
+   static int backOff(int tries) {
+      if (tries < SPINS) {
+         // Busy wait, the other side is usually about to catch up
+      } else if (tries < SPINS + YIELDS) {
+         Thread.yield();
+      } else {
+         LockSupport.parkNanos(PARK_NANOS);
+      }
+      return tries + 1;
+   }
+}
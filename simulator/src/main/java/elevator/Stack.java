@@ -1,4 +1,5 @@
 /* File name : Stack.java */
+package elevator;
 
 /**
  * The Stack program implements a Stack ADT using a linked-list. Passenger
@@ -0,0 +1,96 @@
+/* File name : SummaryReportWriter.java */
+package elevator;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+
+/**
+ * This program writes only the aggregate data of a run, as the text report
+ * ends with, and ignores the events of every stop. The report of a large run
+ * is then a few lines long and takes no time to write.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SummaryReportWriter extends ReportWriter {
+
+   private final PrintWriter output; // Destination of the report
+
+   /**
+    * Class constructor.
+    *
+    * @param writer Writer on which the report will be written.
+    * @param channel File the writer writes to, or null.
+    */
+   SummaryReportWriter(Writer writer, FileChannel channel) {
+      super(channel);
+      this.output = new PrintWriter(writer);
+   }
+
+   @Override
+   public void simulationStarted(int numFloors, int numCars) {
+   }
+
+   @Override
+   public void floorStopped(int carNum, int floorNum) {
+   }
+
+   @Override
+   public void passengerExited(Passenger passenger) {
+   }
+
+   @Override
+   public void passengerTempExited(Passenger passenger) {
+   }
+
+   @Override
+   public void elevatorEmptied() {
+   }
+
+   @Override
+   public void passengerEntered(Passenger passenger) {
+   }
+
+   @Override
+   public void passengerStayed(Passenger passenger) {
+   }
+
+   @Override
+   public void passengerSkipped(Passenger passenger) {
+   }
+
+   @Override
+   public void elevatorFilled() {
+   }
+
+   @Override
+   public void directionReported(boolean isAscending) {
+   }
+
+   @Override
+   public void simulationEnded(SimulationStats stats) {
+      output.print(stats.toString());
+      output.print("\n");
+   }
+
+   @Override
+   public void flush() {
+      output.flush();
+   }
+
+   /**
+    * Flushes and closes the report.
+    *
+    * @throws IOException If an I/O error occurred while writing the report.
+    */
+   @Override
+   public void close() throws IOException {
+      output.close();
+      if (output.checkError()) {
+         throw new IOException("Report could not be written");
+      }
+   }
+}
@@ -0,0 +1,54 @@
+/* File name : SweepDispatcher.java */
+package elevator;
+
+/**
+ * This program assigns a hall call to the car that reaches the floor first
+ * while sweeping the building, i.e. travelling to the top floor before going
+ * down and to the first floor before going up. With a single car this is the
+ * way the elevator has always operated.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SweepDispatcher implements Dispatcher {
+
+   @Override
+   public int assign(int floorNum, ElevatorBank bank) {
+      int best = 0;
+      int bestDistance = Integer.MAX_VALUE;
+
+      for (int car = 0; car < bank.getNumCars(); car++) {
+         int distance = sweepDistance(bank.getFloor(car), bank.isAscending(car),
+            floorNum, bank.getNumFloors());
+         if (distance < bestDistance) {
+            best = car;
+            bestDistance = distance;
+         }
+      }
+
+      return best;
+   }
+
+   /**
+    * Counts the floors a sweeping car travels before reaching the floor.
+    *
+    * @param carFloor Floor no. of the car's next stop.
+    * @param isAscending Whether the car travels up.
+    * @param floorNum Floor no. to reach.
+    * @param numFloors Highest floor no.
+    * @return No. of floors to travel.
+    */
+   static int sweepDistance(int carFloor, boolean isAscending, int floorNum,
+      int numFloors) {
+
+      if (isAscending) {
+         return (floorNum >= carFloor)
+            ? floorNum - carFloor
+            : (numFloors - carFloor) + (numFloors - floorNum);
+      }
+      return (floorNum <= carFloor)
+         ? carFloor - floorNum
+         : (carFloor - 1) + (floorNum - 1);
+   }
+}
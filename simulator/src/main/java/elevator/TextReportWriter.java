@@ -0,0 +1,189 @@
+/* File name : TextReportWriter.java */
+package elevator;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+
+/**
+ * This program renders simulation events as the human readable report and
+ * streams them to a buffered writer as they happen. Nothing but the writer's
+ * buffer is kept in memory, so the size of the report does not depend on the
+ * length of the passenger data. Numbers are rendered into a reused buffer,
+ * so writing an event creates no objects. Reports of a file are opened
+ * with ReportWriter.open.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class TextReportWriter extends ReportWriter {
+
+   private final PrintWriter output; // Destination of the report
+   private final char[] digits; // Reused to render numbers
+   private int numCars; // Cars in the bank, named in banners if more than 1
+
+   /**
+    * Class constructor.
+    *
+    * @param writer Writer on which the report will be written.
+    */
+   public TextReportWriter(Writer writer) {
+      this(writer, null);
+   }
+
+   /**
+    * Class constructor for a report whose file length can be read.
+    *
+    * @param writer Writer on which the report will be written.
+    * @param channel File the writer writes to, or null.
+    */
+   TextReportWriter(Writer writer, FileChannel channel) {
+      super(channel);
+      this.output = new PrintWriter(writer);
+      this.digits = new char[11];
+      this.numCars = 1;
+   }
+
+   @Override
+   public void simulationStarted(int numFloors, int numCars) {
+      this.numCars = numCars;
+   }
+
+   @Override
+   public void floorStopped(int carNum, int floorNum) {
+      output.print("\n*****************************************\n");
+      if (numCars > 1) {
+         output.print("*\tCar ");
+         printNumber(carNum);
+         output.print(", Floor ");
+         printNumber(floorNum);
+         output.print("\t\t\t*");
+      } else {
+         output.print("*\t\tFloor ");
+         printNumber(floorNum);
+         output.print("\t\t\t*");
+      }
+      output.print("\n*****************************************\n");
+   }
+
+   @Override
+   public void passengerExited(Passenger passenger) {
+      output.print("   -");
+      printName(passenger);
+      output.print(" exits the elevator having temporarily exited ");
+      printNumber(passenger.getNumOfTempExits());
+      output.print(" times.\n");
+   }
+
+   @Override
+   public void passengerTempExited(Passenger passenger) {
+      output.print("   -");
+      printName(passenger);
+      output.print(" temporarily exits the elevator.\n");
+   }
+
+   @Override
+   public void elevatorEmptied() {
+      output.print("   -Elevator is empty.\n");
+   }
+
+   @Override
+   public void passengerEntered(Passenger passenger) {
+      output.print("   -");
+      printName(passenger);
+      output.print(" enters the elevator with destination to floor no. ");
+      printNumber(passenger.getFloorExited());
+      output.print(".\n");
+   }
+
+   @Override
+   public void passengerStayed(Passenger passenger) {
+      output.print("   -");
+      printName(passenger);
+      output.print(" did not ride the elevator because this floor is his/her "
+         + "destination.\n");
+   }
+
+   @Override
+   public void passengerSkipped(Passenger passenger) {
+      output.print("   -");
+      printName(passenger);
+      output.print(" could not ride the elevator because it is full.\n");
+   }
+
+   @Override
+   public void elevatorFilled() {
+      output.print("   -Elevator is full.\n");
+   }
+
+   @Override
+   public void directionReported(boolean isAscending) {
+      output.print((isAscending)
+         ? "   -Elevator is Ascending"
+         : "   -Elevator is Descending");
+   }
+
+   @Override
+   public void simulationEnded(SimulationStats stats) {
+      output.print("\n\nElevator is empty and there are more people "
+         + "waiting to ride it.\n\n");
+      output.print(stats.toString());
+      output.print("\n\nEnd of simulation... program will now terminate\n");
+   }
+
+   /**
+    * Writes the passenger's name, straight from the passenger store when the
+    * passenger is a view of one.
+    *
+    * @param passenger Passenger to name.
+    */
+   private void printName(Passenger passenger) {
+      if (passenger instanceof PassengerView) {
+         ((PassengerView) passenger).printName(output);
+      } else {
+         output.print(passenger.getName());
+      }
+   }
+
+   /**
+    * Writes the decimal digits of a number without creating a string.
+    *
+    * @param number Number to write.
+    */
+   private void printNumber(int number) {
+      if (number == Integer.MIN_VALUE) {
+         output.print(number);
+         return;
+      }
+
+      int index = digits.length;
+      int value = Math.abs(number);
+      do {
+         digits[--index] = (char) ('0' + value % 10);
+         value /= 10;
+      } while (value > 0);
+      if (number < 0) {
+         digits[--index] = '-';
+      }
+      output.write(digits, index, digits.length - index);
+   }
+
+   @Override
+   public void flush() {
+      output.flush();
+   }
+
+   /**
+    * Flushes and closes the report.
+    *
+    * @throws IOException If an I/O error occurred while writing the report.
+    */
+   @Override
+   public void close() throws IOException {
+      output.close();
+      // PrintWriter swallows I/O errors so we surface them once at the end
+      if (output.checkError()) {
+         throw new IOException("Report could not be written");
+      }
+   }
+}
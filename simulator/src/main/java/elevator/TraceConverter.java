@@ -0,0 +1,249 @@
+/* File name : TraceConverter.java */
+package elevator;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This program converts passenger data into the binary trace format read by
+ * BinaryTraceReader. Rows are checked once, as they are converted, and a row
+ * that can not be processed is reported with the same row and column numbers
+ * as a simulation of the text file would report. Records are written as
+ * they are read, so only the dictionary of distinct names is held in memory.
+ * Usage:
+ *
+ *    java -cp elevator-simulation.jar elevator.TraceConverter [options]
+ *       [input file pathname] [trace file pathname]
+ *
+ * where the options are those of ElevatorSimulation; --floors sets the
+ * floors the rows are checked against and --generate converts synthetic
+ * passengers instead of an input file.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class TraceConverter {
+
+   private final FileChannel channel; // Channel of the trace being written
+   private final ByteBuffer buffer; // Records waiting to be written
+   private final int numFloors; // Floors the rows were checked against
+   private final int floorWidth; // Bytes of each floor no.
+   private final Map<String, Integer> nameIds; // Number of each name
+   private final List<byte[]> names; // UTF-8 bytes of each name
+   private long numRecords; // No. of records written
+   private long arrivalTime; // Arrival time of the last record
+
+   /**
+    * Class constructor.
+    *
+    * @param channel Channel of the trace, positioned at its start.
+    * @param numFloors Number of floors the rows were checked against.
+    */
+   private TraceConverter(FileChannel channel, int numFloors) {
+      this.channel = channel;
+      this.buffer = ByteBuffer.allocate(1 << 16);
+      this.numFloors = numFloors;
+      this.floorWidth = (numFloors < 1 << 8) ? 1 : (numFloors < 1 << 16) ? 2 : 4;
+      this.nameIds = new HashMap<>();
+      this.names = new ArrayList<>();
+      this.numRecords = 0;
+      this.arrivalTime = 0;
+   }
+
+   /**
+    * Main entry point of the converter.
+    *
+    * @param args Holds the options followed by the input file name, unless
+    * passengers are generated, and the trace file name.
+    */
+   public static void main(String[] args) {
+      SimulationOptions options = null;
+      try {
+         options = SimulationOptions.parse(args);
+      } catch (IllegalArgumentException e) {
+         System.out.println(e.getMessage());
+         System.out.println(SimulationOptions.usage());
+         System.exit(-1);
+      }
+
+      try {
+         if (options.getNumGenerated() > 0) {
+            convert(WorkloadGenerator.of(options), options.getNumFloors(),
+               options.getOutFileName());
+         } else {
+            try (PassengerParser parser = new PassengerParser(
+                  options.getInFileName(), options.getNumFloors())) {
+               convert(parser, options.getNumFloors(), options.getOutFileName());
+            }
+         }
+      } catch (PassengerDataException e) {
+         // The faulty value is reported as a simulation would report it
+         System.out.print(e.getReport());
+         System.exit(-1);
+      } catch (FileNotFoundException e) {
+         System.out.println("File Not Found " + e);
+         System.exit(-1);
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+   }
+
+   /**
+    * Writes every passenger of the source to a trace file. If a passenger
+    * can not be processed, the partial trace is deleted.
+    *
+    * @param source Passengers in the order they start waiting, already
+    * checked against the number of floors.
+    * @param numFloors Number of floors in the building.
+    * @param traceFileName Name of the trace file.
+    * @return Number of passengers written.
+    * @throws IOException If the source can not be read or the trace can not
+    * be written.
+    * @throws PassengerDataException If the source holds a value that can not
+    * be processed.
+    */
+   public static long convert(PassengerSource source, int numFloors,
+      String traceFileName) throws IOException, PassengerDataException {
+
+      boolean isComplete = false;
+      try (FileChannel channel = FileChannel.open(Paths.get(traceFileName),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+         TraceConverter converter = new TraceConverter(channel, numFloors);
+         channel.position(BinaryTraceReader.HEADER_SIZE);
+
+         Passenger passenger;
+         while ((passenger = source.next()) != null) {
+            converter.writeRecord(passenger);
+         }
+         converter.finish();
+         isComplete = true;
+         return converter.numRecords;
+      } finally {
+         if (!isComplete) {
+            Files.deleteIfExists(Paths.get(traceFileName));
+         }
+      }
+   }
+
+   /**
+    * Adds the passenger's record to the buffer.
+    */
+   private void writeRecord(Passenger passenger) throws IOException {
+      if (buffer.remaining() < 32) {
+         flush();
+      }
+
+      String name = passenger.getName();
+      Integer nameId = nameIds.get(name);
+      if (nameId == null) {
+         nameId = names.size();
+         nameIds.put(name, nameId);
+         names.add(name.getBytes(StandardCharsets.UTF_8));
+      }
+
+      writeVarint(nameId);
+      writeFloor(passenger.getFloorEntered());
+      writeFloor(passenger.getFloorExited());
+      writeVarint(passenger.getArrivalTime() - arrivalTime);
+      arrivalTime = passenger.getArrivalTime();
+      numRecords++;
+   }
+
+   /**
+    * Writes the dictionary after the records, then the header.
+    */
+   private void finish() throws IOException {
+      flush();
+      long dictionaryOffset = channel.position();
+
+      int poolLength = 0;
+      for (byte[] name : names) {
+         if (buffer.remaining() < 4) {
+            flush();
+         }
+         buffer.putInt(poolLength);
+         poolLength += name.length;
+      }
+      if (buffer.remaining() < 4) {
+         flush();
+      }
+      buffer.putInt(poolLength);
+      for (byte[] name : names) {
+         if (buffer.remaining() < name.length) {
+            flush();
+         }
+         if (name.length > buffer.capacity()) {
+            channel.write(ByteBuffer.wrap(name));
+         } else {
+            buffer.put(name);
+         }
+      }
+      flush();
+
+      ByteBuffer header = ByteBuffer.allocate(BinaryTraceReader.HEADER_SIZE);
+      header.putInt(BinaryTraceReader.MAGIC);
+      header.putInt(BinaryTraceReader.VERSION);
+      header.putInt(numFloors);
+      header.put((byte) floorWidth);
+      header.put(new byte[3]); // Reserved
+      header.putLong(numRecords);
+      header.putLong(dictionaryOffset);
+      header.putInt(names.size());
+      header.flip();
+      channel.position(0);
+      while (header.hasRemaining()) {
+         channel.write(header);
+      }
+   }
+
+   /**
+    * Writes the buffered bytes to the trace.
+    */
+   private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+         channel.write(buffer);
+      }
+      buffer.clear();
+   }
+
+   /**
+    * Adds a floor no. in the trace's width to the buffer.
+    */
+   private void writeFloor(int floorNum) {
+      switch (floorWidth) {
+         case 1:
+            buffer.put((byte) floorNum);
+            break;
+         case 2:
+            buffer.putShort((short) floorNum);
+            break;
+         default:
+            buffer.putInt(floorNum);
+            break;
+      }
+   }
+
+   /**
+    * Adds a non-negative number as a varint to the buffer.
+    */
+   private void writeVarint(long value) {
+      while ((value & ~0x7fL) != 0) {
+         buffer.put((byte) ((value & 0x7f) | 0x80));
+         value >>>= 7;
+      }
+      buffer.put((byte) value);
+   }
+}
@@ -0,0 +1,90 @@
+/* File name : WaitingArea.java */
+package elevator;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The WaitingArea interface represents the people waiting for the elevator on
+ * the floors of the building. Implementations decide which of the people
+ * waiting on a floor can get in when the elevator stops there. People are
+ * indices of the PassengerStore the waiting area was created with.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public interface WaitingArea {
+
+   /**
+    * Adds a person who starts waiting for the elevator.
+    *
+    * @param passenger Index of the person waiting on their starting floor.
+    */
+   void add(int passenger);
+
+   /**
+    * Removes everyone waiting for the elevator.
+    */
+   void clear();
+
+   /**
+    * Indicates whether someone on the floor can get in the elevator next.
+    *
+    * @param floorNum Floor no. where the elevator stopped.
+    * @return Boolean indicating if someone can get in on the floor.
+    */
+   boolean hasWaiting(int floorNum);
+
+   /**
+    * Removes and returns the next person getting in on the floor.
+    *
+    * @param floorNum Floor no. where the elevator stopped.
+    * @return Index of the person getting in, -1 if no one can get in on the
+    * floor.
+    */
+   int board(int floorNum);
+
+   /**
+    * Finds the closest floor past the given one, in the direction of travel,
+    * where someone can get in the elevator.
+    *
+    * @param floorNum Floor no. to search from, excluded from the search.
+    * @param isAscending Whether to search the floors above or below.
+    * @return Floor no. where someone is waiting, -1 if there is none.
+    */
+   int nextWaitingFloor(int floorNum, boolean isAscending);
+
+   /**
+    * Gets the number of people waiting.
+    *
+    * @return No. of people waiting on all floors.
+    */
+   int getSize();
+
+   /**
+    * Indicates whether no one is waiting for the elevator.
+    *
+    * @return Boolean indicating if no one is waiting.
+    */
+   boolean isEmpty();
+
+   /**
+    * Writes the lines of people waiting for a checkpoint. The people
+    * themselves are written with the store.
+    *
+    * @param output Destination of the state.
+    * @throws IOException If the state can not be written.
+    */
+   void writeState(DataOutput output) throws IOException;
+
+   /**
+    * Replaces the lines of people waiting with the ones written by
+    * writeState.
+    *
+    * @param input Source of the state.
+    * @throws IOException If the state can not be read.
+    */
+   void readState(DataInput input) throws IOException;
+}
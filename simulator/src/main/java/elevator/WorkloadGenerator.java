@@ -0,0 +1,302 @@
+/* File name : WorkloadGenerator.java */
+package elevator;
+
+import java.io.*;
+import java.util.SplittableRandom;
+
+/**
+ * This program creates synthetic passenger data for load testing. Rows are
+ * drawn from a seeded random number generator, so the same settings always
+ * create the same trace, and are created one at a time: a trace can be
+ * written to a file of any length, or fed to a SimulationEngine as a
+ * PassengerSource, without ever being held in memory.
+ *
+ * The traffic pattern decides where people travel. In a uniform trace the
+ * starting and destination floors are drawn at random from all floors. An
+ * up-peak trace models the morning, when most people travel from the lobby
+ * to the floors above; a down-peak trace models the evening, when most
+ * people travel down to the lobby; and an interfloor trace models lunch,
+ * when people travel to and from the lobby as much as between the other
+ * floors. People never start on their destination floor unless the
+ * building has a single floor.
+ *
+ * People either all start waiting at time 0, or start waiting one after
+ * the other with times between them drawn from an exponential distribution
+ * with the given mean, as in a Poisson process.
+ *
+ * Traces follow the format of the input files: a comment header followed by
+ * one tab separated row per passenger with the name, starting floor,
+ * destination floor and, if people do not all arrive at once, arrival time.
+ * Usage:
+ *
+ *    java -cp elevator-simulation.jar elevator.WorkloadGenerator
+ *       --generate N [options] [output file pathname]
+ *
+ * where the options are those of ElevatorSimulation.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class WorkloadGenerator implements PassengerSource {
+
+   public static final String PATTERN_UNIFORM = "uniform";
+   public static final String PATTERN_UP_PEAK = "up-peak";
+   public static final String PATTERN_INTERFLOOR = "interfloor";
+   public static final String PATTERN_DOWN_PEAK = "down-peak";
+
+   private static final int LOBBY = 1; // Floor no. of the lobby
+
+   private final int numFloors; // No. of floors in the building
+   private final long numPassengers; // No. of passengers in the trace
+   private final String pattern; // Traffic pattern of the trace
+   private final long seed; // Seed of the random number generator
+   private final int meanInterval; // Mean time between arrivals, 0 if none
+   private final double fromLobby; // Share of trips starting in the lobby
+   private final double toLobby; // Share of trips ending in the lobby
+   private final byte[] name; // Reused to build passenger names
+   private SplittableRandom random; // Draws the floors and arrival times
+   private long numCreated; // No. of passengers created so far
+   private double clock; // Arrival time of the last passenger
+   private int floorEntered; // Starting floor of the last passenger
+   private int floorExited; // Destination floor of the last passenger
+   private long arrivalTime; // Arrival time of the last passenger
+
+   /**
+    * Class constructor.
+    *
+    * @param numFloors Number of floors in the building.
+    * @param numPassengers Number of passengers in the trace.
+    * @param pattern One of PATTERN_UNIFORM, PATTERN_UP_PEAK,
+    * PATTERN_INTERFLOOR or PATTERN_DOWN_PEAK.
+    * @param seed Seed of the random number generator.
+    * @param meanInterval Mean time between arrivals, 0 for everyone to start
+    * waiting at time 0.
+    * @throws IllegalArgumentException If a setting is out of range.
+    */
+   public WorkloadGenerator(int numFloors, long numPassengers, String pattern,
+      long seed, int meanInterval) {
+
+      if (numFloors < 1 || numPassengers < 0 || meanInterval < 0) {
+         throw new IllegalArgumentException("Invalid workload settings");
+      }
+      switch (pattern) {
+         case PATTERN_UNIFORM:
+            this.fromLobby = 0;
+            this.toLobby = 0;
+            break;
+         case PATTERN_UP_PEAK:
+            this.fromLobby = 0.85;
+            this.toLobby = 0.05;
+            break;
+         case PATTERN_INTERFLOOR:
+            this.fromLobby = 0.3;
+            this.toLobby = 0.3;
+            break;
+         case PATTERN_DOWN_PEAK:
+            this.fromLobby = 0.05;
+            this.toLobby = 0.85;
+            break;
+         default:
+            throw new IllegalArgumentException("Unknown pattern " + pattern);
+      }
+
+      this.numFloors = numFloors;
+      this.numPassengers = numPassengers;
+      this.pattern = pattern;
+      this.seed = seed;
+      this.meanInterval = meanInterval;
+      this.name = new byte[20];
+      reset();
+   }
+
+   /**
+    * Creates the generator asked for by the settings.
+    *
+    * @param options Settings of the run, with a number of passengers to
+    * generate.
+    * @return Generator of the trace.
+    */
+   public static WorkloadGenerator of(SimulationOptions options) {
+      return new WorkloadGenerator(options.getNumFloors(),
+         options.getNumGenerated(), options.getPattern(), options.getSeed(),
+         options.getArrivalInterval());
+   }
+
+   /**
+    * Main entry point to write a trace to a file.
+    *
+    * @param args Holds the options, which must include --generate, followed
+    * by the output file name.
+    */
+   public static void main(String[] args) {
+      SimulationOptions options = null;
+      try {
+         options = SimulationOptions.parse(args);
+         if (options.getNumGenerated() == 0) {
+            throw new IllegalArgumentException("Missing --generate");
+         }
+      } catch (IllegalArgumentException e) {
+         System.out.println(e.getMessage());
+         System.out.println(SimulationOptions.usage());
+         System.exit(-1);
+      }
+
+      try (OutputStream output = new FileOutputStream(options.getOutFileName())) {
+         of(options).write(output);
+      } catch (IOException e) {
+         System.out.println("An I/O Error Occurred " + e);
+         System.exit(-1);
+      }
+   }
+
+   /**
+    * Starts the trace over, so the same passengers are created again.
+    */
+   public void reset() {
+      this.random = new SplittableRandom(seed);
+      this.numCreated = 0;
+      this.clock = 0;
+   }
+
+   /**
+    * Writes the whole trace, from the first passenger, as an input file.
+    *
+    * @param output Stream receiving the trace; it is not closed.
+    * @throws IOException If the trace can not be written.
+    */
+   public void write(OutputStream output) throws IOException {
+      reset();
+      byte[] buffer = new byte[1 << 16];
+      int length = 0;
+
+      String header = "//elevator input data - synthetic " + pattern
+         + " trace, seed " + seed + "\r\n"
+         + "//Name      floor entered elevator      floor exited"
+         + ((meanInterval > 0) ? "      arrival time" : "") + ". \r\n";
+      output.write(header.getBytes("US-ASCII"));
+
+      // Rows are rendered straight into the buffer to keep up with the disk
+      while (createNext()) {
+         if (length > buffer.length - 96) {
+            output.write(buffer, 0, length);
+            length = 0;
+         }
+         int nameLength = formatName();
+         System.arraycopy(name, 0, buffer, length, nameLength);
+         length += nameLength;
+         buffer[length++] = '\t';
+         length = format(floorEntered, buffer, length);
+         buffer[length++] = '\t';
+         length = format(floorExited, buffer, length);
+         if (meanInterval > 0) {
+            buffer[length++] = '\t';
+            length = format(arrivalTime, buffer, length);
+         }
+         buffer[length++] = '\r';
+         buffer[length++] = '\n';
+      }
+      output.write(buffer, 0, length);
+      output.flush();
+   }
+
+   @Override
+   public Passenger next() {
+      if (!createNext()) {
+         return null;
+      }
+      return new Passenger("P" + (numCreated - 1), floorEntered, floorExited,
+         arrivalTime);
+   }
+
+   @Override
+   public int nextIndex(PassengerStore store) {
+      if (!createNext()) {
+         return -1;
+      }
+      return store.add(name, 0, formatName(), floorEntered, floorExited,
+         arrivalTime);
+   }
+
+   @Override
+   public int sizeHint() {
+      return (int) Math.min(Integer.MAX_VALUE - 8, numPassengers - numCreated);
+   }
+
+   /**
+    * Draws the floors and arrival time of the next passenger.
+    *
+    * @return Boolean indicating if a passenger was created, false once the
+    * trace is complete.
+    */
+   private boolean createNext() {
+      if (numCreated == numPassengers) {
+         return false;
+      }
+      numCreated++;
+
+      if (numFloors == 1) {
+         floorEntered = LOBBY;
+         floorExited = LOBBY;
+      } else {
+         double trip = random.nextDouble();
+         if (trip < fromLobby) {
+            floorEntered = LOBBY;
+            floorExited = 2 + random.nextInt(numFloors - 1);
+         } else if (trip < fromLobby + toLobby) {
+            floorEntered = 2 + random.nextInt(numFloors - 1);
+            floorExited = LOBBY;
+         } else {
+            // Uniform trips may start or end in the lobby, the others are
+            // between the floors above it
+            int lowest = (pattern.equals(PATTERN_UNIFORM) || numFloors < 3)
+               ? 1 : 2;
+            int range = numFloors - lowest + 1;
+            floorEntered = lowest + random.nextInt(range);
+            floorExited = lowest + random.nextInt(range - 1);
+            if (floorExited >= floorEntered) {
+               floorExited++;
+            }
+         }
+      }
+
+      if (meanInterval > 0) {
+         clock -= Math.log(1 - random.nextDouble()) * meanInterval;
+         arrivalTime = (long) clock;
+      } else {
+         arrivalTime = 0;
+      }
+      return true;
+   }
+
+   /**
+    * Writes the name of the last passenger into the name buffer.
+    *
+    * @return No. of bytes in the name.
+    */
+   private int formatName() {
+      name[0] = 'P';
+      return format(numCreated - 1, name, 1);
+   }
+
+   /**
+    * Writes the digits of a non-negative number into a buffer.
+    *
+    * @return Offset following the last digit.
+    */
+   private static int format(long number, byte[] buffer, int offset) {
+      int end = offset;
+      do {
+         buffer[end++] = (byte) ('0' + number % 10);
+         number /= 10;
+      } while (number > 0);
+
+      // Digits were written from the last one
+      for (int low = offset, high = end - 1; low < high; low++, high--) {
+         byte digit = buffer[low];
+         buffer[low] = buffer[high];
+         buffer[high] = digit;
+      }
+      return end;
+   }
+}
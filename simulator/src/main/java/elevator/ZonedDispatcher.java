@@ -0,0 +1,23 @@
+/* File name : ZonedDispatcher.java */
+package elevator;
+
+/**
+ * This program splits the building into as many zones of consecutive floors as
+ * there are cars and assigns every hall call to the car of the floor's zone.
+ * Passengers still ride to any floor, but each car only picks people up in
+ * its own zone.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class ZonedDispatcher implements Dispatcher {
+
+   @Override
+   public int assign(int floorNum, ElevatorBank bank) {
+      int numCars = bank.getNumCars();
+      int zoneSize = (bank.getNumFloors() + numCars - 1) / numCars;
+
+      return Math.min((floorNum - 1) / zoneSize, numCars - 1);
+   }
+}
@@ -0,0 +1,92 @@
+/* File name : CampusRunnerTest.java */
+package elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Test;
+
+/**
+ * Checks that a campus report lines up the results of buildings of any name,
+ * and that no building can be taken for the report or its totals.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class CampusRunnerTest {
+
+   @Test
+   public void columnsFollowTheLongestName() throws Exception {
+      Path dir = Files.createTempDirectory("campus");
+      Path in = write(dir, "TowerA Bob 1 4 0\n"
+         + "AVeryLongBuildingName Ann 2 5 0\n");
+      SimulationOptions options = SimulationOptions.parse(new String[] {
+         "--campus", in.toString(), dir.resolve("out").toString() });
+
+      CampusRunner campus = CampusRunner.read(options, in.toString(),
+         dir.resolve("out").toString());
+      long elapsedNanos = campus.run(1, null, null);
+      StringWriter report = new StringWriter();
+      try (PrintWriter output = new PrintWriter(report)) {
+         campus.writeReport(output, elapsedNanos);
+      }
+
+      // The served column ends at the same place on every row
+      String[] lines = report.toString().split("\n");
+      int end = lines[0].indexOf("Served") + "Served".length();
+      for (int row = 1; row <= 3; row++) {
+         assertEquals(lines[row], ' ', lines[row].charAt(end));
+         assertTrue(lines[row],
+            Character.isDigit(lines[row].charAt(end - 1)));
+      }
+   }
+
+   @Test
+   public void buildingCanNotBeNamedCampus() throws Exception {
+      Path dir = Files.createTempDirectory("campus");
+      Path in = write(dir, "TowerA Bob 1 4 0\ncampus Ann 2 5 0\n");
+      SimulationOptions options = SimulationOptions.parse(new String[] {
+         "--campus", in.toString(), dir.resolve("out").toString() });
+
+      IOException e = assertThrows(IOException.class,
+         () -> CampusRunner.read(options, in.toString(),
+            dir.resolve("out").toString()));
+      assertEquals("Building campus would be taken for the campus totals",
+         e.getMessage());
+   }
+
+   @Test
+   public void buildingCanNotOverwriteTheReport() throws Exception {
+      Path dir = Files.createTempDirectory("campus");
+      File buildings = dir.resolve("in").toFile();
+      buildings.mkdir();
+      write(buildings.toPath(), "Bob 1 4\n").toFile()
+         .renameTo(new File(buildings, "Campus.txt"));
+      SimulationOptions options = SimulationOptions.parse(new String[] {
+         "--campus", buildings.getPath(), dir.resolve("out").toString() });
+
+      IOException e = assertThrows(IOException.class,
+         () -> CampusRunner.read(options, buildings.getPath(),
+            dir.resolve("out").toString()));
+      assertEquals("Building Campus.txt would overwrite the campus report",
+         e.getMessage());
+   }
+
+   /**
+    * Writes the rows to a new file of the directory.
+    */
+   private static Path write(Path dir, String rows) throws IOException {
+      Path file = Files.createTempFile(dir, "rows", ".txt");
+      Files.write(file, rows.getBytes(StandardCharsets.UTF_8));
+      return file;
+   }
+}
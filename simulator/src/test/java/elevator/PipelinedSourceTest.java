@@ -0,0 +1,197 @@
+/* File name : PipelinedSourceTest.java */
+package elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks that a PipelinedSource hands over the passengers of its source in
+ * order, passes on whatever stops its reading thread and lets a pipelined
+ * run read while it simulates.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class PipelinedSourceTest {
+
+   @Test(timeout = 10000)
+   public void passengersKeepTheirOrder() throws Exception {
+      PassengerStore store = new PassengerStore();
+      try (PipelinedSource source = new PipelinedSource(
+            new CountingSource(1000, -1), 64)) {
+         int passenger;
+         while ((passenger = source.nextIndex(store)) >= 0) {
+            assertEquals(CountingSource.floorEntered(passenger),
+               store.getFloorEntered(passenger));
+         }
+      }
+      assertEquals(1000, store.getSize());
+   }
+
+   @Test(timeout = 10000)
+   public void errorOfTheReadingThreadIsThrown() throws Exception {
+      PassengerStore store = new PassengerStore();
+      try (PipelinedSource source = new PipelinedSource(
+            new CountingSource(1000, 300), 64)) {
+         Error error = assertThrows(Error.class, () -> {
+            while (source.nextIndex(store) >= 0) {
+               // Passengers before the failing row are taken first
+            }
+         });
+         assertEquals("Row 300", error.getMessage());
+      }
+      assertEquals(300, store.getSize());
+   }
+
+   @Test(timeout = 30000)
+   public void pipelinedRunReadsWhileItSimulates() throws Exception {
+      SimulationOptions options = SimulationOptions.parse(new String[] {
+         "--pipeline", "in.txt", "out.txt" });
+      CountingSource counting = new CountingSource(200000, -1);
+      FirstStopListener listener = new FirstStopListener(counting);
+      SimulationStats stats;
+      try (PipelinedSource source = new PipelinedSource(counting, 64)) {
+         stats = new SimulationEngine(options).run(source, listener);
+      }
+
+      // At the first stop only the stream window and the blocks in flight
+      // have been read, the rest is read while the cars move
+      assertTrue(options.isStreaming());
+      assertTrue(listener.getNumReadAtFirstStop() < 200000 / 2);
+      assertEquals(200000, counting.getNumRead());
+      assertTrue(stats.getTotalServed() > 0);
+   }
+
+   /**
+    * This listener records how many passengers the source had created when
+    * a car first stopped, and ignores every other event.
+    */
+   private static class FirstStopListener implements SimulationListener {
+
+      private final CountingSource source; // Source of the run
+      private int numReadAtFirstStop; // Passengers read at the first stop
+
+      /**
+       * Class constructor.
+       *
+       * @param source Source of the run.
+       */
+      FirstStopListener(CountingSource source) {
+         this.source = source;
+         this.numReadAtFirstStop = -1;
+      }
+
+      /**
+       * Gets the number of passengers created when a car first stopped.
+       *
+       * @return No. of passengers read, -1 if no car stopped.
+       */
+      int getNumReadAtFirstStop() {
+         return numReadAtFirstStop;
+      }
+
+      @Override
+      public void simulationStarted(int numFloors, int numCars) {
+      }
+
+      @Override
+      public void floorStopped(int carNum, int floorNum) {
+         if (numReadAtFirstStop < 0) {
+            numReadAtFirstStop = source.getNumRead();
+         }
+      }
+
+      @Override
+      public void passengerExited(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerTempExited(Passenger passenger) {
+      }
+
+      @Override
+      public void elevatorEmptied() {
+      }
+
+      @Override
+      public void passengerEntered(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerStayed(Passenger passenger) {
+      }
+
+      @Override
+      public void passengerSkipped(Passenger passenger) {
+      }
+
+      @Override
+      public void elevatorFilled() {
+      }
+
+      @Override
+      public void directionReported(boolean isAscending) {
+      }
+
+      @Override
+      public void simulationEnded(SimulationStats stats) {
+      }
+   }
+
+   /**
+    * This source creates a given number of passengers, and can stop with an
+    * Error at a given row.
+    */
+   static class CountingSource implements PassengerSource {
+
+      private final int numPassengers; // Passengers created in all
+      private final int failingRow; // Row throwing an Error, -1 if none
+      private volatile int numRead; // Passengers created so far
+
+      /**
+       * Class constructor.
+       *
+       * @param numPassengers No. of passengers to create.
+       * @param failingRow Index of the row throwing an Error, -1 if none.
+       */
+      CountingSource(int numPassengers, int failingRow) {
+         this.numPassengers = numPassengers;
+         this.failingRow = failingRow;
+         this.numRead = 0;
+      }
+
+      /**
+       * Gets the floor where the passenger of a row waits.
+       */
+      static int floorEntered(int row) {
+         return 1 + row % Elevator.DEFAULT_NUM_FLOORS;
+      }
+
+      /**
+       * Gets the number of passengers created so far.
+       *
+       * @return No. of passengers read from the source.
+       */
+      int getNumRead() {
+         return numRead;
+      }
+
+      @Override
+      public Passenger next() {
+         int row = numRead;
+         if (row == failingRow) {
+            throw new Error("Row " + row);
+         }
+         if (row == numPassengers) {
+            return null;
+         }
+         numRead = row + 1;
+         return new Passenger("P" + row, floorEntered(row),
+            1 + (row + 2) % Elevator.DEFAULT_NUM_FLOORS);
+      }
+   }
+}
@@ -0,0 +1,40 @@
+/* File name : SimulationOptionsTest.java */
+package elevator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Checks how SimulationOptions parses the command line, and which options
+ * can not be combined.
+ *
+ * @author Rodrigo Rogel-Perez
+ * @version 1.1
+ * @since 2020-10-06
+ */
+public class SimulationOptionsTest {
+
+   @Test
+   public void sweepIsParsed() {
+      SimulationOptions options = SimulationOptions.parse(new String[] {
+         "--sweep", "capacity=5,8", "in.txt", "out.txt" });
+
+      assertEquals(Arrays.asList("5", "8"),
+         options.getSweeps().get("capacity"));
+      assertEquals("in.txt", options.getInFileName());
+   }
+
+   @Test
+   public void sweepIsRejectedWithStream() {
+      IllegalArgumentException e = assertThrows(
+         IllegalArgumentException.class,
+         () -> SimulationOptions.parse(new String[] {
+            "--stream", "--sweep", "capacity=5,8", "in.txt", "out.txt" }));
+
+      assertEquals("--sweep can not be used with --batch, --stream, "
+         + "--follow or --checkpoint", e.getMessage());
+   }
+}